@@ -0,0 +1,141 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.HistoryDay;
+import com.asmp.pricebook.command.PricebookQueryService.HistoryInsights;
+import com.asmp.pricebook.command.PricebookQueryService.Listing;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistory;
+import com.asmp.pricebook.command.PricebookQueryService.WaystoneReference;
+import com.asmp.pricebook.util.Dimensions;
+import net.minecraft.text.Style;
+import net.minecraft.util.math.BlockPos;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Fixed inputs for the renderer benchmarks. Everything is generated from a fixed seed so runs
+ * on different machines lay out the same tables.
+ */
+final class BenchmarkData {
+    static final Instant NOW = Instant.parse("2025-10-16T12:00:00Z");
+
+    /**
+     * Advances close to the vanilla default font: 6px for most glyphs, with the narrow and wide
+     * exceptions, bold adding one, and a spread of widths for the Unicode spaces used as padding.
+     * A single instance, so spacer and width caches behave as they do with a real font.
+     */
+    static final PricebookRenderer.WidthProvider VANILLA_WIDTHS = text -> {
+        int[] total = new int[1];
+        text.visit((style, string) -> {
+            for (int i = 0; i < string.length(); ) {
+                int codePoint = string.codePointAt(i);
+                total[0] += advance(codePoint) + (style.isBold() ? 1 : 0);
+                i += Character.charCount(codePoint);
+            }
+            return Optional.empty();
+        }, Style.EMPTY);
+        return total[0];
+    };
+
+    private BenchmarkData() {
+    }
+
+    private static int advance(int codePoint) {
+        return switch (codePoint) {
+            case 'i', '!', '.', ',', ':', ';', '|', '\'' -> 2;
+            case 'l', '`', '·' -> 3;
+            case ' ', 'I', 't', '[', ']' -> 4;
+            case 'f', 'k', '<', '>', '(', ')', '{', '}', '"', '*' -> 5;
+            case '@', '~' -> 7;
+            case '\u2000', '\u2002', '\u2007' -> 8;
+            case '\u2001', '\u2003' -> 16;
+            case '\u2004' -> 6;
+            case '\u2005' -> 5;
+            case '\u2006', '\u2008', '\u202F' -> 3;
+            case '\u2009' -> 2;
+            case '\u200A' -> 1;
+            default -> 6;
+        };
+    }
+
+    /**
+     * Sellers and buyers as the service returns them for a typical item.
+     */
+    static Market realisticMarket() {
+        List<Listing> sellers = List.of(
+                listing("Wrathic", 2000.0, 1, Dimensions.OVERWORLD, Duration.ofMinutes(12), "Farmers Market"),
+                listing("Styxah", 3750.0, 43, Dimensions.OVERWORLD, Duration.ofHours(2), "Amethyst Village"),
+                listing("burntbustybread", 3950.0, 14, Dimensions.NETHER, Duration.ofDays(3), "On God I'm going back"));
+        List<Listing> buyers = List.of(
+                listing("ProbablyNotJacob", 3800.0, 1728, Dimensions.OVERWORLD, Duration.ofMinutes(5), "Amethyst Village"),
+                listing("Styxah", 3500.0, 11, Dimensions.OVERWORLD, Duration.ofHours(4), "Farmers Market"),
+                listing("burntbustybread", 3250.0, 61, Dimensions.END, Duration.ofHours(30), "Spawn"));
+        return new Market(sellers, buyers);
+    }
+
+    /**
+     * Everything that makes layout work hard at once: owners at the name length limit, waystone
+     * names far past the column width, prices with decimals and seven digits, every row in
+     * another dimension and stale.
+     */
+    static Market worstCaseMarket() {
+        List<Listing> sellers = List.of(
+                listing("AAAAAAAAAAAAAAAAAAAAAA_WWWW", 1234567.891, 99999, Dimensions.NETHER, Duration.ofDays(9),
+                        "The Glorious Democratic People's Republic Of Rddubstan"),
+                listing("mmmmmmmmmmmmmmmmmmmmmmmmm", 9876543.21, 88888, Dimensions.END, Duration.ofDays(12),
+                        "Waystone With An Unreasonably Long Name That Never Ends"),
+                listing("WWWWWWWWWWWWWWWW", 0.01, 1, Dimensions.NETHER, Duration.ofDays(30),
+                        "@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@"));
+        List<Listing> buyers = List.of(
+                listing("____________________xX", 7654321.09, 77777, Dimensions.END, Duration.ofDays(40),
+                        "~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~"),
+                listing("mmmmmmmmmmmmmmmmmmmmmmmmm", 0.5, 3, Dimensions.NETHER, Duration.ofDays(2),
+                        "The Glorious Democratic People's Republic Of Rddubstan"),
+                listing("AAAAAAAAAAAAAAAAAAAAAA_WWWW", 1000000.001, 64, Dimensions.END, Duration.ofDays(5),
+                        "Waystone With An Unreasonably Long Name That Never Ends"));
+        return new Market(sellers, buyers);
+    }
+
+    /**
+     * A history as {@link PriceHistoryCache#prepare} would hand it to the renderer, newest day
+     * first, with the insights filled in.
+     */
+    static PriceHistory history(int days, boolean fractionalPrices) {
+        Random random = new Random(days * 31L + (fractionalPrices ? 1 : 0));
+        LocalDate latest = LocalDate.of(2025, 10, 16);
+        List<HistoryDay> history = new ArrayList<>(days);
+        HistoryDay lowest = null;
+        HistoryDay highest = null;
+        double price = 2500;
+        for (int i = 0; i < days; i++) {
+            price = Math.max(1, price + random.nextGaussian() * 150);
+            double shown = fractionalPrices ? Math.round(price * 100) / 100.0 : Math.rint(price);
+            HistoryDay day = new HistoryDay(latest.minusDays(i).toString(), shown,
+                    random.nextInt(5000), 1 + random.nextInt(40));
+            if (lowest == null || day.lowestPrice() < lowest.lowestPrice()) {
+                lowest = day;
+            }
+            if (highest == null || day.lowestPrice() > highest.lowestPrice()) {
+                highest = day;
+            }
+            history.add(day);
+        }
+        return new PriceHistory("netherite ingot", List.copyOf(history),
+                new HistoryInsights(lowest, highest, fractionalPrices));
+    }
+
+    private static Listing listing(String owner, double price, int amount, String dimension, Duration age,
+                                   String waystone) {
+        BlockPos position = new BlockPos(owner.length() * 37 - 500, 64, Math.round((float) price) % 2000 - 1000);
+        return new Listing(owner, price, amount, position, dimension, NOW.minus(age),
+                new WaystoneReference(waystone, position.add(6, 0, 4), 52));
+    }
+
+    record Market(List<Listing> sellers, List<Listing> buyers) {
+    }
+}
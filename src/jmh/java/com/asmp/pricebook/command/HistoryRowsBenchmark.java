@@ -0,0 +1,41 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistory;
+import net.minecraft.text.MutableText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code /pricebook_history} panel: one week, the usual month, and a full year of days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryRowsBenchmark {
+    @Param({"7", "30", "365"})
+    public int days;
+
+    @Param({"false", "true"})
+    public boolean fractionalPrices;
+
+    private PriceHistory history;
+
+    @Setup
+    public void setUp() {
+        history = BenchmarkData.history(days, fractionalPrices);
+    }
+
+    @Benchmark
+    public List<MutableText> buildHistoryLines() {
+        return PricebookRenderer.buildHistoryLines(history, BenchmarkData.VANILLA_WIDTHS);
+    }
+}
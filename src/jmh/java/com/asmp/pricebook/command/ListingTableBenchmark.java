@@ -0,0 +1,51 @@
+package com.asmp.pricebook.command;
+
+import net.minecraft.text.MutableText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DecimalFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code /pb} result table, laid out the way {@link ListingTableFormatter#build} does in
+ * game. 320 is the default chat width; 120 forces owner and waystone columns down to their
+ * minimum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListingTableBenchmark {
+    @Param({"realistic", "worstCase"})
+    public String market;
+
+    @Param({"320", "120"})
+    public int chatWidth;
+
+    private BenchmarkData.Market listings;
+    private DecimalFormat priceFormatter;
+
+    @Setup
+    public void setUp() {
+        listings = market.equals("worstCase") ? BenchmarkData.worstCaseMarket() : BenchmarkData.realisticMarket();
+        priceFormatter = PricebookRenderer.createPriceFormatter(listings.sellers(), listings.buyers());
+    }
+
+    @Benchmark
+    public List<MutableText> buildTable() {
+        return ListingTableFormatter.buildForTest(listings.sellers(), listings.buyers(), priceFormatter,
+                BenchmarkData.VANILLA_WIDTHS, "overworld", BenchmarkData.NOW, chatWidth);
+    }
+
+    @Benchmark
+    public DecimalFormat createPriceFormatter() {
+        return PricebookRenderer.createPriceFormatter(listings.sellers(), listings.buyers());
+    }
+}
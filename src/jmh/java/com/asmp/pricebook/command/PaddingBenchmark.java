@@ -0,0 +1,52 @@
+package com.asmp.pricebook.command;
+
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Padding a single cell. The spacer table is built on the first call, so this measures the
+ * steady state the chat tables see after the first lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaddingBenchmark {
+    @Param({"3", "37", "211"})
+    public int pixels;
+
+    private Text price;
+    private int targetWidth;
+
+    @Setup
+    public void setUp() {
+        price = Text.literal("1,234,567.89").formatted(Formatting.GREEN);
+        targetWidth = BenchmarkData.VANILLA_WIDTHS.width(price) + pixels;
+        PricebookRenderer.spacer(BenchmarkData.VANILLA_WIDTHS, pixels);
+    }
+
+    @Benchmark
+    public MutableText spacer() {
+        return PricebookRenderer.spacer(BenchmarkData.VANILLA_WIDTHS, pixels);
+    }
+
+    @Benchmark
+    public MutableText padLeft() {
+        return PricebookRenderer.padLeft(BenchmarkData.VANILLA_WIDTHS, price, targetWidth);
+    }
+
+    @Benchmark
+    public MutableText padRight() {
+        return PricebookRenderer.padRight(BenchmarkData.VANILLA_WIDTHS, price, targetWidth);
+    }
+}
@@ -0,0 +1,163 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistoryResult;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The response decoders behind {@code /pb}, {@code /pb page}, the catalog fetch and
+ * {@code /pricebook_history}. Bodies are UTF-8 bytes read through the same reader the query
+ * service opens over a response stream, so charset decoding is included. Sizes: a normal
+ * lookup, a 200-row listing page, a 20k-item catalog and a 365-day history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseDecoderBenchmark {
+    private static final String[] OWNERS = {"Wrathic", "Styxah", "burntbustybread", "ProbablyNotJacob", "xX_Trader_Xx"};
+    private static final String[] DIMENSIONS = {"overworld", "the_nether", "the_end"};
+
+    private byte[] lookupBody;
+    private byte[] pageBody;
+    private byte[] catalogBody;
+    private byte[] historyBody;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20_000);
+        lookupBody = write(out -> writeItem(out, random, 3, false));
+        pageBody = write(out -> writeItem(out, random, PricebookQueryService.MAX_LISTING_PAGE_SIZE, true));
+        catalogBody = write(out -> writeCatalog(out, random, 20_000));
+        historyBody = write(out -> writeHistory(out, random, 365));
+    }
+
+    @Benchmark
+    public ItemLookupResult decodeLookup() throws IOException {
+        try (Reader body = open(lookupBody)) {
+            return PricebookResponseDecoder.decodeItem(body);
+        }
+    }
+
+    @Benchmark
+    public ListingPageResult decodeListingPage() throws IOException {
+        try (Reader body = open(pageBody)) {
+            return PricebookResponseDecoder.decodeListingPage(body, 1, PricebookQueryService.MAX_LISTING_PAGE_SIZE);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> decodeCatalog() throws IOException {
+        try (Reader body = open(catalogBody)) {
+            return PricebookResponseDecoder.decodeCatalog(body);
+        }
+    }
+
+    @Benchmark
+    public PriceHistoryResult decodeHistory() throws IOException {
+        try (Reader body = open(historyBody)) {
+            return PricebookResponseDecoder.decodeHistory(body);
+        }
+    }
+
+    private static Reader open(byte[] body) {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+    }
+
+    private static void writeItem(JsonWriter out, Random random, int perSide, boolean paged) throws IOException {
+        out.beginObject()
+                .name("ok").value(true)
+                .name("item").value("netherite ingot")
+                .name("refreshedAt").value(BenchmarkData.NOW.toString());
+        if (paged) {
+            out.name("totalSellers").value(perSide * 3).name("totalBuyers").value(perSide * 2);
+        }
+        out.name(paged ? "sellers" : "topSellers");
+        writeListings(out, random, perSide);
+        out.name(paged ? "buyers" : "topBuyers");
+        writeListings(out, random, perSide);
+        out.endObject();
+    }
+
+    private static void writeListings(JsonWriter out, Random random, int count) throws IOException {
+        out.beginArray();
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(20_000) - 10_000;
+            int z = random.nextInt(20_000) - 10_000;
+            out.beginObject()
+                    .name("owner").value(OWNERS[random.nextInt(OWNERS.length)])
+                    .name("price").value(Math.round(random.nextDouble() * 500_000) / 100.0)
+                    .name("amount").value(1 + random.nextInt(1728))
+                    .name("dimension").value(DIMENSIONS[random.nextInt(DIMENSIONS.length)])
+                    .name("lastSeenAt").value(BenchmarkData.NOW.minus(Duration.ofMinutes(random.nextInt(10_000))).toString());
+            out.name("coords").beginArray().value(x).value(64 + random.nextInt(60)).value(z).endArray();
+            out.name("nearestWaystone").beginObject()
+                    .name("name").value("Waystone " + random.nextInt(400))
+                    .name("distanceSq").value(random.nextInt(2_500));
+            out.name("position").beginArray().value(x + 6).value(65).value(z - 4).endArray();
+            out.endObject().endObject();
+        }
+        out.endArray();
+    }
+
+    private static void writeCatalog(JsonWriter out, Random random, int count) throws IOException {
+        out.beginObject().name("ok").value(true).name("items").beginArray();
+        for (int i = 0; i < count; i++) {
+            out.beginObject()
+                    .name("name").value(OWNERS[random.nextInt(OWNERS.length)].toLowerCase(Locale.ROOT) + " item " + i)
+                    .endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private static void writeHistory(JsonWriter out, Random random, int days) throws IOException {
+        LocalDate latest = LocalDate.of(2025, 10, 16);
+        out.beginObject().name("ok").value(true).name("item").value("netherite ingot").name("history").beginArray();
+        for (int i = 0; i < days; i++) {
+            out.beginObject()
+                    .name("date").value(latest.minusDays(i).toString())
+                    .name("lowestPrice").value(Math.round(random.nextDouble() * 500_000) / 100.0)
+                    .name("stock").value(random.nextInt(5_000))
+                    .name("shops").value(1 + random.nextInt(40))
+                    .endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    private static byte[] write(JsonBody body) {
+        StringWriter text = new StringWriter();
+        try (JsonWriter out = new JsonWriter(text)) {
+            body.writeTo(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void writeTo(JsonWriter out) throws IOException;
+    }
+}
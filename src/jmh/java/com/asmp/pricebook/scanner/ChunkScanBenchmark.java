@@ -0,0 +1,54 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-chunk work {@link ShopScanner#scanChunk} does before anything is sent: reading and
+ * parsing every sign, and walking the full column for waystones. Run headless with
+ * {@code ./gradlew jmh -PjmhIncludes=ChunkScan}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChunkScanBenchmark {
+    @Param({"wilderness", "shopMall", "waystoneHub", "tallBuild"})
+    public String shape;
+
+    private SyntheticChunk chunk;
+
+    @Setup
+    public void setUp() {
+        // Blocks and their states need the vanilla registries.
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        chunk = switch (shape) {
+            case "shopMall" -> SyntheticChunk.shopMall();
+            case "waystoneHub" -> SyntheticChunk.waystoneHub();
+            case "tallBuild" -> SyntheticChunk.tallBuild();
+            default -> SyntheticChunk.wilderness();
+        };
+    }
+
+    @Benchmark
+    public Set<ShopSignParser.ShopEntry> collectShops() {
+        return ShopScanner.collectShops(chunk);
+    }
+
+    @Benchmark
+    public Set<BlockPos> collectWaystones() {
+        return ShopScanner.collectWaystones(chunk);
+    }
+}
@@ -0,0 +1,94 @@
+package com.asmp.pricebook.scanner;
+
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scan transport's codecs: encoding one {@code /v1/scan} body, and parsing the
+ * {@code /v1/chunks} list fetched on join. Payloads are generated from a fixed seed at the sizes
+ * seen in production. Throughput and sampled latency are reported per operation; run with the
+ * GC profiler (the default) for bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScanCodecBenchmark {
+    private static final int BOOTSTRAP_CHUNKS = 50_000;
+    private static final String[] DIMENSIONS = {"overworld", "the_nether", "the_end"};
+
+    private final ChunkPos chunkPos = new ChunkPos(-13, 2);
+    private List<ShopSignParser.ShopEntry> typicalShops;
+    private List<ShopSignParser.ShopEntry> mallShops;
+    private List<BlockPos> waystones;
+    private String bootstrapBody;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(50_000);
+        typicalShops = shops(random, 3);
+        mallShops = shops(random, 240);
+        waystones = List.of(new BlockPos(-200, 65, 40), new BlockPos(-196, 65, 44));
+        bootstrapBody = chunkList(random, BOOTSTRAP_CHUNKS);
+    }
+
+    @Benchmark
+    public String encodeTypicalScan() {
+        return HttpScanTransport.encodePayload("sender", "overworld", chunkPos, typicalShops, waystones);
+    }
+
+    @Benchmark
+    public String encodeMallScan() {
+        return HttpScanTransport.encodePayload("sender", "overworld", chunkPos, mallShops, waystones);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<HttpScanTransport.ChunkCoordinate> parseBootstrapChunks() {
+        return HttpScanTransport.parseChunkList(bootstrapBody);
+    }
+
+    private List<ShopSignParser.ShopEntry> shops(Random random, int count) {
+        List<ShopSignParser.ShopEntry> shops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] lines = SyntheticChunk.shopSign(random);
+            BlockPos pos = new BlockPos(chunkPos.getStartX() + random.nextInt(16), 64 + random.nextInt(24),
+                    chunkPos.getStartZ() + random.nextInt(16));
+            ShopSignParser.parseLines(lines, pos).ifPresent(shops::add);
+        }
+        return shops;
+    }
+
+    private static String chunkList(Random random, int count) {
+        StringWriter body = new StringWriter(count * 56);
+        try (JsonWriter out = new JsonWriter(body)) {
+            out.beginObject().name("ok").value(true).name("chunks").beginArray();
+            for (int i = 0; i < count; i++) {
+                out.beginObject()
+                        .name("dimension").value(DIMENSIONS[random.nextInt(10) < 8 ? 0 : 1 + random.nextInt(2)])
+                        .name("chunkX").value(random.nextInt(4000) - 2000)
+                        .name("chunkZ").value(random.nextInt(4000) - 2000)
+                        .endObject();
+            }
+            out.endArray().endObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return body.toString();
+    }
+}
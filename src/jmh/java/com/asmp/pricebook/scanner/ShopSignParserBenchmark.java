@@ -0,0 +1,47 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sign rules alone, cycling through a fixed mix of shop signs (whole and decimal prices,
+ * out of stock) and signs that are not shops.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ShopSignParserBenchmark {
+    private static final int SIGN_COUNT = 1024;
+
+    private final BlockPos pos = new BlockPos(-197, 69, 40);
+    private String[][] signs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1024);
+        signs = new String[SIGN_COUNT][];
+        for (int i = 0; i < SIGN_COUNT; i++) {
+            signs[i] = random.nextInt(10) == 0
+                    ? SyntheticChunk.decorativeSign(random)
+                    : SyntheticChunk.shopSign(random);
+        }
+    }
+
+    @Benchmark
+    public Optional<ShopSignParser.ShopEntry> parseLines() {
+        String[] lines = signs[next];
+        next = (next + 1) & (SIGN_COUNT - 1);
+        return ShopSignParser.parseLines(lines, pos);
+    }
+}
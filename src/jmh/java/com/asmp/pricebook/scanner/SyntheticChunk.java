@@ -0,0 +1,227 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A chunk held in plain arrays, one 16x16x16 section at a time like the real chunk storage.
+ * Sections never written stay {@code null} and read as air. Built from a fixed seed, so every
+ * run scans identical chunks.
+ */
+final class SyntheticChunk implements ChunkView {
+    static final int BOTTOM_Y = -64;
+    static final int HEIGHT = 384;
+
+    private static final String[] OWNERS = {"Wrathic", "Styxah", "burntbustybread", "ProbablyNotJacob", "xX_Trader_Xx"};
+    private static final String[] ITEMS = {"Diamond", "Netherite Ingot", "Elytra", "Shulker Box", "Golden Carrot",
+            "Enchanted Golden Apple", "Totem of Undying", "Ender Pearl"};
+
+    private final BlockState air = Blocks.AIR.getDefaultState();
+    private final ChunkPos pos;
+    private final BlockState[][] sections = new BlockState[HEIGHT / 16][];
+    private final List<BlockPos> blockEntities = new ArrayList<>();
+    private final Map<BlockPos, String[]> signs = new HashMap<>();
+
+    private SyntheticChunk(ChunkPos pos) {
+        this.pos = pos;
+    }
+
+    /**
+     * Stone and dirt up to sea level with grass on top, no block entities. The common case on
+     * a join: most loaded chunks hold nothing the scanner wants.
+     */
+    static SyntheticChunk wilderness() {
+        SyntheticChunk chunk = new SyntheticChunk(new ChunkPos(40, -12));
+        chunk.fillLayers(BOTTOM_Y, 59, Blocks.STONE.getDefaultState());
+        chunk.fillLayers(60, 62, Blocks.DIRT.getDefaultState());
+        chunk.fillLayers(63, 63, Blocks.GRASS_BLOCK.getDefaultState());
+        return chunk;
+    }
+
+    /**
+     * Four floors of market stalls: a wall of shop signs on every floor, chests behind them, and
+     * a few signs that are not shops (directions, decorations) to exercise the rejects.
+     */
+    static SyntheticChunk shopMall() {
+        Random random = new Random(44);
+        SyntheticChunk chunk = wilderness();
+        BlockState floor = Blocks.POLISHED_ANDESITE.getDefaultState();
+        BlockState wallSign = Blocks.OAK_WALL_SIGN.getDefaultState();
+        for (int floorY = 64; floorY < 64 + 4 * 6; floorY += 6) {
+            chunk.fillLayers(floorY, floorY, floor);
+            for (int x = 0; x < 16; x++) {
+                for (int z = 1; z < 16; z += 3) {
+                    for (int y = floorY + 1; y <= floorY + 3; y++) {
+                        BlockPos chest = chunk.worldPos(x, y, z - 1);
+                        chunk.set(chest, Blocks.CHEST.getDefaultState());
+                        chunk.blockEntities.add(chest);
+
+                        BlockPos sign = chunk.worldPos(x, y, z);
+                        chunk.set(sign, wallSign);
+                        chunk.blockEntities.add(sign);
+                        chunk.signs.put(sign, random.nextInt(10) == 0 ? decorativeSign(random) : shopSign(random));
+                    }
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * A travel hub: rows of waystones from every pattern the scanner knows, plus bare slabs
+     * that match a bottom block but have nothing on top.
+     */
+    static SyntheticChunk waystoneHub() {
+        SyntheticChunk chunk = wilderness();
+        BlockState[][] pairs = {
+                {Blocks.SMOOTH_STONE_SLAB.getDefaultState(), Blocks.LODESTONE.getDefaultState()},
+                {Blocks.WAXED_CUT_COPPER_SLAB.getDefaultState(), Blocks.WAXED_CHISELED_COPPER.getDefaultState()},
+                {Blocks.SMOOTH_QUARTZ_SLAB.getDefaultState(), Blocks.RED_MUSHROOM_BLOCK.getDefaultState()},
+                {Blocks.RESIN_BRICK_SLAB.getDefaultState(), Blocks.CHISELED_RESIN_BRICKS.getDefaultState()},
+                {Blocks.POLISHED_BLACKSTONE_BRICK_SLAB.getDefaultState(), Blocks.CHISELED_POLISHED_BLACKSTONE.getDefaultState()}
+        };
+        int placed = 0;
+        for (int x = 0; x < 16; x += 2) {
+            for (int z = 0; z < 16; z += 2) {
+                BlockState[] pair = pairs[placed++ % pairs.length];
+                chunk.set(chunk.worldPos(x, 64, z), pair[0]);
+                if (placed % 4 != 0) {
+                    chunk.set(chunk.worldPos(x, 65, z), pair[1]);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * A build filling the whole height range: every section has blocks, waystone slabs appear
+     * on many levels, and signs run up the outside of the tower.
+     */
+    static SyntheticChunk tallBuild() {
+        Random random = new Random(384);
+        SyntheticChunk chunk = new SyntheticChunk(new ChunkPos(-3, 7));
+        BlockState[] palette = {
+                Blocks.DEEPSLATE_BRICKS.getDefaultState(),
+                Blocks.STONE_BRICKS.getDefaultState(),
+                Blocks.GLASS.getDefaultState(),
+                Blocks.SMOOTH_STONE_SLAB.getDefaultState(),
+                Blocks.OAK_PLANKS.getDefaultState(),
+                Blocks.AIR.getDefaultState()
+        };
+        BlockState lodestone = Blocks.LODESTONE.getDefaultState();
+        BlockState standingSign = Blocks.OAK_SIGN.getDefaultState();
+        for (int y = BOTTOM_Y; y < BOTTOM_Y + HEIGHT; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    chunk.set(chunk.worldPos(x, y, z), palette[random.nextInt(palette.length)]);
+                }
+            }
+        }
+        for (int y = BOTTOM_Y; y < BOTTOM_Y + HEIGHT; y++) {
+            if (y % 16 == 0) {
+                chunk.set(chunk.worldPos(8, y, 8), Blocks.SMOOTH_STONE_SLAB.getDefaultState());
+                chunk.set(chunk.worldPos(8, y + 1, 8), lodestone);
+            }
+            if (y % 4 == 0) {
+                BlockPos sign = chunk.worldPos(0, y, random.nextInt(16));
+                chunk.set(sign, standingSign);
+                chunk.blockEntities.add(sign);
+                chunk.signs.put(sign, shopSign(random));
+            }
+        }
+        return chunk;
+    }
+
+    static String[] shopSign(Random random) {
+        boolean selling = random.nextBoolean();
+        int amount = 1 + random.nextInt(64);
+        String status = random.nextInt(12) == 0
+                ? "Out of stock"
+                : (selling ? "Selling " : "Buying ") + amount;
+        String price = random.nextBoolean()
+                ? String.format(Locale.ROOT, "%,d", 1 + random.nextInt(250_000))
+                : String.format(Locale.ROOT, "%.2f", random.nextDouble() * 500);
+        return new String[]{
+                OWNERS[random.nextInt(OWNERS.length)],
+                status,
+                ITEMS[random.nextInt(ITEMS.length)],
+                price
+        };
+    }
+
+    static String[] decorativeSign(Random random) {
+        return random.nextBoolean()
+                ? new String[]{"", "Welcome to", "the Market", ""}
+                : new String[]{"<- Spawn", "", "Farms ->", ""};
+    }
+
+    private void fillLayers(int fromY, int toY, BlockState state) {
+        for (int y = fromY; y <= toY; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    set(worldPos(x, y, z), state);
+                }
+            }
+        }
+    }
+
+    private BlockPos worldPos(int x, int y, int z) {
+        return new BlockPos(pos.getStartX() + x, y, pos.getStartZ() + z);
+    }
+
+    private void set(BlockPos pos, BlockState state) {
+        int section = (pos.getY() - BOTTOM_Y) >> 4;
+        if (sections[section] == null) {
+            sections[section] = new BlockState[16 * 16 * 16];
+        }
+        sections[section][index(pos)] = state;
+    }
+
+    private static int index(BlockPos pos) {
+        return ((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
+    }
+
+    @Override
+    public ChunkPos pos() {
+        return pos;
+    }
+
+    @Override
+    public int bottomY() {
+        return BOTTOM_Y;
+    }
+
+    @Override
+    public int height() {
+        return HEIGHT;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        int section = (pos.getY() - BOTTOM_Y) >> 4;
+        if (section < 0 || section >= sections.length || sections[section] == null) {
+            return air;
+        }
+        BlockState state = sections[section][index(pos)];
+        return state == null ? air : state;
+    }
+
+    @Override
+    public Iterable<BlockPos> blockEntityPositions() {
+        return blockEntities;
+    }
+
+    @Override
+    public String[] signLines(BlockPos pos) {
+        return signs.get(pos);
+    }
+}
@@ -1,27 +1,42 @@
 package com.asmp.pricebook;
 
+import com.asmp.pricebook.command.ItemSearchIndex;
+import com.asmp.pricebook.command.ItemUsageTracker;
+import com.asmp.pricebook.command.PriceWatchlist;
 import com.asmp.pricebook.command.PricebookCommand;
 import com.asmp.pricebook.command.PricebookQueryService;
+import com.asmp.pricebook.command.PricebookRenderer;
 import com.asmp.pricebook.config.ModConfig;
+import com.asmp.pricebook.scanner.ChunkCaptureWriter;
 import com.asmp.pricebook.scanner.HttpScanTransport;
+import com.asmp.pricebook.scanner.LocalPriceIndex;
 import com.asmp.pricebook.scanner.ShopScanner;
 import com.asmp.pricebook.scanner.WaystoneScanner;
+import com.asmp.pricebook.util.HttpClients;
 import com.asmp.pricebook.util.Loggers;
 import com.asmp.pricebook.util.ModVersionChecker;
 import com.asmp.pricebook.waypoint.WaypointManager;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.network.ServerInfo;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import net.minecraft.util.Identifier;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -30,6 +45,12 @@ import java.util.concurrent.CompletableFuture;
 public final class Pricebook implements ClientModInitializer {
     private static final ModConfig CONFIG = ModConfig.load();
     private static final WaystoneScanner WAYSTONE_SCANNER = new WaystoneScanner(CONFIG);
+    private static final LocalPriceIndex LOCAL_INDEX = LocalPriceIndex.load(
+            FabricLoader.getInstance().getConfigDir().resolve("pricebook-asmp-index.json"));
+    private static final ItemUsageTracker USAGE = ItemUsageTracker.load(
+            FabricLoader.getInstance().getConfigDir().resolve("pricebook-asmp-usage.json"));
+    private static final PriceWatchlist WATCHLIST = PriceWatchlist.load(
+            FabricLoader.getInstance().getConfigDir().resolve("pricebook-asmp-watchlist.json"));
 
     private static Session session;
     private static boolean outdatedNotified;
@@ -43,8 +64,18 @@ public final class Pricebook implements ClientModInitializer {
         WAYSTONE_SCANNER.registerListeners();
         PricebookCommand.register();
         registerKeyBindings();
+        registerFontReloadListener();
 
         ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> endSession());
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            LOCAL_INDEX.save();
+            USAGE.save();
+        });
+        ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            if (isEnabled()) {
+                WATCHLIST.tick(client, session.queryService);
+            }
+        });
 
         refreshSession();
     }
@@ -69,12 +100,31 @@ public final class Pricebook implements ClientModInitializer {
         return session == null ? null : session.shopScanner;
     }
 
+    /**
+     * The chunk capture for this session, or {@code null} unless {@code captureChunks} is set.
+     */
+    public static ChunkCaptureWriter chunkCapture() {
+        return session == null ? null : session.chunkCapture;
+    }
+
     public static PricebookQueryService queryService() {
         return session == null ? null : session.queryService;
     }
 
-    public static List<String> itemCatalog() {
-        return session == null ? List.of() : session.itemCatalog;
+    public static PriceWatchlist watchlist() {
+        return WATCHLIST;
+    }
+
+    public static ItemSearchIndex itemIndex() {
+        return session == null ? ItemSearchIndex.EMPTY : session.itemIndex;
+    }
+
+    /**
+     * Counts a successful lookup towards the item's suggestion ranking.
+     */
+    public static void recordItemUsage(String itemName) {
+        double weight = USAGE.record(itemName);
+        itemIndex().updateUsage(itemName, weight);
     }
 
     private static void refreshSession() {
@@ -117,6 +167,10 @@ public final class Pricebook implements ClientModInitializer {
         outdatedNotified = false;
         requiredVersion = "";
 
+        if (session != null && (session.liveUpdates != CONFIG.liveUpdates
+                || session.hedgeLookups != CONFIG.hedgeLookups)) {
+            endSession();
+        }
         if (session == null) {
             session = new Session();
         } else {
@@ -201,6 +255,25 @@ public final class Pricebook implements ClientModInitializer {
         });
     }
 
+    private static void registerFontReloadListener() {
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+            @Override
+            public Identifier getFabricId() {
+                return Identifier.of("pricebook-asmp", "font_metrics");
+            }
+
+            @Override
+            public Collection<Identifier> getFabricDependencies() {
+                return List.of(ResourceReloadListenerKeys.FONTS);
+            }
+
+            @Override
+            public void reload(ResourceManager manager) {
+                PricebookRenderer.onFontsReloaded();
+            }
+        });
+    }
+
     private static String currentVersion() {
         return FabricLoader.getInstance()
                 .getModContainer("pricebook-asmp")
@@ -212,12 +285,25 @@ public final class Pricebook implements ClientModInitializer {
         private final HttpScanTransport transport;
         private final ShopScanner shopScanner;
         private final PricebookQueryService queryService;
-        private volatile List<String> itemCatalog = List.of();
+        private final boolean liveUpdates;
+        private final boolean hedgeLookups;
+        private final ChunkCaptureWriter chunkCapture;
+        private volatile ItemSearchIndex itemIndex = ItemSearchIndex.EMPTY;
 
         private Session() {
             this.transport = new HttpScanTransport(CONFIG);
-            this.shopScanner = new ShopScanner(CONFIG, transport);
-            this.queryService = new PricebookQueryService(CONFIG);
+            this.shopScanner = new ShopScanner(CONFIG, transport, LOCAL_INDEX);
+            this.queryService = new PricebookQueryService(CONFIG, LOCAL_INDEX);
+            this.liveUpdates = CONFIG.liveUpdates;
+            this.hedgeLookups = CONFIG.hedgeLookups;
+            this.chunkCapture = CONFIG.captureChunks
+                    ? ChunkCaptureWriter.open(FabricLoader.getInstance().getGameDir().resolve("pricebook-captures"))
+                    : null;
+            queryService.setPriceListener(info -> runOnClient(() -> {
+                if (session == this) {
+                    WATCHLIST.onLiveUpdate(MinecraftClient.getInstance(), info);
+                }
+            }));
 
             transport.bootstrap();
             WAYSTONE_SCANNER.attachTransport(transport);
@@ -227,11 +313,12 @@ public final class Pricebook implements ClientModInitializer {
         private void refreshCatalog() {
             CompletableFuture<List<String>> future = queryService.fetchCatalog();
             future.thenAccept(list -> {
-                List<String> safeList = list == null ? List.of() : List.copyOf(list);
+                ItemSearchIndex index = ItemSearchIndex.build(list == null ? List.of() : List.copyOf(list),
+                        USAGE::weight);
                 MinecraftClient client = MinecraftClient.getInstance();
                 Runnable update = () -> {
                     if (session == this) {
-                        itemCatalog = safeList;
+                        itemIndex = index;
                     }
                 };
                 if (client != null) {
@@ -245,7 +332,14 @@ public final class Pricebook implements ClientModInitializer {
         private void close() {
             shopScanner.reset();
             transport.clear();
-            itemCatalog = List.of();
+            queryService.close();
+            HttpClients.shutdown();
+            if (chunkCapture != null) {
+                chunkCapture.close();
+            }
+            itemIndex = ItemSearchIndex.EMPTY;
+            LOCAL_INDEX.saveAsync();
+            USAGE.saveAsync();
         }
     }
 }
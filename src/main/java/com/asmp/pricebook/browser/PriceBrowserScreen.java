@@ -0,0 +1,472 @@
+package com.asmp.pricebook.browser;
+
+import com.asmp.pricebook.command.PricebookQueryService;
+import com.asmp.pricebook.command.PricebookQueryService.Listing;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPage;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+import com.asmp.pricebook.util.Dimensions;
+import com.asmp.pricebook.waypoint.WaypointManager;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.text.Text;
+import org.lwjgl.glfw.GLFW;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Scrollable view of an item's whole market. Rows are formatted once when their page arrives
+ * and only the rows inside the viewport are drawn, so the cost of a frame does not grow with the
+ * number of listings. Further pages are requested as the list is scrolled towards its end.
+ */
+public final class PriceBrowserScreen extends Screen {
+    private static final int PAGE_SIZE = 100;
+    private static final int ROW_HEIGHT = 12;
+    private static final int LIST_TOP = 64;
+    private static final int LIST_BOTTOM_MARGIN = 36;
+    private static final int SIDE_MARGIN = 12;
+    private static final int SCROLLBAR_WIDTH = 4;
+    private static final int LOAD_AHEAD_ROWS = 40;
+    private static final int HEADER_COLOR = 0xFFAAAAAA;
+    private static final int ACTIVE_HEADER_COLOR = 0xFF55FFFF;
+    private static final int PRICE_COLOR = 0xFF55FFFF;
+    private static final int TEXT_COLOR = 0xFFFFFFFF;
+    private static final int MUTED_COLOR = 0xFFAAAAAA;
+    private static final int STALE_COLOR = 0xFFFFFF55;
+    private static final int HOVER_COLOR = 0x40FFFFFF;
+    private static final int STRIPE_COLOR = 0x18FFFFFF;
+    private static final int SCROLLBAR_COLOR = 0xFF808080;
+    private static final Duration STALE_AFTER = Duration.ofDays(1);
+
+    private final Screen parent;
+    private final PricebookQueryService service;
+    private final String itemName;
+    private final DecimalFormat priceFormat = new DecimalFormat("#,##0.##", DecimalFormatSymbols.getInstance(Locale.ROOT));
+    private final DecimalFormat amountFormat = new DecimalFormat("#,##0", DecimalFormatSymbols.getInstance(Locale.ROOT));
+    private final List<Row> sellers = new ArrayList<>();
+    private final List<Row> buyers = new ArrayList<>();
+    private final Instant openedAt = Instant.now();
+    private Side side = Side.SELLERS;
+    private Column sortColumn;
+    private boolean sortDescending;
+    private Row[] view = new Row[0];
+    private int[] columnX = new int[Column.values().length];
+    private int columnWidth;
+    private double scroll;
+    private int nextPage = 1;
+    private boolean loading;
+    private boolean exhausted;
+    private boolean closed;
+    private String status = "";
+    private int totalSellers = -1;
+    private int totalBuyers = -1;
+    private ButtonWidget sellersButton;
+    private ButtonWidget buyersButton;
+
+    public PriceBrowserScreen(Screen parent, PricebookQueryService service, String itemName) {
+        super(Text.literal("Pricebook ─ " + itemName));
+        this.parent = parent;
+        this.service = service;
+        this.itemName = itemName;
+    }
+
+    @Override
+    protected void init() {
+        int centerX = this.width / 2;
+        this.sellersButton = ButtonWidget.builder(sideLabel(Side.SELLERS), button -> showSide(Side.SELLERS))
+                .dimensions(centerX - 102, 22, 100, 20)
+                .build();
+        this.buyersButton = ButtonWidget.builder(sideLabel(Side.BUYERS), button -> showSide(Side.BUYERS))
+                .dimensions(centerX + 2, 22, 100, 20)
+                .build();
+        addDrawableChild(this.sellersButton);
+        addDrawableChild(this.buyersButton);
+        addDrawableChild(ButtonWidget.builder(Text.translatable("gui.done"), button -> close())
+                .dimensions(centerX - 80, this.height - 28, 160, 20)
+                .build());
+
+        updateSideButtons();
+        // Also requests the first page when the screen opens.
+        layoutColumns();
+    }
+
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.render(context, mouseX, mouseY, delta);
+        context.drawCenteredTextWithShadow(this.textRenderer, this.title, this.width / 2, 8, TEXT_COLOR);
+
+        for (Column column : Column.values()) {
+            String label = column.label;
+            if (column == sortColumn) {
+                label += sortDescending ? " ▼" : " ▲";
+            }
+            int color = column == sortColumn ? ACTIVE_HEADER_COLOR : HEADER_COLOR;
+            context.drawTextWithShadow(this.textRenderer, label, columnX[column.ordinal()], LIST_TOP - ROW_HEIGHT, color);
+        }
+
+        int listBottom = listBottom();
+        int left = SIDE_MARGIN;
+        int right = this.width - SIDE_MARGIN;
+        context.enableScissor(left, LIST_TOP, right, listBottom);
+        int first = Math.max(0, (int) (scroll / ROW_HEIGHT));
+        int last = Math.min(view.length, first + (listBottom - LIST_TOP) / ROW_HEIGHT + 2);
+        int hovered = rowAt(mouseX, mouseY);
+        for (int index = first; index < last; index++) {
+            int y = LIST_TOP + index * ROW_HEIGHT - (int) scroll;
+            if (index == hovered) {
+                context.fill(left, y, right, y + ROW_HEIGHT, HOVER_COLOR);
+            } else if ((index & 1) == 1) {
+                context.fill(left, y, right, y + ROW_HEIGHT, STRIPE_COLOR);
+            }
+            drawRow(context, view[index], y + 2);
+        }
+        context.disableScissor();
+
+        drawScrollbar(context, listBottom);
+        context.drawCenteredTextWithShadow(this.textRenderer, status, this.width / 2, listBottom + 2, MUTED_COLOR);
+    }
+
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
+        scrollTo(scroll - verticalAmount * ROW_HEIGHT * 3);
+        return true;
+    }
+
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        if (button == 0 && mouseY >= LIST_TOP - ROW_HEIGHT && mouseY < LIST_TOP) {
+            Column column = columnAt(mouseX);
+            if (column != null) {
+                sortBy(column);
+                return true;
+            }
+        }
+
+        int index = rowAt(mouseX, mouseY);
+        if (button == 0 && index >= 0) {
+            Listing listing = view[index].listing;
+            if (listing.position() != null) {
+                String owner = listing.owner() == null || listing.owner().isBlank() ? "Unknown" : listing.owner();
+                WaypointManager.createWaypoint(listing.position(), Dimensions.canonical(listing.dimension()),
+                        owner + "'s Shop");
+                close();
+                return true;
+            }
+        }
+        return super.mouseClicked(mouseX, mouseY, button);
+    }
+
+    @Override
+    public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        int page = listBottom() - LIST_TOP;
+        switch (keyCode) {
+            case GLFW.GLFW_KEY_PAGE_DOWN -> scrollTo(scroll + page);
+            case GLFW.GLFW_KEY_PAGE_UP -> scrollTo(scroll - page);
+            case GLFW.GLFW_KEY_HOME -> scrollTo(0);
+            case GLFW.GLFW_KEY_END -> scrollTo(Double.MAX_VALUE);
+            default -> {
+                return super.keyPressed(keyCode, scanCode, modifiers);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (this.client != null) {
+            this.client.setScreen(this.parent);
+        }
+    }
+
+    private void drawRow(DrawContext context, Row row, int y) {
+        int priceRight = columnX[Column.PRICE.ordinal()] + columnWidth - 8;
+        context.drawTextWithShadow(this.textRenderer, row.price,
+                priceRight - this.textRenderer.getWidth(row.price), y, PRICE_COLOR);
+        int amountRight = columnX[Column.AMOUNT.ordinal()] + columnWidth - 8;
+        context.drawTextWithShadow(this.textRenderer, row.amount,
+                amountRight - this.textRenderer.getWidth(row.amount), y, TEXT_COLOR);
+        context.drawTextWithShadow(this.textRenderer, row.ownerDisplay, columnX[Column.OWNER.ordinal()], y, TEXT_COLOR);
+        context.drawTextWithShadow(this.textRenderer, row.dimension, columnX[Column.DIMENSION.ordinal()], y, MUTED_COLOR);
+        context.drawTextWithShadow(this.textRenderer, row.age, columnX[Column.SEEN.ordinal()], y,
+                row.stale ? STALE_COLOR : MUTED_COLOR);
+    }
+
+    private void drawScrollbar(DrawContext context, int listBottom) {
+        int viewport = listBottom - LIST_TOP;
+        int content = view.length * ROW_HEIGHT;
+        if (content <= viewport) {
+            return;
+        }
+        int x = this.width - SIDE_MARGIN + 2;
+        int thumb = Math.max(16, viewport * viewport / content);
+        int y = LIST_TOP + (int) ((viewport - thumb) * (scroll / maxScroll()));
+        context.fill(x, y, x + SCROLLBAR_WIDTH, y + thumb, SCROLLBAR_COLOR);
+    }
+
+    private void showSide(Side next) {
+        if (side == next) {
+            return;
+        }
+        side = next;
+        sortColumn = null;
+        sortDescending = false;
+        scroll = 0;
+        rebuildView();
+        updateSideButtons();
+        maybeLoadMore();
+    }
+
+    private void sortBy(Column column) {
+        if (sortColumn == column) {
+            sortDescending = !sortDescending;
+        } else {
+            sortColumn = column;
+            sortDescending = false;
+        }
+        rebuildView();
+    }
+
+    /**
+     * Re-derives the visible order. Rows stay in the service's order until a column is chosen.
+     */
+    private void rebuildView() {
+        Row[] rows = rows(side).toArray(Row[]::new);
+        if (sortColumn != null) {
+            Comparator<Row> comparator = sortColumn.comparator;
+            Arrays.sort(rows, sortDescending ? comparator.reversed() : comparator);
+        }
+        view = rows;
+        scrollTo(scroll);
+    }
+
+    private void scrollTo(double target) {
+        scroll = Math.max(0, Math.min(target, maxScroll()));
+        maybeLoadMore();
+    }
+
+    private double maxScroll() {
+        return Math.max(0, view.length * ROW_HEIGHT - (listBottom() - LIST_TOP));
+    }
+
+    private void maybeLoadMore() {
+        int lastVisible = (int) ((scroll + listBottom() - LIST_TOP) / ROW_HEIGHT);
+        if (!loading && !exhausted && lastVisible + LOAD_AHEAD_ROWS >= view.length) {
+            loadNextPage();
+        }
+    }
+
+    private void loadNextPage() {
+        loading = true;
+        status = "Loading…";
+        int page = nextPage;
+        service.fetchListingPage(itemName, page, PAGE_SIZE).thenAccept(result -> {
+            if (this.client != null) {
+                this.client.execute(() -> acceptPage(page, result));
+            }
+        });
+    }
+
+    private void acceptPage(int page, ListingPageResult result) {
+        if (closed) {
+            return;
+        }
+        loading = false;
+        if (result == null || !result.isSuccess()) {
+            exhausted = true;
+            status = result == null || result.error() == null ? "No response." : result.error();
+            return;
+        }
+
+        ListingPage listings = result.page();
+        append(sellers, listings.sellers());
+        append(buyers, listings.buyers());
+        totalSellers = listings.totalSellers();
+        totalBuyers = listings.totalBuyers();
+        nextPage = page + 1;
+        exhausted = !listings.hasNext();
+        rebuildView();
+        updateSideButtons();
+        updateStatus();
+    }
+
+    private void append(List<Row> target, List<Listing> listings) {
+        for (Listing listing : listings) {
+            if (listing != null) {
+                Row row = new Row(listing, priceFormat.format(listing.price()),
+                        amountFormat.format(Math.max(0, listing.amount())),
+                        listing.owner() == null || listing.owner().isBlank() ? "Unknown" : listing.owner().trim(),
+                        Dimensions.canonical(listing.dimension()),
+                        formatAge(listing.lastSeenAt()),
+                        isStale(listing.lastSeenAt()));
+                row.ownerDisplay = trimToColumn(row.owner);
+                target.add(row);
+            }
+        }
+    }
+
+    private void updateStatus() {
+        int loaded = rows(side).size();
+        int total = side == Side.SELLERS ? totalSellers : totalBuyers;
+        if (loaded == 0) {
+            status = "No " + side.label.toLowerCase(Locale.ROOT) + ".";
+        } else if (total >= 0) {
+            status = String.format(Locale.ROOT, "%s of %s %s", amountFormat.format(loaded), amountFormat.format(total),
+                    side.label.toLowerCase(Locale.ROOT));
+        } else {
+            status = String.format(Locale.ROOT, "%s %s%s", amountFormat.format(loaded),
+                    side.label.toLowerCase(Locale.ROOT), exhausted ? "" : " so far");
+        }
+    }
+
+    private void updateSideButtons() {
+        if (sellersButton != null) {
+            sellersButton.setMessage(sideLabel(Side.SELLERS));
+            sellersButton.active = side != Side.SELLERS;
+        }
+        if (buyersButton != null) {
+            buyersButton.setMessage(sideLabel(Side.BUYERS));
+            buyersButton.active = side != Side.BUYERS;
+        }
+        if (!loading) {
+            updateStatus();
+        }
+    }
+
+    private Text sideLabel(Side target) {
+        int total = target == Side.SELLERS ? totalSellers : totalBuyers;
+        int count = total >= 0 ? total : rows(target).size();
+        return Text.literal(target.label + " (" + amountFormat.format(count) + ")");
+    }
+
+    /**
+     * Splits the list width evenly between the columns and re-trims owner names to fit.
+     */
+    private void layoutColumns() {
+        int available = this.width - SIDE_MARGIN * 2 - SCROLLBAR_WIDTH;
+        columnWidth = available / Column.values().length;
+        for (Column column : Column.values()) {
+            columnX[column.ordinal()] = SIDE_MARGIN + 4 + column.ordinal() * columnWidth;
+        }
+        for (Row row : sellers) {
+            row.ownerDisplay = trimToColumn(row.owner);
+        }
+        for (Row row : buyers) {
+            row.ownerDisplay = trimToColumn(row.owner);
+        }
+        scrollTo(scroll);
+    }
+
+    private String trimToColumn(String value) {
+        int limit = columnWidth - 8;
+        if (this.textRenderer == null || limit <= 0 || this.textRenderer.getWidth(value) <= limit) {
+            return value;
+        }
+        return this.textRenderer.trimToWidth(value, limit - this.textRenderer.getWidth("…")) + "…";
+    }
+
+    private int rowAt(double mouseX, double mouseY) {
+        if (mouseX < SIDE_MARGIN || mouseX >= this.width - SIDE_MARGIN || mouseY < LIST_TOP || mouseY >= listBottom()) {
+            return -1;
+        }
+        int index = (int) ((mouseY - LIST_TOP + scroll) / ROW_HEIGHT);
+        return index < view.length ? index : -1;
+    }
+
+    private Column columnAt(double mouseX) {
+        for (Column column : Column.values()) {
+            int x = columnX[column.ordinal()];
+            if (mouseX >= x && mouseX < x + columnWidth) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private int listBottom() {
+        return this.height - LIST_BOTTOM_MARGIN;
+    }
+
+    private List<Row> rows(Side target) {
+        return target == Side.SELLERS ? sellers : buyers;
+    }
+
+    private String formatAge(Instant seenAt) {
+        if (seenAt == null || seenAt.equals(Instant.EPOCH)) {
+            return "unknown";
+        }
+        Duration age = Duration.between(seenAt, openedAt);
+        if (age.isNegative() || age.toMinutes() < 1) {
+            return "just now";
+        }
+        if (age.toHours() < 1) {
+            return age.toMinutes() + "m ago";
+        }
+        if (age.toDays() < 1) {
+            return age.toHours() + "h ago";
+        }
+        return age.toDays() + "d ago";
+    }
+
+    private boolean isStale(Instant seenAt) {
+        return seenAt == null || seenAt.equals(Instant.EPOCH) || Duration.between(seenAt, openedAt).compareTo(STALE_AFTER) >= 0;
+    }
+
+    private enum Side {
+        SELLERS("Sellers"),
+        BUYERS("Buyers");
+
+        private final String label;
+
+        Side(String label) {
+            this.label = label;
+        }
+    }
+
+    private enum Column {
+        PRICE("Price", Comparator.comparingDouble(row -> row.listing.price())),
+        AMOUNT("Stock", Comparator.comparingInt(row -> row.listing.amount())),
+        OWNER("Owner", Comparator.comparing(row -> row.owner, String.CASE_INSENSITIVE_ORDER)),
+        DIMENSION("Dimension", Comparator.comparing(row -> row.dimension)),
+        SEEN("Last seen", Comparator.comparing((Row row) -> row.listing.lastSeenAt(),
+                Comparator.nullsFirst(Comparator.naturalOrder())).reversed());
+
+        private final String label;
+        private final Comparator<Row> comparator;
+
+        Column(String label, Comparator<Row> comparator) {
+            this.label = label;
+            this.comparator = comparator;
+        }
+    }
+
+    private static final class Row {
+        private final Listing listing;
+        private final String price;
+        private final String amount;
+        private final String owner;
+        private final String dimension;
+        private final String age;
+        private final boolean stale;
+        private String ownerDisplay;
+
+        private Row(Listing listing, String price, String amount, String owner, String dimension, String age,
+                    boolean stale) {
+            this.listing = listing;
+            this.price = price;
+            this.amount = amount;
+            this.owner = owner;
+            this.dimension = dimension;
+            this.age = age;
+            this.stale = stale;
+        }
+    }
+}
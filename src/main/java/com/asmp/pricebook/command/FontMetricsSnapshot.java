@@ -0,0 +1,148 @@
+package com.asmp.pricebook.command;
+
+import net.minecraft.client.font.TextHandler;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.text.StringVisitable;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Immutable copy of the advance widths the chat font uses for a set of code points, so chat
+ * tables can be laid out on a worker thread. The font's glyph caches are only safe to touch on
+ * the client thread; this snapshot is measured there and then only read. Widths are summed
+ * exactly the way {@link TextRenderer#getWidth} does (per-code-point advances, bold included,
+ * rounded up once), so a layout built from it matches what the chat draws.
+ */
+final class FontMetricsSnapshot implements PricebookRenderer.WidthProvider {
+    private static final String BASE_SYMBOLS = "·┌─└│◂▸◆…→↑↓?"
+            + "\u2000\u2001\u2002\u2003\u2004\u2005\u2006\u2007\u2008\u2009\u200A\u202F";
+    private static final Style BOLD = Style.EMPTY.withBold(true);
+
+    private final Object lineage;
+    private final int[] codePoints;
+    private final float[] advances;
+    private final float[] boldAdvances;
+    private final float fallbackAdvance;
+    private final float fallbackBoldAdvance;
+
+    private FontMetricsSnapshot(Object lineage, int[] codePoints, float[] advances, float[] boldAdvances) {
+        this.lineage = lineage;
+        this.codePoints = codePoints;
+        this.advances = advances;
+        this.boldAdvances = boldAdvances;
+        int fallback = Arrays.binarySearch(codePoints, '?');
+        this.fallbackAdvance = fallback >= 0 ? advances[fallback] : 6f;
+        this.fallbackBoldAdvance = fallback >= 0 ? boldAdvances[fallback] : 7f;
+    }
+
+    /**
+     * Measures printable ASCII, Latin-1, Latin Extended-A and the symbols the chat tables draw.
+     * Must run on the client thread.
+     */
+    static FontMetricsSnapshot capture(TextRenderer renderer) {
+        StringBuilder base = new StringBuilder(BASE_SYMBOLS);
+        for (int codePoint = 0x20; codePoint <= 0x7E; codePoint++) {
+            base.appendCodePoint(codePoint);
+        }
+        for (int codePoint = 0xA0; codePoint <= 0x17F; codePoint++) {
+            base.appendCodePoint(codePoint);
+        }
+        return new FontMetricsSnapshot(new Object(), new int[0], new float[0], new float[0])
+                .extend(renderer, base);
+    }
+
+    /**
+     * True when every code point in {@code strings} has been measured.
+     */
+    boolean covers(Iterable<? extends CharSequence> strings) {
+        for (CharSequence string : strings) {
+            if (string != null && !covers(string)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean covers(CharSequence string) {
+        return string.codePoints().allMatch(codePoint -> Arrays.binarySearch(codePoints, codePoint) >= 0);
+    }
+
+    /**
+     * Returns a snapshot that also covers {@code strings}, or this one when nothing is missing.
+     * Must run on the client thread.
+     */
+    FontMetricsSnapshot extend(TextRenderer renderer, Iterable<? extends CharSequence> strings) {
+        StringBuilder joined = new StringBuilder();
+        for (CharSequence string : strings) {
+            if (string != null) {
+                joined.append(string);
+            }
+        }
+        return extend(renderer, joined);
+    }
+
+    private FontMetricsSnapshot extend(TextRenderer renderer, CharSequence text) {
+        int[] missing = text.codePoints()
+                .filter(codePoint -> Arrays.binarySearch(codePoints, codePoint) < 0)
+                .distinct()
+                .toArray();
+        if (missing.length == 0) {
+            return this;
+        }
+
+        int[] merged = Arrays.copyOf(codePoints, codePoints.length + missing.length);
+        System.arraycopy(missing, 0, merged, codePoints.length, missing.length);
+        Arrays.sort(merged);
+        float[] plain = new float[merged.length];
+        float[] bold = new float[merged.length];
+        TextHandler handler = renderer.getTextHandler();
+        for (int i = 0; i < merged.length; i++) {
+            int existing = Arrays.binarySearch(codePoints, merged[i]);
+            if (existing >= 0) {
+                plain[i] = advances[existing];
+                bold[i] = boldAdvances[existing];
+            } else {
+                String glyph = Character.toString(merged[i]);
+                plain[i] = handler.getWidth(glyph);
+                bold[i] = handler.getWidth(StringVisitable.styled(glyph, BOLD));
+            }
+        }
+        return new FontMetricsSnapshot(lineage, merged, plain, bold);
+    }
+
+    @Override
+    public int width(Text text) {
+        float[] total = new float[1];
+        text.visit((style, string) -> {
+            boolean bold = style.isBold();
+            for (int i = 0; i < string.length(); ) {
+                int codePoint = string.codePointAt(i);
+                total[0] += advance(codePoint, bold);
+                i += Character.charCount(codePoint);
+            }
+            return Optional.empty();
+        }, Style.EMPTY);
+        return MathHelper.ceil(total[0]);
+    }
+
+    /**
+     * Snapshots extended from the same capture share widths, so caches keyed on this survive
+     * an extension.
+     */
+    @Override
+    public Object metricsKey() {
+        return lineage;
+    }
+
+    private float advance(int codePoint, boolean bold) {
+        int index = Arrays.binarySearch(codePoints, codePoint);
+        if (index < 0) {
+            return bold ? fallbackBoldAdvance : fallbackAdvance;
+        }
+        return bold ? boldAdvances[index] : advances[index];
+    }
+}
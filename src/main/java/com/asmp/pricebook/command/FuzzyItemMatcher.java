@@ -0,0 +1,176 @@
+package com.asmp.pricebook.command;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * BK-tree over lowercased catalog names keyed by Levenshtein distance. A lookup only descends
+ * into children whose edge distance is within the allowed cost of the query's distance to the
+ * parent, so a typo is matched without measuring it against every name.
+ */
+final class FuzzyItemMatcher {
+    private final String[] names;
+    private final Node root;
+
+    FuzzyItemMatcher(String[] names) {
+        this.names = names;
+        Node tree = null;
+        for (int id = 0; id < names.length; id++) {
+            if (names[id].isEmpty()) {
+                continue;
+            }
+            if (tree == null) {
+                tree = new Node(id);
+            } else {
+                insert(tree, id);
+            }
+        }
+        this.root = tree;
+    }
+
+    /**
+     * Most typos worth forgiving are one or two edits; long names get a third.
+     */
+    static int maxDistance(String query) {
+        int length = query.length();
+        if (length <= 3) {
+            return 0;
+        }
+        if (length <= 4) {
+            return 1;
+        }
+        return length <= 8 ? 2 : 3;
+    }
+
+    /**
+     * Returns up to {@code limit} name ids within {@link #maxDistance} of {@code query},
+     * closest first, then shorter names, then catalog order.
+     */
+    List<Match> search(String query, int limit) {
+        int maxDistance = maxDistance(query);
+        if (root == null || maxDistance == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, this::compareWorstFirst);
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, names[node.id]);
+            if (distance <= maxDistance) {
+                addMatch(top, new Match(node.id, distance), limit);
+                for (int duplicate : node.duplicates) {
+                    addMatch(top, new Match(duplicate, distance), limit);
+                }
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                if (Math.abs(node.childDistances[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+
+        List<Match> result = new ArrayList<>(top);
+        result.sort((a, b) -> compareWorstFirst(b, a));
+        return result;
+    }
+
+    private void addMatch(PriorityQueue<Match> top, Match match, int limit) {
+        top.offer(match);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    private int compareWorstFirst(Match a, Match b) {
+        if (a.distance() != b.distance()) {
+            return Integer.compare(b.distance(), a.distance());
+        }
+        int byLength = Integer.compare(names[b.id()].length(), names[a.id()].length());
+        return byLength != 0 ? byLength : Integer.compare(b.id(), a.id());
+    }
+
+    private void insert(Node tree, int id) {
+        Node node = tree;
+        while (true) {
+            int distance = distance(names[id], names[node.id]);
+            if (distance == 0) {
+                node.duplicates = Arrays.copyOf(node.duplicates, node.duplicates.length + 1);
+                node.duplicates[node.duplicates.length - 1] = id;
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(id));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    record Match(int id, int distance) {
+    }
+
+    private static final class Node {
+        private static final int[] NO_IDS = new int[0];
+
+        private final int id;
+        private int[] duplicates = NO_IDS;
+        private int[] childDistances = NO_IDS;
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(int id) {
+            this.id = id;
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(4, childCount * 2);
+                children = Arrays.copyOf(children, capacity);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+            }
+            childDistances[childCount] = distance;
+            children[childCount++] = child;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.asmp.pricebook.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Catalog search structure built once per catalog load. Names are lowercased up-front and
+ * every 1-3 character gram maps to the sorted ids of the names containing it, so a query only
+ * verifies the names sharing its rarest grams instead of scanning the whole catalog. Matches
+ * are ranked with a bounded heap rather than a full sort. Queries that match nothing fall back
+ * to {@link FuzzyItemMatcher} so typos still find their item.
+ */
+public final class ItemSearchIndex {
+    private static final int MAX_GRAM_LENGTH = 3;
+    private static final int[] NO_POSTINGS = new int[0];
+    private static final float PREFIX_SCORE = 2f;
+    public static final ItemSearchIndex EMPTY = build(List.of(), name -> 0);
+
+    private final String[] names;
+    private final Map<Long, int[]> postings;
+    private final Map<String, Integer> idsByName;
+    private final FuzzyItemMatcher fuzzy;
+    // Usage bonus per id, written on the client thread and read by the suggestion worker; a
+    // stale read only affects the order of one suggestion list.
+    private final float[] usageScores;
+
+    private ItemSearchIndex(String[] names, Map<Long, int[]> postings, ToDoubleFunction<String> usageWeight) {
+        this.names = names;
+        this.postings = postings;
+        this.fuzzy = new FuzzyItemMatcher(names);
+        this.idsByName = new HashMap<>(names.length * 2);
+        this.usageScores = new float[names.length];
+        for (int id = 0; id < names.length; id++) {
+            idsByName.putIfAbsent(names[id], id);
+            usageScores[id] = usageScore(usageWeight.applyAsDouble(names[id]));
+        }
+    }
+
+    /**
+     * Builds the index, seeding each name's ranking bonus from {@code usageWeight}.
+     */
+    public static ItemSearchIndex build(List<String> catalog, ToDoubleFunction<String> usageWeight) {
+        String[] names = new String[catalog.size()];
+        Map<Long, PostingBuilder> builders = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int id = 0; id < names.length; id++) {
+            String name = catalog.get(id) == null ? "" : catalog.get(id).toLowerCase(Locale.ROOT);
+            names[id] = name;
+            seen.clear();
+            for (int start = 0; start < name.length(); start++) {
+                for (int length = 1; length <= MAX_GRAM_LENGTH && start + length <= name.length(); length++) {
+                    long gram = gram(name, start, length);
+                    if (seen.add(gram)) {
+                        builders.computeIfAbsent(gram, ignored -> new PostingBuilder()).add(id);
+                    }
+                }
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(builders.size() * 2);
+        builders.forEach((gram, builder) -> postings.put(gram, builder.toArray()));
+        return new ItemSearchIndex(names, postings, usageWeight);
+    }
+
+    /**
+     * Updates one item's ranking bonus in place after a lookup; nothing else is re-sorted.
+     */
+    public void updateUsage(String itemName, double weight) {
+        Integer id = itemName == null ? null : idsByName.get(itemName.trim().toLowerCase(Locale.ROOT));
+        if (id != null) {
+            usageScores[id] = usageScore(weight);
+        }
+    }
+
+    /**
+     * Roughly how many lookups of a lowercased catalog name the decaying usage weight amounts
+     * to, for display next to a suggestion. At least 1 for any item with usage.
+     */
+    int recentLookups(String name) {
+        Integer id = idsByName.get(name);
+        if (id == null || usageScores[id] <= 0) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.round(Math.pow(2, usageScores[id]) - 1));
+    }
+
+    /**
+     * Logarithmic so a handful of recent lookups matters but hundreds don't drown out relevance.
+     */
+    private static float usageScore(double weight) {
+        return weight > 0 ? (float) (Math.log1p(weight) / Math.log(2)) : 0f;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns up to {@code limit} lowercased names containing every whitespace-separated token
+     * of {@code input}: exact matches first, then by prefix match plus recent usage, then shorter
+     * names, with catalog order breaking ties. Blank input lists the most used items, then the catalog in order. When no
+     * name contains the tokens, the closest names by edit distance are returned instead.
+     */
+    public List<String> search(String input, int limit) {
+        String query = input == null ? "" : input.toLowerCase(Locale.ROOT);
+        if (query.isBlank()) {
+            return head(limit);
+        }
+        int[] matches = match(query);
+        return matches.length > 0 ? top(query, matches, limit) : closest(query, limit);
+    }
+
+    /**
+     * Returns the catalog name a mistyped query most likely meant, or {@code null} when the
+     * query already matches something or no single name is clearly closest.
+     */
+    public String correct(String input) {
+        String query = normalize(input);
+        if (query.isEmpty() || names.length == 0 || match(query).length > 0) {
+            return null;
+        }
+
+        List<FuzzyItemMatcher.Match> closest = fuzzy.search(query, 2);
+        if (closest.isEmpty()) {
+            return null;
+        }
+        if (closest.size() > 1 && closest.get(1).distance() == closest.get(0).distance()
+                && !names[closest.get(1).id()].equals(names[closest.get(0).id()])) {
+            return null;
+        }
+        return names[closest.get(0).id()];
+    }
+
+    /**
+     * Suggestions for blank input: the most used items first, then the catalog in order.
+     */
+    List<String> head(int limit) {
+        Comparator<Integer> leastUsedFirst = (a, b) -> usageScores[a] != usageScores[b]
+                ? Float.compare(usageScores[a], usageScores[b])
+                : Integer.compare(b, a);
+        PriorityQueue<Integer> used = new PriorityQueue<>(limit + 1, leastUsedFirst);
+        for (int id = 0; id < names.length; id++) {
+            if (usageScores[id] > 0) {
+                used.offer(id);
+                if (used.size() > limit) {
+                    used.poll();
+                }
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(used);
+        ids.sort(leastUsedFirst.reversed());
+        List<String> head = new ArrayList<>(Math.min(limit, names.length));
+        Set<Integer> included = new HashSet<>(ids);
+        ids.forEach(id -> head.add(names[id]));
+        for (int id = 0; id < names.length && head.size() < limit; id++) {
+            if (!included.contains(id)) {
+                head.add(names[id]);
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Ids of every name containing all tokens of the lowercased {@code query}, in catalog order.
+     */
+    int[] match(String query) {
+        String[] tokens = tokens(query);
+        return filter(candidates(tokens), tokens);
+    }
+
+    /**
+     * Same as {@link #match} for a query that extends the one {@code previous} was computed
+     * for: every name matching the longer query also matched the shorter one, so only the
+     * previous matches need checking.
+     */
+    int[] narrow(int[] previous, String query) {
+        return filter(previous, tokens(query));
+    }
+
+    List<String> top(String query, int[] ids, int limit) {
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> compare(query, b, a));
+        for (int id : ids) {
+            top.offer(id);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<String> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(names[top.poll()]);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    List<String> closest(String query, int limit) {
+        List<String> closest = new ArrayList<>();
+        for (FuzzyItemMatcher.Match match : fuzzy.search(normalize(query), limit)) {
+            closest.add(names[match.id()]);
+        }
+        return closest;
+    }
+
+    private int[] filter(int[] ids, String[] tokens) {
+        int[] kept = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (containsAll(names[id], tokens)) {
+                kept[count++] = id;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    private static String[] tokens(String query) {
+        return query.trim().split("\\s+");
+    }
+
+    private static String normalize(String input) {
+        return input == null ? "" : input.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private int compare(String query, int a, int b) {
+        String aName = names[a];
+        String bName = names[b];
+        boolean aExact = aName.equals(query);
+        boolean bExact = bName.equals(query);
+        if (aExact != bExact) {
+            return aExact ? -1 : 1;
+        }
+        // A prefix match is worth as much as about three recent lookups.
+        float aScore = (aName.startsWith(query) ? PREFIX_SCORE : 0f) + usageScores[a];
+        float bScore = (bName.startsWith(query) ? PREFIX_SCORE : 0f) + usageScores[b];
+        if (aScore != bScore) {
+            return Float.compare(bScore, aScore);
+        }
+        int byLength = Integer.compare(aName.length(), bName.length());
+        return byLength != 0 ? byLength : Integer.compare(a, b);
+    }
+
+    /**
+     * Intersects the posting lists of the query's grams, rarest first. Grams only prove the
+     * pieces exist somewhere in a name, so survivors are still checked with {@code contains}.
+     */
+    private int[] candidates(String[] tokens) {
+        List<int[]> lists = new ArrayList<>();
+        for (String token : tokens) {
+            if (token.length() <= MAX_GRAM_LENGTH) {
+                lists.add(postings.getOrDefault(gram(token, 0, token.length()), NO_POSTINGS));
+                continue;
+            }
+            for (int start = 0; start + MAX_GRAM_LENGTH <= token.length(); start++) {
+                lists.add(postings.getOrDefault(gram(token, start, MAX_GRAM_LENGTH), NO_POSTINGS));
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                out[count++] = a[i];
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    private static boolean containsAll(String name, String[] tokens) {
+        for (String token : tokens) {
+            if (!name.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs up to three UTF-16 units into one key; the length lives in the top bits so "a" and
+     * "a\0" never collide.
+     */
+    private static long gram(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    private static final class PostingBuilder {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.util.Loggers;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Per-item lookup counts that halve every week. Each lookup adds {@code 2^(age/halfLife)}
+ * measured from an anchor fixed at load time, which ranks items exactly like decaying every
+ * counter would without ever touching the other entries. The anchor moves forward (and the
+ * stored weights shrink to match) each time the file is loaded.
+ */
+public final class ItemUsageTracker {
+    private static final Logger LOGGER = Loggers.APP;
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final double HALF_LIFE_MILLIS = Duration.ofDays(7).toMillis();
+    private static final double MIN_WEIGHT = 0.01;
+
+    private final Path path;
+    private final long anchorMillis;
+    private final Map<String, Double> weights = new HashMap<>();
+    private boolean dirty;
+
+    private ItemUsageTracker(Path path, long anchorMillis) {
+        this.path = path;
+        this.anchorMillis = anchorMillis;
+    }
+
+    public static ItemUsageTracker load(Path path) {
+        long now = System.currentTimeMillis();
+        ItemUsageTracker tracker = new ItemUsageTracker(path, now);
+        if (path == null || !Files.exists(path)) {
+            return tracker;
+        }
+
+        try (Reader reader = Files.newBufferedReader(path)) {
+            StoredUsage stored = GSON.fromJson(reader, StoredUsage.class);
+            if (stored != null && stored.weights != null) {
+                double rebase = Math.pow(2, (stored.anchor - now) / HALF_LIFE_MILLIS);
+                stored.weights.forEach((item, weight) -> {
+                    double rebased = weight == null ? 0 : weight * rebase;
+                    if (item != null && rebased >= MIN_WEIGHT) {
+                        tracker.weights.put(key(item), rebased);
+                    }
+                });
+                tracker.dirty = true;
+            }
+        } catch (IOException | JsonParseException ex) {
+            LOGGER.warn("Failed to load item usage from {}: {}", path, ex.getMessage());
+        }
+        return tracker;
+    }
+
+    /**
+     * Counts one lookup of the item and returns its new weight.
+     */
+    public synchronized double record(String itemName) {
+        String key = key(itemName);
+        if (key.isEmpty()) {
+            return 0;
+        }
+        double increment = Math.pow(2, (System.currentTimeMillis() - anchorMillis) / HALF_LIFE_MILLIS);
+        dirty = true;
+        return weights.merge(key, increment, Double::sum);
+    }
+
+    public synchronized double weight(String itemName) {
+        return weights.getOrDefault(key(itemName), 0.0);
+    }
+
+    public CompletableFuture<Void> saveAsync() {
+        return CompletableFuture.runAsync(this::save);
+    }
+
+    public void save() {
+        StoredUsage stored = new StoredUsage();
+        synchronized (this) {
+            if (!dirty || path == null) {
+                return;
+            }
+            stored.anchor = anchorMillis;
+            stored.weights = new HashMap<>(weights);
+            dirty = false;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(stored, writer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to save item usage to {}: {}", path, ex.getMessage());
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    private static String key(String itemName) {
+        return itemName == null ? "" : itemName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class StoredUsage {
+        private long anchor;
+        private Map<String, Double> weights;
+    }
+}
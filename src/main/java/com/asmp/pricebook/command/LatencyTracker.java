@@ -0,0 +1,44 @@
+package com.asmp.pricebook.command;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of recent request latencies for percentile estimates. Old samples are
+ * overwritten so the estimate follows the service as it speeds up or slows down.
+ */
+final class LatencyTracker {
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int count;
+
+    LatencyTracker(int capacity, int minSamples) {
+        this.samples = new long[capacity];
+        this.minSamples = minSamples;
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the latency below which {@code fraction} of recent samples fall, or {@code -1}
+     * until enough samples have been recorded to say.
+     */
+    long percentile(double fraction) {
+        long[] copy;
+        synchronized (this) {
+            if (count < minSamples) {
+                return -1;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(fraction * copy.length) - 1;
+        return copy[Math.max(0, Math.min(copy.length - 1, index))];
+    }
+}
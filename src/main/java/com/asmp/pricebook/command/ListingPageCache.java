@@ -0,0 +1,129 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ListingPage;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Listing pages fetched this session, stored as futures so a page that is still being
+ * prefetched is joined rather than requested twice. Failed pages are forgotten so the next
+ * request retries them. When a page arrives with a newer {@code refreshedAt} than the pages
+ * already held for the item, the older pages are dropped since their offsets no longer line up.
+ * Pages are also dropped once a lookup reports a newer {@code refreshedAt} for the item, and
+ * any page older than {@link #PAGE_TTL} is fetched again.
+ */
+final class ListingPageCache {
+    private static final int MAX_CACHED_ITEMS = 16;
+    private static final Duration PAGE_TTL = Duration.ofMinutes(1);
+
+    private final LongSupplier nanoClock;
+
+    private final Map<String, ItemPages> pagesByItem = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ItemPages> eldest) {
+            return size() > MAX_CACHED_ITEMS;
+        }
+    };
+
+    ListingPageCache() {
+        this(System::nanoTime);
+    }
+
+    ListingPageCache(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    CompletableFuture<ListingPageResult> getOrFetch(String itemName, int pageSize, int page,
+                                                    IntFunction<CompletableFuture<ListingPageResult>> fetch) {
+        String key = key(itemName) + '#' + pageSize;
+        CompletableFuture<ListingPageResult> future;
+        synchronized (this) {
+            ItemPages pages = pagesByItem.computeIfAbsent(key, ignored -> new ItemPages());
+            CachedPage cached = pages.pages.get(page);
+            long now = nanoClock.getAsLong();
+            if (cached != null && (!cached.future.isDone() || now - cached.createdAt < PAGE_TTL.toNanos())) {
+                return cached.future;
+            }
+            future = new CompletableFuture<>();
+            pages.pages.put(page, new CachedPage(future, now));
+        }
+
+        CompletableFuture<ListingPageResult> pending = future;
+        fetch.apply(page).whenComplete((result, throwable) -> {
+            if (result == null || !result.isSuccess()) {
+                forget(key, page, pending);
+            } else {
+                retainVersion(key, result.page());
+            }
+            if (throwable != null) {
+                pending.completeExceptionally(throwable);
+            } else {
+                pending.complete(result);
+            }
+        });
+        return pending;
+    }
+
+    /**
+     * Drops the item's pages, at every page size, that predate {@code refreshedAt}, the data
+     * version a lookup just reported. Pages still being fetched are kept.
+     */
+    synchronized void expireOlderThan(String itemName, Instant refreshedAt) {
+        if (refreshedAt == null) {
+            return;
+        }
+        String prefix = key(itemName) + '#';
+        for (Map.Entry<String, ItemPages> entry : pagesByItem.entrySet()) {
+            ItemPages pages = entry.getValue();
+            if (entry.getKey().startsWith(prefix) && pages.refreshedAt != null
+                    && pages.refreshedAt.isBefore(refreshedAt)) {
+                pages.pages.values().removeIf(cached -> cached.future.isDone());
+                pages.refreshedAt = null;
+            }
+        }
+    }
+
+    private synchronized void forget(String key, int page, CompletableFuture<ListingPageResult> future) {
+        ItemPages pages = pagesByItem.get(key);
+        if (pages != null) {
+            CachedPage cached = pages.pages.get(page);
+            if (cached != null && cached.future == future) {
+                pages.pages.remove(page);
+            }
+        }
+    }
+
+    private synchronized void retainVersion(String key, ListingPage page) {
+        ItemPages pages = pagesByItem.get(key);
+        if (pages == null || Objects.equals(pages.refreshedAt, page.refreshedAt())
+                || (pages.refreshedAt != null && page.refreshedAt().isBefore(pages.refreshedAt))) {
+            return;
+        }
+        if (pages.refreshedAt != null) {
+            pages.pages.keySet().removeIf(number -> number != page.page());
+        }
+        pages.refreshedAt = page.refreshedAt();
+    }
+
+    private static String key(String itemName) {
+        return itemName == null ? "" : itemName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ItemPages {
+        private final Map<Integer, CachedPage> pages = new HashMap<>();
+        private Instant refreshedAt;
+    }
+
+    private record CachedPage(CompletableFuture<ListingPageResult> future, long createdAt) {
+    }
+}
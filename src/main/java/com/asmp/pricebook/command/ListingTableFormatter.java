@@ -4,7 +4,6 @@ import com.asmp.pricebook.command.PricebookQueryService.Listing;
 import com.asmp.pricebook.command.PricebookQueryService.WaystoneReference;
 import com.asmp.pricebook.util.Dimensions;
 import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.text.ClickEvent;
 import net.minecraft.text.HoverEvent;
 import net.minecraft.text.MutableText;
@@ -20,13 +19,13 @@ import java.util.List;
 import java.util.Locale;
 
 import static com.asmp.pricebook.command.PricebookRenderer.CONTENT_INDENT;
+import static com.asmp.pricebook.command.PricebookRenderer.LayoutContext;
 import static com.asmp.pricebook.command.PricebookRenderer.MAX_LISTINGS_DISPLAYED;
 import static com.asmp.pricebook.command.PricebookRenderer.MAX_OWNER_DISPLAY_LENGTH;
 import static com.asmp.pricebook.command.PricebookRenderer.NUMBER_FORMAT;
 import static com.asmp.pricebook.command.PricebookRenderer.STALENESS_THRESHOLD_MINUTES;
 import static com.asmp.pricebook.command.PricebookRenderer.WAYPOINT_COMMAND_NAME;
 import static com.asmp.pricebook.command.PricebookRenderer.WidthProvider;
-import static com.asmp.pricebook.command.PricebookRenderer.createWidthProvider;
 import static com.asmp.pricebook.command.PricebookRenderer.linePrefix;
 import static com.asmp.pricebook.command.PricebookRenderer.measureWidth;
 import static com.asmp.pricebook.command.PricebookRenderer.padLeft;
@@ -35,11 +34,16 @@ import static com.asmp.pricebook.command.PricebookRenderer.separator;
 import static com.asmp.pricebook.command.PricebookRenderer.truncate;
 
 final class ListingTableFormatter {
+    private static final int MAX_ITEM_DISPLAY_LENGTH = 24;
+    private static final String SHOPPING_LIST_TOTAL_LABEL = "Total";
+    private static final String SHOPPING_LIST_PARTIAL_TOTAL_LABEL = "Total (%d of %d items)";
+
     private final DecimalFormat priceFormatter;
     private final WidthProvider widthProvider;
     private final String playerDimension;
     private final Instant now;
     private final int maxLineWidth;
+    private final int rowLimit;
     private final List<MutableText> lines = new ArrayList<>();
     private int maxPriceWidth;
     private int maxAmountWidth;
@@ -49,34 +53,58 @@ final class ListingTableFormatter {
     private int waystoneColumnWidth;
     private boolean hasRenderedSection;
 
-    private ListingTableFormatter(ClientPlayerEntity player, DecimalFormat priceFormatter) {
+    private ListingTableFormatter(LayoutContext context, DecimalFormat priceFormatter, int rowLimit) {
         this(priceFormatter,
-                createWidthProvider(),
-                Dimensions.canonical(player.getWorld()),
-                Instant.now(),
-                resolveChatWidth());
+                context.widthProvider(),
+                context.playerDimension(),
+                context.now(),
+                context.chatWidth(),
+                rowLimit);
     }
 
     private ListingTableFormatter(DecimalFormat priceFormatter,
                                   WidthProvider widthProvider,
                                   String playerDimension,
                                   Instant now,
-                                  int maxLineWidth) {
+                                  int maxLineWidth,
+                                  int rowLimit) {
         this.priceFormatter = priceFormatter;
-        this.widthProvider = widthProvider;
+        this.rowLimit = rowLimit;
+        this.widthProvider = TextWidthCache.session(widthProvider);
         this.playerDimension = playerDimension == null ? "" : playerDimension;
         this.now = now == null ? Instant.now() : now;
         this.maxLineWidth = maxLineWidth <= 0 ? Integer.MAX_VALUE : maxLineWidth;
     }
 
-    static List<MutableText> build(ClientPlayerEntity player,
+    static List<MutableText> build(LayoutContext context,
                                    List<Listing> sellers,
                                    List<Listing> buyers,
                                    DecimalFormat priceFormatter) {
-        ListingTableFormatter formatter = new ListingTableFormatter(player, priceFormatter);
+        TableLayoutEvent event = new TableLayoutEvent();
+        event.begin();
+        ListingTableFormatter formatter = new ListingTableFormatter(context, priceFormatter, MAX_LISTINGS_DISPLAYED);
         formatter.prepareColumns(sellers, buyers);
         formatter.appendSection(null, sellers);
         formatter.appendSection("Buyers", buyers);
+        event.finish("listings", size(sellers) + size(buyers), formatter.lines.size(), context.chatWidth());
+        return formatter.lines;
+    }
+
+    /**
+     * Same layout as {@link #build} for one page of a deeper market, showing every row given.
+     */
+    static List<MutableText> buildPage(LayoutContext context,
+                                       List<Listing> sellers,
+                                       List<Listing> buyers,
+                                       DecimalFormat priceFormatter) {
+        TableLayoutEvent event = new TableLayoutEvent();
+        event.begin();
+        int rows = Math.max(size(sellers), size(buyers));
+        ListingTableFormatter formatter = new ListingTableFormatter(context, priceFormatter, rows);
+        formatter.prepareColumns(sellers, buyers);
+        formatter.appendSection("Sellers", sellers);
+        formatter.appendSection("Buyers", buyers);
+        event.finish("page", size(sellers) + size(buyers), formatter.lines.size(), context.chatWidth());
         return formatter.lines;
     }
 
@@ -87,13 +115,29 @@ final class ListingTableFormatter {
                                           String playerDimension,
                                           Instant now,
                                           int maxLineWidth) {
-        ListingTableFormatter formatter = new ListingTableFormatter(priceFormatter, widthProvider, playerDimension, now, maxLineWidth);
+        ListingTableFormatter formatter = new ListingTableFormatter(priceFormatter, widthProvider, playerDimension, now, maxLineWidth,
+                MAX_LISTINGS_DISPLAYED);
         formatter.prepareColumns(sellers, buyers);
         formatter.appendSection(null, sellers);
         formatter.appendSection("Buyers", buyers);
         return formatter.lines;
     }
 
+    static List<MutableText> buildShoppingList(LayoutContext context,
+                                               List<ShoppingListEntry> entries,
+                                               DecimalFormat priceFormatter) {
+        TableLayoutEvent event = new TableLayoutEvent();
+        event.begin();
+        ListingTableFormatter formatter = new ListingTableFormatter(context, priceFormatter, MAX_LISTINGS_DISPLAYED);
+        formatter.appendShoppingList(entries);
+        event.finish("shopping list", size(entries), formatter.lines.size(), context.chatWidth());
+        return formatter.lines;
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
     private void prepareColumns(List<Listing> sellers, List<Listing> buyers) {
         collectWidths(sellers);
         collectWidths(buyers);
@@ -105,7 +149,7 @@ final class ListingTableFormatter {
             return;
         }
 
-        int limit = Math.min(MAX_LISTINGS_DISPLAYED, entries.size());
+        int limit = Math.min(rowLimit, entries.size());
         for (int i = 0; i < limit; i++) {
             Listing listing = entries.get(i);
             if (listing == null) {
@@ -213,7 +257,7 @@ final class ListingTableFormatter {
             return;
         }
 
-        int limit = Math.min(MAX_LISTINGS_DISPLAYED, entries.size());
+        int limit = Math.min(rowLimit, entries.size());
         if (limit == 0) {
             return;
         }
@@ -236,6 +280,103 @@ final class ListingTableFormatter {
         hasRenderedSection = true;
     }
 
+    private void appendShoppingList(List<ShoppingListEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        // Items nobody sells add nothing to the total, so say how many of them it covers.
+        int priced = (int) entries.stream().filter(entry -> entry.cheapest() != null).count();
+        String totalLabel = priced == entries.size()
+                ? SHOPPING_LIST_TOTAL_LABEL
+                : String.format(Locale.ROOT, SHOPPING_LIST_PARTIAL_TOTAL_LABEL, priced, entries.size());
+        int itemWidth = measureWidth(widthProvider, Text.literal(totalLabel).formatted(Formatting.GRAY));
+        double total = 0;
+        for (ShoppingListEntry entry : entries) {
+            String itemDisplay = truncate(entry.itemName(), MAX_ITEM_DISPLAY_LENGTH);
+            itemWidth = Math.max(itemWidth, measureWidth(widthProvider, Text.literal(itemDisplay)));
+
+            Listing listing = entry.cheapest();
+            if (listing == null) {
+                continue;
+            }
+            total += listing.price();
+
+            Text priceText = Text.literal(priceFormatter.format(listing.price())).formatted(Formatting.AQUA);
+            maxPriceWidth = Math.max(maxPriceWidth, measureWidth(widthProvider, priceText));
+
+            Text amountText = Text.literal(NUMBER_FORMAT.format(Math.max(0, listing.amount()))).formatted(Formatting.AQUA);
+            maxAmountWidth = Math.max(maxAmountWidth, measureWidth(widthProvider, amountText));
+
+            Text ownerText = Text.literal(ownerDisplayName(listing)).formatted(Formatting.GRAY);
+            maxOwnerWidth = Math.max(maxOwnerWidth, measureWidth(widthProvider, ownerText));
+        }
+
+        Text totalText = Text.literal(priceFormatter.format(total)).formatted(Formatting.GOLD);
+        maxPriceWidth = Math.max(maxPriceWidth, measureWidth(widthProvider, totalText));
+
+        for (ShoppingListEntry entry : entries) {
+            lines.add(buildShoppingListLine(entry, itemWidth));
+        }
+
+        MutableText totalLine = linePrefix()
+                .append(Text.literal(CONTENT_INDENT))
+                .append(padRight(widthProvider, Text.literal(totalLabel).formatted(Formatting.GRAY), itemWidth))
+                .append(separator())
+                .append(padLeft(widthProvider, totalText, maxPriceWidth));
+        lines.add(totalLine);
+        hasRenderedSection = true;
+    }
+
+    private MutableText buildShoppingListLine(ShoppingListEntry entry, int itemWidth) {
+        String itemDisplay = truncate(entry.itemName(), MAX_ITEM_DISPLAY_LENGTH);
+        String lookupCommand = "/pb " + entry.query();
+        MutableText itemText = Text.literal(itemDisplay)
+                .styled(style -> style
+                        .withClickEvent(new ClickEvent.RunCommand(lookupCommand))
+                        .withHoverEvent(new HoverEvent.ShowText(Text.literal("Click to view all listings"))));
+
+        MutableText line = linePrefix()
+                .append(Text.literal(CONTENT_INDENT))
+                .append(padRight(widthProvider, itemText, itemWidth))
+                .append(separator());
+
+        Listing listing = entry.cheapest();
+        if (listing == null) {
+            return line.append(Text.literal("No sellers").formatted(Formatting.DARK_GRAY));
+        }
+
+        line.append(padLeft(widthProvider, Text.literal(priceFormatter.format(listing.price())).formatted(Formatting.AQUA), maxPriceWidth));
+
+        String amountStr = NUMBER_FORMAT.format(Math.max(0, listing.amount()));
+        line.append(separator());
+        line.append(padLeft(widthProvider, Text.literal(amountStr).formatted(Formatting.AQUA), maxAmountWidth)
+                .append(Text.literal("x").formatted(Formatting.GRAY)));
+
+        String owner = ownerDisplayName(listing);
+        line.append(separator());
+        line.append(padRight(widthProvider, Text.literal(owner).formatted(Formatting.GRAY), maxOwnerWidth));
+
+        String dimension = Dimensions.canonical(listing.dimension());
+        String highlightDimension = dimension.isEmpty() ? playerDimension : dimension;
+        appendCoordinateLink(line, listing, owner, highlightDimension);
+
+        if (!dimension.isEmpty() && !dimension.equals(playerDimension)) {
+            line.append(Text.literal(" (" + dimension + ")").formatted(Formatting.DARK_AQUA));
+        }
+
+        if (isStale(now, listing.lastSeenAt())) {
+            line.append(Text.literal(" Stale").formatted(Formatting.YELLOW));
+        }
+
+        return line;
+    }
+
+    private static String ownerDisplayName(Listing listing) {
+        String owner = listing.owner() == null || listing.owner().isBlank() ? "Unknown" : listing.owner().trim();
+        return truncate(owner, MAX_OWNER_DISPLAY_LENGTH);
+    }
+
     private MutableText buildListingLine(Listing listing) {
         return buildListingLine(listing, true);
     }
@@ -357,6 +498,26 @@ final class ListingTableFormatter {
         line.append(coordsLink);
     }
 
+    /**
+     * One bit per displayed seller then buyer row, set when that row gets the "Stale" marker.
+     */
+    static long staleMask(List<Listing> sellers, List<Listing> buyers, Instant now) {
+        long mask = 0;
+        int bit = 0;
+        for (List<Listing> entries : List.of(
+                sellers == null ? List.<Listing>of() : sellers,
+                buyers == null ? List.<Listing>of() : buyers)) {
+            int limit = Math.min(MAX_LISTINGS_DISPLAYED, entries.size());
+            for (int i = 0; i < limit; i++, bit++) {
+                Listing listing = entries.get(i);
+                if (listing != null && isStale(now, listing.lastSeenAt())) {
+                    mask |= 1L << bit;
+                }
+            }
+        }
+        return mask;
+    }
+
     private static boolean isStale(Instant now, Instant lastSeen) {
         if (lastSeen == null || lastSeen.equals(Instant.EPOCH)) {
             return true;
@@ -388,7 +549,7 @@ final class ListingTableFormatter {
         return raw.replace('\n', ' ').replace('\r', ' ').trim();
     }
 
-    private static int resolveChatWidth() {
+    static int resolveChatWidth() {
         MinecraftClient client = MinecraftClient.getInstance();
         if (client == null || client.inGameHud == null || client.inGameHud.getChatHud() == null) {
             return Integer.MAX_VALUE;
@@ -407,7 +568,7 @@ final class ListingTableFormatter {
         if (entries == null || entries.isEmpty()) {
             return;
         }
-        int limit = Math.min(MAX_LISTINGS_DISPLAYED, entries.size());
+        int limit = Math.min(rowLimit, entries.size());
         for (int i = 0; i < limit; i++) {
             target.add(entries.get(i));
         }
@@ -508,4 +669,7 @@ final class ListingTableFormatter {
     private int waystoneMinimumWidth() {
         return measureWaystoneWidth("…");
     }
+
+    record ShoppingListEntry(String query, String itemName, Listing cheapest) {
+    }
 }
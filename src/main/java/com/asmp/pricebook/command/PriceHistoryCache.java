@@ -0,0 +1,178 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.HistoryDay;
+import com.asmp.pricebook.command.PricebookQueryService.HistoryInsights;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistory;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistoryResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps each item's daily price history for the session so repeat history requests only
+ * fetch days newer than what is cached. Highs, lows and whether any price needs decimals
+ * are maintained as days are merged rather than recomputed for every render.
+ */
+final class PriceHistoryCache {
+    private static final int MAX_CACHED_ITEMS = 64;
+
+    private final Map<String, ItemSeries> seriesByItem = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ItemSeries> eldest) {
+            return size() > MAX_CACHED_ITEMS;
+        }
+    };
+
+    /**
+     * Returns the most recent cached date for the item, or {@code null} when nothing is cached.
+     * The day is requested again because its row keeps changing until the day ends.
+     */
+    String latestDate(String itemName) {
+        ItemSeries series = find(itemName);
+        return series == null ? null : series.latestDate();
+    }
+
+    PriceHistoryResult merge(String itemName, PriceHistoryResult fetched) {
+        ItemSeries series = find(itemName);
+        if (fetched == null || !fetched.isSuccess()) {
+            PriceHistory cached = series == null ? null : series.snapshot();
+            if (cached != null && !cached.history().isEmpty()) {
+                return PriceHistoryResult.success(cached);
+            }
+            return fetched;
+        }
+
+        if (series == null) {
+            series = new ItemSeries();
+            synchronized (seriesByItem) {
+                seriesByItem.put(key(itemName), series);
+            }
+        }
+        PriceHistory history = fetched.history();
+        return PriceHistoryResult.success(series.merge(history.itemName(), history.history()));
+    }
+
+    /**
+     * Sanitizes, orders and summarizes a history that did not come through a cache.
+     */
+    static PriceHistory prepare(PriceHistory history) {
+        if (history == null || history.insights() != null) {
+            return history;
+        }
+        return new ItemSeries().merge(history.itemName(), history.history());
+    }
+
+    private ItemSeries find(String itemName) {
+        synchronized (seriesByItem) {
+            return seriesByItem.get(key(itemName));
+        }
+    }
+
+    private static String key(String itemName) {
+        return itemName == null ? "" : itemName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class ItemSeries {
+        // ISO dates order the same way as strings, which keeps unparseable dates stable too.
+        private final NavigableMap<String, HistoryDay> days = new TreeMap<>();
+        private String itemName = "";
+        private HistoryDay lowest;
+        private HistoryDay highest;
+        private int fractionalDays;
+        private PriceHistory snapshot;
+
+        private synchronized String latestDate() {
+            return days.isEmpty() ? null : days.lastKey();
+        }
+
+        private synchronized PriceHistory snapshot() {
+            return snapshot;
+        }
+
+        private synchronized PriceHistory merge(String name, List<HistoryDay> fetched) {
+            if (name != null && !name.isBlank()) {
+                itemName = name;
+            }
+
+            boolean rescan = false;
+            if (fetched != null) {
+                for (HistoryDay day : fetched) {
+                    if (!isUsable(day)) {
+                        continue;
+                    }
+                    HistoryDay previous = days.put(dateKey(day), day);
+                    if (day.equals(previous)) {
+                        continue;
+                    }
+                    if (previous != null) {
+                        if (isFractional(previous)) {
+                            fractionalDays--;
+                        }
+                        rescan |= previous.equals(lowest) || previous.equals(highest);
+                    }
+                    if (isFractional(day)) {
+                        fractionalDays++;
+                    }
+                    if (!rescan) {
+                        include(day);
+                    }
+                    snapshot = null;
+                }
+            }
+
+            if (rescan) {
+                lowest = null;
+                highest = null;
+                days.values().forEach(this::include);
+            }
+
+            if (snapshot == null) {
+                List<HistoryDay> newestFirst = new ArrayList<>(days.descendingMap().values());
+                snapshot = new PriceHistory(itemName, List.copyOf(newestFirst), insights());
+            }
+            return snapshot;
+        }
+
+        /**
+         * Ties go to the newer day, matching the newest-first scan the renderer used to do.
+         */
+        private void include(HistoryDay day) {
+            double price = day.lowestPrice();
+            if (lowest == null || price < lowest.lowestPrice()
+                    || (price == lowest.lowestPrice() && dateKey(day).compareTo(dateKey(lowest)) > 0)) {
+                lowest = day;
+            }
+            if (highest == null || price > highest.lowestPrice()
+                    || (price == highest.lowestPrice() && dateKey(day).compareTo(dateKey(highest)) > 0)) {
+                highest = day;
+            }
+        }
+
+        private HistoryInsights insights() {
+            boolean hasRange = lowest != null && highest != null
+                    && Math.abs(highest.lowestPrice() - lowest.lowestPrice()) >= PricebookRenderer.PRICE_DELTA_EPSILON;
+            return new HistoryInsights(hasRange ? lowest : null, hasRange ? highest : null, fractionalDays > 0);
+        }
+
+        private static boolean isUsable(HistoryDay day) {
+            if (day == null) {
+                return false;
+            }
+            double price = day.lowestPrice();
+            return !Double.isNaN(price) && price > 0;
+        }
+
+        private static boolean isFractional(HistoryDay day) {
+            return day.lowestPrice() % 1 != 0;
+        }
+
+        private static String dateKey(HistoryDay day) {
+            return day.date() == null ? "" : day.date();
+        }
+    }
+}
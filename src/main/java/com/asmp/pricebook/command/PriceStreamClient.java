@@ -0,0 +1,401 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import com.asmp.pricebook.util.Loggers;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Server-sent event subscription to {@code /v1/stream}. Keeps one connection open for the
+ * watched and recently viewed items, reconnects with backoff and resumes from the last event
+ * id, and reopens the stream (debounced) whenever the set of items changes. Each
+ * {@code price} event carries the same body as {@code /v1/item}.
+ */
+final class PriceStreamClient {
+    private static final Logger LOGGER = Loggers.APP;
+    private static final int MAX_RECENT_ITEMS = 32;
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Consumer<ItemInfo> onPrice;
+    private final Runnable onDisconnect;
+    private final Timing timing;
+
+    private final Set<String> pinned = new LinkedHashSet<>();
+    private final Map<String, String> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_RECENT_ITEMS;
+        }
+    };
+    private Set<String> subscribed = Set.of();
+    private Set<String> live = Set.of();
+    private String lastEventId;
+    private long retryMillis;
+    private int failures;
+    private int generation;
+    private boolean reconnectScheduled;
+    private boolean unsupported;
+    private boolean closed;
+    private EventStreamSubscriber current;
+    private CompletableFuture<?> inFlight;
+
+    PriceStreamClient(HttpClient httpClient, String baseUrl, Consumer<ItemInfo> onPrice, Runnable onDisconnect) {
+        this(httpClient, baseUrl, onPrice, onDisconnect, Timing.DEFAULT);
+    }
+
+    PriceStreamClient(HttpClient httpClient, String baseUrl, Consumer<ItemInfo> onPrice, Runnable onDisconnect,
+                      Timing timing) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.onPrice = onPrice;
+        this.onDisconnect = onDisconnect;
+        this.timing = timing;
+        this.retryMillis = timing.minRetry().toMillis();
+        scheduleWatchdog();
+    }
+
+    /**
+     * Replaces the always-subscribed items (the watchlist).
+     */
+    synchronized void pin(Collection<String> items) {
+        pinned.clear();
+        for (String item : items) {
+            pinned.add(key(item));
+        }
+        subscriptionsChanged();
+    }
+
+    /**
+     * Marks an item as recently viewed so the stream follows it until it ages out.
+     */
+    synchronized void touch(String item) {
+        String key = key(item);
+        if (recent.put(key, key) == null && !pinned.contains(key)) {
+            subscriptionsChanged();
+        }
+    }
+
+    /**
+     * True when the open connection is already delivering events for the item, so a cached
+     * answer for it cannot have gone stale unnoticed.
+     */
+    synchronized boolean isLive(String item) {
+        return live.contains(key(item));
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            generation++;
+        }
+        disconnect();
+    }
+
+    private void subscriptionsChanged() {
+        if (closed || unsupported || reconnectScheduled || desiredItems().equals(subscribed)) {
+            return;
+        }
+        reconnectScheduled = true;
+        CompletableFuture.delayedExecutor(timing.resubscribeDelay().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(this::connect);
+    }
+
+    private Set<String> desiredItems() {
+        Set<String> items = new LinkedHashSet<>(pinned);
+        items.addAll(recent.keySet());
+        return items;
+    }
+
+    private void connect() {
+        HttpRequest request;
+        EventStreamSubscriber subscriber;
+        synchronized (this) {
+            reconnectScheduled = false;
+            if (closed || unsupported) {
+                return;
+            }
+            subscribed = desiredItems();
+            if (subscribed.isEmpty()) {
+                return;
+            }
+
+            String items = URLEncoder.encode(String.join(",", subscribed), StandardCharsets.UTF_8);
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/stream?items=" + items))
+                    .header("Accept", "text/event-stream")
+                    .header("Cache-Control", "no-cache")
+                    .GET();
+            if (lastEventId != null) {
+                builder.header("Last-Event-ID", lastEventId);
+            }
+            request = builder.build();
+            subscriber = new EventStreamSubscriber(++generation, subscribed);
+        }
+
+        disconnect();
+        CompletableFuture<?> future = httpClient.sendAsync(request, responseInfo -> {
+                    if (responseInfo.statusCode() == 200) {
+                        return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+                    }
+                    subscriber.rejected(responseInfo.statusCode());
+                    return HttpResponse.BodySubscribers.discarding();
+                })
+                .whenComplete((response, throwable) -> subscriber.ended(throwable));
+        synchronized (this) {
+            if (subscriber.generation == generation) {
+                current = subscriber;
+                inFlight = future;
+            } else {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Drops the current connection without reporting a disconnect: the replacement resumes from
+     * {@link #lastEventId}, so anything cached from the old connection stays valid.
+     */
+    private void disconnect() {
+        EventStreamSubscriber previous;
+        CompletableFuture<?> previousFuture;
+        synchronized (this) {
+            previous = current;
+            previousFuture = inFlight;
+            current = null;
+            inFlight = null;
+            live = Set.of();
+        }
+        if (previous != null) {
+            previous.cancel();
+        }
+        if (previousFuture != null) {
+            previousFuture.cancel(true);
+        }
+    }
+
+    private synchronized void scheduleReconnect(int connectionGeneration) {
+        if (closed || unsupported || connectionGeneration != generation || reconnectScheduled) {
+            return;
+        }
+        long minRetry = timing.minRetry().toMillis();
+        long backoff = Math.min(timing.maxRetry().toMillis(), Math.max(retryMillis, minRetry << Math.min(failures, 6)));
+        long delay = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        failures++;
+        reconnectScheduled = true;
+        LOGGER.debug("Price stream closed, reconnecting in {} ms", delay);
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(this::connect);
+    }
+
+    private void scheduleWatchdog() {
+        CompletableFuture.delayedExecutor(timing.watchdogInterval().toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            EventStreamSubscriber subscriber;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                subscriber = current;
+            }
+            if (subscriber != null && subscriber.isIdle()) {
+                LOGGER.debug("Price stream idle, reconnecting");
+                subscriber.cancel();
+            }
+            scheduleWatchdog();
+        });
+    }
+
+    private void dispatch(EventStreamSubscriber subscriber, String id, String event, String data) {
+        synchronized (this) {
+            if (subscriber.generation != generation) {
+                return;
+            }
+            if (id != null) {
+                lastEventId = id.isEmpty() ? null : id;
+            }
+        }
+        if (data == null || !("price".equals(event) || "message".equals(event))) {
+            return;
+        }
+
+        ItemLookupResult result;
+        try {
+            result = PricebookResponseDecoder.decodeItem(new StringReader(data));
+        } catch (IOException ex) {
+            return;
+        }
+        if (result != null && result.isSuccess()) {
+            onPrice.accept(result.info());
+        }
+    }
+
+    private static String key(String item) {
+        return item == null ? "" : item.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses the {@code text/event-stream} framing line by line for one connection attempt.
+     */
+    private final class EventStreamSubscriber implements Flow.Subscriber<String> {
+        private final int generation;
+        private final Set<String> items;
+        private final StringBuilder data = new StringBuilder();
+        private volatile Flow.Subscription subscription;
+        private volatile long lastActivity = System.nanoTime();
+        private String eventId;
+        private String eventType;
+        private boolean hasData;
+        private boolean receivedAny;
+
+        private EventStreamSubscriber(int generation, Set<String> items) {
+            this.generation = generation;
+            this.items = items;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            synchronized (PriceStreamClient.this) {
+                if (generation != PriceStreamClient.this.generation) {
+                    subscription.cancel();
+                    return;
+                }
+                live = items;
+            }
+            LOGGER.debug("Price stream connected for {} items", items.size());
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            lastActivity = System.nanoTime();
+            if (!receivedAny) {
+                receivedAny = true;
+                synchronized (PriceStreamClient.this) {
+                    failures = 0;
+                }
+            }
+            if (line.isEmpty()) {
+                if (hasData || eventId != null) {
+                    dispatch(this, eventId, eventType == null ? "message" : eventType, hasData ? data.toString() : null);
+                }
+                data.setLength(0);
+                eventId = null;
+                eventType = null;
+                hasData = false;
+                return;
+            }
+            if (line.startsWith(":")) {
+                return;
+            }
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "data" -> {
+                    if (hasData) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    hasData = true;
+                }
+                case "id" -> eventId = value;
+                case "event" -> eventType = value;
+                case "retry" -> {
+                    try {
+                        long retry = Long.parseLong(value.trim());
+                        synchronized (PriceStreamClient.this) {
+                            retryMillis = Math.max(timing.minRetry().toMillis(),
+                                    Math.min(timing.maxRetry().toMillis(), retry));
+                        }
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        private boolean isIdle() {
+            return System.nanoTime() - lastActivity > timing.idleTimeout().toNanos();
+        }
+
+        private void rejected(int status) {
+            if (status == 404 || status == 501) {
+                LOGGER.info("Pricebook service has no price stream (status {}), live updates disabled", status);
+                synchronized (PriceStreamClient.this) {
+                    unsupported = true;
+                }
+            }
+        }
+
+        private void cancel() {
+            Flow.Subscription active = subscription;
+            if (active != null) {
+                active.cancel();
+            }
+            ended(null);
+        }
+
+        private void ended(Throwable throwable) {
+            boolean wasLive;
+            synchronized (PriceStreamClient.this) {
+                if (generation != PriceStreamClient.this.generation) {
+                    return;
+                }
+                wasLive = !live.isEmpty();
+                live = Set.of();
+                current = null;
+                inFlight = null;
+            }
+            if (throwable != null) {
+                LOGGER.debug("Price stream failed: {}", throwable.getMessage());
+            }
+            if (wasLive) {
+                onDisconnect.run();
+            }
+            scheduleReconnect(generation);
+        }
+    }
+
+    /**
+     * The delays the client works with. Tests shorten them to exercise reconnects and the idle
+     * watchdog without waiting minutes.
+     */
+    record Timing(Duration resubscribeDelay, Duration minRetry, Duration maxRetry, Duration idleTimeout,
+                  Duration watchdogInterval) {
+        static final Timing DEFAULT = new Timing(Duration.ofSeconds(2), Duration.ofSeconds(1), Duration.ofMinutes(1),
+                Duration.ofMinutes(2), Duration.ofSeconds(30));
+    }
+}
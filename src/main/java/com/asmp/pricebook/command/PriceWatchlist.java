@@ -0,0 +1,417 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import com.asmp.pricebook.command.PricebookQueryService.Listing;
+import com.asmp.pricebook.command.PricebookQueryService.PollResult;
+import com.asmp.pricebook.util.Loggers;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.client.MinecraftClient;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Items the player asked to be alerted about. Polled from the client tick with conditional
+ * requests, batching every item that is due (or nearly due) into one request, and backing off
+ * per item while its prices stay put. Polls share a small request budget and are skipped
+ * entirely while an interactive lookup is running. Items covered by the live price stream are
+ * not polled at all. All state is touched on the client thread.
+ */
+public final class PriceWatchlist {
+    private static final Logger LOGGER = Loggers.APP;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Type STORED_TYPE = new TypeToken<List<StoredWatch>>() { }.getType();
+    public static final int MAX_WATCHES = 16;
+    private static final long MIN_POLL_INTERVAL_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final long MAX_POLL_INTERVAL_NANOS = Duration.ofMinutes(10).toNanos();
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final int BUDGET_CAPACITY = 4;
+    private static final long BUDGET_REFILL_NANOS = Duration.ofSeconds(15).toNanos();
+    private static final int MAX_BATCH_ETAGS = 16;
+
+    private final Path path;
+    private final Map<String, Watch> watches = new LinkedHashMap<>();
+    private final Map<String, String> batchEtags = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_BATCH_ETAGS;
+        }
+    };
+    private final RequestBudget budget = new RequestBudget(BUDGET_CAPACITY, BUDGET_REFILL_NANOS);
+    private boolean pollInFlight;
+    private PricebookQueryService followedBy;
+
+    private PriceWatchlist(Path path) {
+        this.path = path;
+    }
+
+    public static PriceWatchlist load(Path path) {
+        PriceWatchlist watchlist = new PriceWatchlist(path);
+        if (path == null || !Files.exists(path)) {
+            return watchlist;
+        }
+
+        try (Reader reader = Files.newBufferedReader(path)) {
+            List<StoredWatch> stored = GSON.fromJson(reader, STORED_TYPE);
+            if (stored != null) {
+                for (StoredWatch entry : stored) {
+                    Direction direction = entry == null ? null : Direction.fromName(entry.direction);
+                    if (direction == null || entry.item == null || entry.item.isBlank()
+                            || watchlist.watches.size() >= MAX_WATCHES) {
+                        continue;
+                    }
+                    Watch watch = new Watch(entry.item.trim(), direction, entry.threshold);
+                    watchlist.watches.put(key(watch.item), watch);
+                }
+            }
+            LOGGER.info("Loaded {} watched items from {}", watchlist.watches.size(), path);
+        } catch (IOException | JsonParseException ex) {
+            LOGGER.warn("Failed to load watchlist from {}: {}", path, ex.getMessage());
+        }
+        return watchlist;
+    }
+
+    /**
+     * Adds or replaces a watch. A {@code null} threshold is filled in with the current best
+     * price on the first successful poll. Returns {@code false} when the list is already full.
+     */
+    public boolean watch(String itemName, Direction direction, Double threshold) {
+        String key = key(itemName);
+        if (!watches.containsKey(key) && watches.size() >= MAX_WATCHES) {
+            return false;
+        }
+        watches.put(key, new Watch(itemName.trim(), direction, threshold));
+        followedBy = null;
+        save();
+        return true;
+    }
+
+    public boolean unwatch(String itemName) {
+        boolean removed = watches.remove(key(itemName)) != null;
+        if (removed) {
+            followedBy = null;
+            save();
+        }
+        return removed;
+    }
+
+    public List<WatchedItem> entries() {
+        List<WatchedItem> entries = new ArrayList<>(watches.size());
+        for (Watch watch : watches.values()) {
+            entries.add(new WatchedItem(watch.item, watch.direction, watch.threshold,
+                    watch.bestSeller, watch.bestBuyer));
+        }
+        return entries;
+    }
+
+    public void tick(MinecraftClient client, PricebookQueryService service) {
+        if (service == null || pollInFlight) {
+            return;
+        }
+
+        if (service != followedBy) {
+            followedBy = service;
+            service.followItems(watches.values().stream()
+                    .map(watch -> watch.serviceName != null ? watch.serviceName : watch.item)
+                    .toList());
+        }
+
+        long now = System.nanoTime();
+        Watch mostOverdue = null;
+        for (Watch watch : watches.values()) {
+            if (isPollDue(watch, now, 0, service)
+                    && (mostOverdue == null || watch.nextPollAt - mostOverdue.nextPollAt < 0)) {
+                mostOverdue = watch;
+            }
+        }
+        if (mostOverdue == null || service.isBusy() || !budget.tryAcquire(now)) {
+            return;
+        }
+
+        List<Watch> polled = new ArrayList<>();
+        if (service.supportsBatchLookup()) {
+            // Pull in anything within half an interval of being due so it rides along for free.
+            for (Watch watch : watches.values()) {
+                if (isPollDue(watch, now, watch.intervalNanos / 2, service)) {
+                    polled.add(watch);
+                }
+            }
+        } else {
+            polled.add(mostOverdue);
+        }
+
+        List<String> names = polled.stream().map(watch -> watch.item).toList();
+        String batchKey = batchKey(polled);
+        String etag = polled.size() == 1 ? polled.get(0).etag : batchEtags.get(batchKey);
+
+        pollInFlight = true;
+        service.pollChanges(names, etag).whenComplete((result, throwable) -> client.execute(() -> {
+            pollInFlight = false;
+            applyPoll(client, polled, batchKey, result);
+        }));
+    }
+
+    private void applyPoll(MinecraftClient client, List<Watch> polled, String batchKey, PollResult result) {
+        long now = System.nanoTime();
+        if (result != null && !result.notModified() && result.results().size() != polled.size()) {
+            result = null;
+        }
+        if (result != null && result.etag() != null) {
+            if (polled.size() == 1) {
+                polled.get(0).etag = result.etag();
+            } else {
+                batchEtags.put(batchKey, result.etag());
+            }
+        }
+
+        boolean thresholdsFilled = false;
+        for (int i = 0; i < polled.size(); i++) {
+            Watch watch = polled.get(i);
+            if (watches.get(key(watch.item)) != watch) {
+                continue;
+            }
+            if (result == null || result.notModified()) {
+                watch.reschedule(now, false);
+                continue;
+            }
+
+            ItemLookupResult lookup = result.results().get(i);
+            ItemInfo info = lookup != null && lookup.isSuccess() ? lookup.info() : null;
+            thresholdsFilled |= apply(client, watch, info, now);
+        }
+
+        if (thresholdsFilled) {
+            save();
+        }
+    }
+
+    /**
+     * Applies an item pushed over the live price stream as if it had just been polled.
+     */
+    public void onLiveUpdate(MinecraftClient client, ItemInfo info) {
+        if (info == null) {
+            return;
+        }
+        String itemKey = key(info.itemName());
+        for (Watch watch : watches.values()) {
+            if (watch.serviceName != null && key(watch.serviceName).equals(itemKey)
+                    && apply(client, watch, info, System.nanoTime())) {
+                save();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} when the watch's threshold was filled in and needs saving.
+     */
+    private boolean apply(MinecraftClient client, Watch watch, ItemInfo info, long now) {
+        if (info != null && info.itemName() != null && !info.itemName().isBlank()
+                && !info.itemName().equals(watch.serviceName)) {
+            // The stream reports items under the service's name, which may differ from what was typed.
+            watch.serviceName = info.itemName();
+            followedBy = null;
+        }
+
+        Listing seller = info == null ? null : bestListing(info.topSellers(), true);
+        Listing buyer = info == null ? null : bestListing(info.topBuyers(), false);
+        boolean changed = watch.observe(seller, buyer);
+        watch.reschedule(now, changed);
+
+        Listing trigger = watch.direction == Direction.BELOW ? seller : buyer;
+        if (watch.threshold == null) {
+            if (trigger == null) {
+                return false;
+            }
+            watch.threshold = trigger.price();
+            return true;
+        }
+
+        boolean met = trigger != null && watch.direction.isMet(trigger.price(), watch.threshold);
+        if (met && !watch.triggered) {
+            String itemName = info.itemName() == null || info.itemName().isBlank() ? watch.item : info.itemName();
+            PricebookRenderer.deliverWatchAlert(client.player, new Alert(itemName, watch.direction,
+                    watch.threshold, trigger));
+        }
+        watch.triggered = met;
+        return false;
+    }
+
+    /**
+     * Items the live stream already covers are never polled; their updates arrive through
+     * {@link #onLiveUpdate}.
+     */
+    private static boolean isPollDue(Watch watch, long now, long lookahead, PricebookQueryService service) {
+        return watch.nextPollAt - lookahead - now <= 0
+                && (watch.serviceName == null || !service.isLive(watch.serviceName));
+    }
+
+    private static Listing bestListing(List<Listing> listings, boolean lowest) {
+        Listing best = null;
+        if (listings == null) {
+            return null;
+        }
+        for (Listing listing : listings) {
+            if (listing != null && (best == null
+                    || (lowest ? listing.price() < best.price() : listing.price() > best.price()))) {
+                best = listing;
+            }
+        }
+        return best;
+    }
+
+    private static String batchKey(List<Watch> polled) {
+        return String.join("\n", polled.stream().map(watch -> key(watch.item)).sorted().toList());
+    }
+
+    private static String key(String itemName) {
+        return itemName == null ? "" : itemName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private void save() {
+        if (path == null) {
+            return;
+        }
+        List<StoredWatch> stored = new ArrayList<>(watches.size());
+        for (Watch watch : watches.values()) {
+            stored.add(StoredWatch.from(watch));
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(stored, STORED_TYPE, writer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to save watchlist to {}: {}", path, ex.getMessage());
+        }
+    }
+
+    public enum Direction {
+        BELOW("below"),
+        ABOVE("above");
+
+        private final String label;
+
+        Direction(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        private boolean isMet(double price, double threshold) {
+            return this == BELOW ? price < threshold : price > threshold;
+        }
+
+        public static Direction fromName(String name) {
+            for (Direction direction : values()) {
+                if (direction.label.equalsIgnoreCase(name)) {
+                    return direction;
+                }
+            }
+            return null;
+        }
+    }
+
+    public record WatchedItem(String item, Direction direction, Double threshold, Double bestSeller,
+                              Double bestBuyer) {
+    }
+
+    public record Alert(String itemName, Direction direction, double threshold, Listing listing) {
+    }
+
+    private static final class Watch {
+        private final String item;
+        private final Direction direction;
+        private Double threshold;
+        private String serviceName;
+        private Double bestSeller;
+        private Double bestBuyer;
+        private boolean triggered;
+        private String etag;
+        private long intervalNanos = MIN_POLL_INTERVAL_NANOS;
+        private long nextPollAt = System.nanoTime();
+
+        private Watch(String item, Direction direction, Double threshold) {
+            this.item = item;
+            this.direction = direction;
+            this.threshold = threshold;
+        }
+
+        private boolean observe(Listing seller, Listing buyer) {
+            Double sellerPrice = seller == null ? null : seller.price();
+            Double buyerPrice = buyer == null ? null : buyer.price();
+            boolean changed = !Objects.equals(sellerPrice, bestSeller)
+                    || !Objects.equals(buyerPrice, bestBuyer);
+            bestSeller = sellerPrice;
+            bestBuyer = buyerPrice;
+            return changed;
+        }
+
+        private void reschedule(long now, boolean changed) {
+            intervalNanos = changed
+                    ? MIN_POLL_INTERVAL_NANOS
+                    : Math.min(MAX_POLL_INTERVAL_NANOS, (long) (intervalNanos * BACKOFF_FACTOR));
+            nextPollAt = now + intervalNanos;
+        }
+    }
+
+    /**
+     * Token bucket shared by every watchlist poll, whether it covers one item or twenty.
+     */
+    private static final class RequestBudget {
+        private final int capacity;
+        private final long refillNanos;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private RequestBudget(int capacity, long refillNanos) {
+            this.capacity = capacity;
+            this.refillNanos = refillNanos;
+            this.tokens = capacity;
+        }
+
+        private boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / refillNanos);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    private static final class StoredWatch {
+        private String item;
+        private String direction;
+        private Double threshold;
+
+        private static StoredWatch from(Watch watch) {
+            StoredWatch stored = new StoredWatch();
+            stored.item = watch.item;
+            stored.direction = watch.direction.label();
+            stored.threshold = watch.threshold;
+            return stored;
+        }
+    }
+}
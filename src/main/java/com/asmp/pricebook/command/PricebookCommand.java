@@ -1,6 +1,7 @@
 package com.asmp.pricebook.command;
 
 import com.asmp.pricebook.Pricebook;
+import com.asmp.pricebook.browser.PriceBrowserScreen;
 import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
 import com.asmp.pricebook.scanner.ShopScanner;
 import com.asmp.pricebook.util.Dimensions;
@@ -25,12 +26,23 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.hit.BlockHitResult;
 import net.minecraft.util.hit.HitResult;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public final class PricebookCommand {
     private static final String WAYPOINT_COMMAND_NAME = "pricebook_waypoint";
+    private static final int MAX_SHOPPING_LIST_ITEMS = 16;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final SuggestionEngine SUGGESTIONS = new SuggestionEngine();
+    private static final Pattern WATCH_THRESHOLD = Pattern.compile(
+            "^(.+?)\\s+(below|above)\\s+(\\d+(?:\\.\\d+)?)$", Pattern.CASE_INSENSITIVE);
 
     private PricebookCommand() {
     }
@@ -60,6 +72,30 @@ public final class PricebookCommand {
     private static void registerPricebookCommand(CommandDispatcher<FabricClientCommandSource> dispatcher, String alias) {
         dispatcher.register(ClientCommandManager.literal(alias)
                 .executes(ctx -> execute(ctx.getSource(), null))
+                .then(ClientCommandManager.literal("list")
+                        .then(ClientCommandManager.argument("items", StringArgumentType.greedyString())
+                                .suggests(PricebookCommand::suggestListItems)
+                                .executes(ctx -> executeShoppingList(ctx.getSource(), StringArgumentType.getString(ctx, "items")))))
+                .then(ClientCommandManager.literal("watch")
+                        .executes(ctx -> executeWatchlist(ctx.getSource()))
+                        .then(ClientCommandManager.argument("watch", StringArgumentType.greedyString())
+                                .suggests(PricebookCommand::suggestItems)
+                                .executes(ctx -> executeWatch(ctx.getSource(), StringArgumentType.getString(ctx, "watch")))))
+                .then(ClientCommandManager.literal("page")
+                        .then(ClientCommandManager.argument("page", IntegerArgumentType.integer(1))
+                                .then(ClientCommandManager.argument("item", StringArgumentType.greedyString())
+                                        .suggests(PricebookCommand::suggestItems)
+                                        .executes(ctx -> executePage(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "page"),
+                                                StringArgumentType.getString(ctx, "item"))))))
+                .then(ClientCommandManager.literal("browse")
+                        .then(ClientCommandManager.argument("item", StringArgumentType.greedyString())
+                                .suggests(PricebookCommand::suggestItems)
+                                .executes(ctx -> executeBrowse(ctx.getSource(), StringArgumentType.getString(ctx, "item")))))
+                .then(ClientCommandManager.literal("unwatch")
+                        .then(ClientCommandManager.argument("item", StringArgumentType.greedyString())
+                                .suggests(PricebookCommand::suggestWatchedItems)
+                                .executes(ctx -> executeUnwatch(ctx.getSource(), StringArgumentType.getString(ctx, "item")))))
                 .then(ClientCommandManager.argument("item", StringArgumentType.greedyString())
                         .suggests(PricebookCommand::suggestItems)
                         .executes(ctx -> execute(ctx.getSource(), StringArgumentType.getString(ctx, "item")))));
@@ -125,9 +161,18 @@ public final class PricebookCommand {
             player.sendMessage(prefixed("Hold an item or specify a name.", Formatting.RED), false);
             return 1;
         }
+        resolved = correctItemName(player, resolved);
 
+        // Layout runs on the worker against metrics captured here; the client thread only sends.
+        PricebookRenderer.LayoutContext layout = PricebookRenderer.captureLayout(player);
         CompletableFuture<ItemLookupResult> future = service.lookup(resolved);
-        future.thenAccept(result -> client.execute(() -> PricebookRenderer.deliverResult(player, result)));
+        future.thenCompose(result -> PricebookRenderer.layoutResult(client, layout, result)
+                .thenAccept(lines -> client.execute(() -> {
+                    if (result != null && result.isSuccess() && !result.offline()) {
+                        Pricebook.recordItemUsage(result.info().itemName());
+                    }
+                    PricebookRenderer.sendLines(player, lines);
+                })));
 
         return 1;
     }
@@ -159,6 +204,7 @@ public final class PricebookCommand {
             player.sendMessage(prefixed("Specify an item name.", Formatting.RED), false);
             return 1;
         }
+        trimmed = correctItemName(player, trimmed);
 
         CompletableFuture<PricebookQueryService.PriceHistoryResult> future = service.fetchHistory(trimmed);
         future.thenAccept(result -> client.execute(() -> PricebookRenderer.deliverHistoryResult(player, result)));
@@ -166,6 +212,220 @@ public final class PricebookCommand {
         return 1;
     }
 
+    private static int executePage(FabricClientCommandSource source, int page, String itemName) {
+        MinecraftClient client = source.getClient();
+        if (client == null) {
+            return 0;
+        }
+
+        ClientPlayerEntity player = client.player;
+        if (player == null) {
+            return 0;
+        }
+
+        if (!Pricebook.isEnabled()) {
+            player.sendMessage(prefixed("Disabled.", Formatting.RED), false);
+            return 1;
+        }
+
+        PricebookQueryService service = Pricebook.queryService();
+        if (service == null) {
+            player.sendMessage(prefixed("Query service not available.", Formatting.RED), false);
+            return 1;
+        }
+
+        String trimmed = itemName == null ? "" : itemName.trim();
+        if (trimmed.isEmpty()) {
+            player.sendMessage(prefixed("Specify an item name.", Formatting.RED), false);
+            return 1;
+        }
+
+        PricebookRenderer.LayoutContext layout = PricebookRenderer.captureLayout(player);
+        service.fetchListingPage(trimmed, page)
+                .thenCompose(result -> PricebookRenderer.layoutListingPage(client, layout, trimmed, result))
+                .thenAccept(lines -> client.execute(() -> PricebookRenderer.sendLines(player, lines)));
+        return 1;
+    }
+
+    private static int executeBrowse(FabricClientCommandSource source, String itemName) {
+        MinecraftClient client = source.getClient();
+        if (client == null) {
+            return 0;
+        }
+
+        ClientPlayerEntity player = client.player;
+        if (player == null) {
+            return 0;
+        }
+
+        if (!Pricebook.isEnabled()) {
+            player.sendMessage(prefixed("Disabled.", Formatting.RED), false);
+            return 1;
+        }
+
+        PricebookQueryService service = Pricebook.queryService();
+        if (service == null) {
+            player.sendMessage(prefixed("Query service not available.", Formatting.RED), false);
+            return 1;
+        }
+
+        String trimmed = itemName == null ? "" : itemName.trim();
+        if (trimmed.isEmpty()) {
+            player.sendMessage(prefixed("Specify an item name.", Formatting.RED), false);
+            return 1;
+        }
+        String item = correctItemName(player, trimmed);
+
+        // Deferred a tick so the chat screen has closed before the browser replaces it.
+        client.send(() -> client.setScreen(new PriceBrowserScreen(null, service, item)));
+        return 1;
+    }
+
+    private static int executeShoppingList(FabricClientCommandSource source, String itemList) {
+        MinecraftClient client = source.getClient();
+        if (client == null) {
+            return 0;
+        }
+
+        ClientPlayerEntity player = client.player;
+        if (player == null) {
+            return 0;
+        }
+
+        WaypointManager.clear();
+
+        if (!Pricebook.isEnabled()) {
+            player.sendMessage(prefixed("Disabled.", Formatting.RED), false);
+            return 1;
+        }
+
+        PricebookQueryService service = Pricebook.queryService();
+        if (service == null) {
+            player.sendMessage(prefixed("Query service not available.", Formatting.RED), false);
+            return 1;
+        }
+
+        // Correct first and dedupe after, so "Diamond, diamnd" is looked up once.
+        ItemSearchIndex index = Pricebook.itemIndex();
+        Map<String, String> unique = new LinkedHashMap<>();
+        List<String> corrections = new ArrayList<>();
+        for (String item : parseItemList(itemList)) {
+            String corrected = index.correct(item);
+            if (corrected != null) {
+                corrections.add("\"" + corrected + "\" for \"" + item + "\"");
+                item = corrected;
+            }
+            unique.putIfAbsent(item.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT), item);
+        }
+        List<String> items = List.copyOf(unique.values());
+        if (items.isEmpty()) {
+            player.sendMessage(prefixed("List items separated by commas.", Formatting.RED), false);
+            return 1;
+        }
+        if (items.size() > MAX_SHOPPING_LIST_ITEMS) {
+            player.sendMessage(prefixed("At most " + MAX_SHOPPING_LIST_ITEMS + " items per list.", Formatting.RED), false);
+            return 1;
+        }
+
+        if (!corrections.isEmpty()) {
+            player.sendMessage(prefixed("Assuming you meant " + String.join(", ", corrections) + ".", Formatting.GRAY),
+                    false);
+        }
+
+        PricebookRenderer.LayoutContext layout = PricebookRenderer.captureLayout(player);
+        service.lookupAll(items)
+                .thenCompose(results -> PricebookRenderer.layoutShoppingList(client, layout, items, results))
+                .thenAccept(lines -> client.execute(() -> PricebookRenderer.sendLines(player, lines)));
+
+        return 1;
+    }
+
+    private static List<String> parseItemList(String itemList) {
+        if (itemList == null || itemList.isBlank()) {
+            return List.of();
+        }
+
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String part : itemList.split(",")) {
+            String trimmed = part.trim();
+            if (!trimmed.isEmpty()) {
+                unique.putIfAbsent(trimmed.toLowerCase(Locale.ROOT), trimmed);
+            }
+        }
+        return List.copyOf(unique.values());
+    }
+
+    private static int executeWatchlist(FabricClientCommandSource source) {
+        MinecraftClient client = source.getClient();
+        if (client == null || client.player == null) {
+            return 0;
+        }
+
+        PricebookRenderer.deliverWatchlist(client.player, Pricebook.watchlist().entries());
+        return 1;
+    }
+
+    private static int executeWatch(FabricClientCommandSource source, String spec) {
+        MinecraftClient client = source.getClient();
+        if (client == null) {
+            return 0;
+        }
+
+        ClientPlayerEntity player = client.player;
+        if (player == null) {
+            return 0;
+        }
+
+        String itemName = spec == null ? "" : spec.trim();
+        PriceWatchlist.Direction direction = PriceWatchlist.Direction.BELOW;
+        Double threshold = null;
+        Matcher matcher = WATCH_THRESHOLD.matcher(itemName);
+        if (matcher.matches()) {
+            itemName = matcher.group(1).trim();
+            direction = PriceWatchlist.Direction.fromName(matcher.group(2));
+            threshold = Double.parseDouble(matcher.group(3));
+        }
+        if (itemName.isEmpty()) {
+            player.sendMessage(prefixed("Specify an item name.", Formatting.RED), false);
+            return 1;
+        }
+        itemName = correctItemName(player, itemName);
+
+        if (!Pricebook.watchlist().watch(itemName, direction, threshold)) {
+            player.sendMessage(prefixed("Watchlist is full (" + PriceWatchlist.MAX_WATCHES
+                    + " items). Use /pb unwatch <item> first.", Formatting.RED), false);
+            return 1;
+        }
+
+        String side = direction == PriceWatchlist.Direction.BELOW ? "sellers" : "buyers";
+        String condition = threshold == null
+                ? (direction == PriceWatchlist.Direction.BELOW ? "undercut" : "outbid") + " the current best price"
+                : "go " + direction.label() + " " + BigDecimal.valueOf(threshold).stripTrailingZeros().toPlainString();
+        String message = String.format(Locale.ROOT, "Watching %s. You'll be alerted when %s %s.", itemName, side, condition);
+        player.sendMessage(prefixed(message, Formatting.AQUA), false);
+        return 1;
+    }
+
+    private static int executeUnwatch(FabricClientCommandSource source, String itemName) {
+        MinecraftClient client = source.getClient();
+        if (client == null) {
+            return 0;
+        }
+
+        ClientPlayerEntity player = client.player;
+        if (player == null) {
+            return 0;
+        }
+
+        String trimmed = itemName == null ? "" : itemName.trim();
+        if (Pricebook.watchlist().unwatch(trimmed)) {
+            player.sendMessage(prefixed("Stopped watching " + trimmed + ".", Formatting.AQUA), false);
+        } else {
+            player.sendMessage(prefixed("Not watching " + trimmed + ".", Formatting.RED), false);
+        }
+        return 1;
+    }
+
     private static int executeTestLayout(FabricClientCommandSource source) {
         MinecraftClient client = source.getClient();
         if (client == null || client.player == null) {
@@ -176,6 +436,19 @@ public final class PricebookCommand {
         return 1;
     }
 
+    /**
+     * Swaps a mistyped name for the catalog item it most likely meant, so typos are fixed
+     * before a request is sent rather than coming back as "not found".
+     */
+    private static String correctItemName(ClientPlayerEntity player, String itemName) {
+        String corrected = Pricebook.itemIndex().correct(itemName);
+        if (corrected == null) {
+            return itemName;
+        }
+        player.sendMessage(prefixed("Assuming you meant \"" + corrected + "\".", Formatting.GRAY), false);
+        return corrected;
+    }
+
     private static String resolveItemName(MinecraftClient client, ClientPlayerEntity player, String itemArgument) {
         if (itemArgument != null && !itemArgument.isBlank()) {
             return itemArgument.trim();
@@ -218,55 +491,30 @@ public final class PricebookCommand {
                 .orElse(null);
     }
 
-    private static CompletableFuture<Suggestions> suggestItems(CommandContext<FabricClientCommandSource> context,
-                                                               SuggestionsBuilder builder) {
-        List<String> catalog = Pricebook.itemCatalog();
-        if (catalog == null || catalog.isEmpty()) {
-            return builder.buildFuture();
+    private static CompletableFuture<Suggestions> suggestListItems(CommandContext<FabricClientCommandSource> context,
+                                                                   SuggestionsBuilder builder) {
+        String remaining = builder.getRemaining();
+        int segmentStart = remaining.lastIndexOf(',') + 1;
+        while (segmentStart < remaining.length() && Character.isWhitespace(remaining.charAt(segmentStart))) {
+            segmentStart++;
         }
+        return suggestItems(context, builder.createOffset(builder.getStart() + segmentStart));
+    }
+
+    private static CompletableFuture<Suggestions> suggestWatchedItems(CommandContext<FabricClientCommandSource> context,
+                                                                      SuggestionsBuilder builder) {
+        return CommandSource.suggestMatching(Pricebook.watchlist().entries().stream()
+                .map(PriceWatchlist.WatchedItem::item), builder);
+    }
 
-        String input = builder.getRemaining().toLowerCase(Locale.ROOT);
-        if (input.isBlank()) {
-            catalog.stream()
-                .map(item -> item.toLowerCase(Locale.ROOT))
-                .forEach(builder::suggest);
+    private static CompletableFuture<Suggestions> suggestItems(CommandContext<FabricClientCommandSource> context,
+                                                               SuggestionsBuilder builder) {
+        ItemSearchIndex index = Pricebook.itemIndex();
+        if (index.size() == 0) {
             return builder.buildFuture();
         }
 
-        String[] tokens = input.trim().split("\\s+");
-
-        catalog.stream()
-            .filter(item -> {
-                String itemLower = item.toLowerCase(Locale.ROOT);
-                for (String token : tokens) {
-                    if (!itemLower.contains(token)) {
-                        return false;
-                    }
-                }
-                return true;
-            })
-            .map(item -> item.toLowerCase(Locale.ROOT))
-            .sorted((aLower, bLower) -> {
-                // Prioritize exact matches first
-                boolean aExact = aLower.equals(input);
-                boolean bExact = bLower.equals(input);
-                if (aExact != bExact) {
-                    return aExact ? -1 : 1;
-                }
-
-                // Then prioritize items that start with the input
-                boolean aStarts = aLower.startsWith(input);
-                boolean bStarts = bLower.startsWith(input);
-                if (aStarts != bStarts) {
-                    return aStarts ? -1 : 1;
-                }
-
-                // Then by length (shorter = more relevant)
-                return Integer.compare(aLower.length(), bLower.length());
-            })
-            .forEach(builder::suggest);
-
-        return builder.buildFuture();
+        return SUGGESTIONS.suggest(index, builder, MAX_SUGGESTIONS);
     }
 
     private static int createWaypoint(FabricClientCommandSource source, int x, int y, int z,
@@ -1,15 +1,20 @@
 package com.asmp.pricebook.command;
 
 import com.asmp.pricebook.config.ModConfig;
+import com.asmp.pricebook.scanner.LocalPriceIndex;
 import com.asmp.pricebook.util.HttpClients;
 import com.asmp.pricebook.util.Loggers;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import net.minecraft.util.math.BlockPos;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -19,23 +24,103 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public final class PricebookQueryService {
+    public static final int LISTING_PAGE_SIZE = 5;
+    public static final int MAX_LISTING_PAGE_SIZE = 200;
     private static final Logger LOGGER = Loggers.APP;
     private static final int ITEM_LOOKUP_TIMEOUT_SECONDS = 8;
     private static final int CATALOG_FETCH_TIMEOUT_SECONDS = 10;
+    private static final int BATCH_LOOKUP_TIMEOUT_SECONDS = 10;
+    private static final int MAX_PARALLEL_LOOKUPS = 4;
+    private static final long INTERACTIVE_QUIET_PERIOD_NANOS = Duration.ofSeconds(3).toNanos();
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final double MAX_HEDGE_RATE = 0.1;
+    private static final long MIN_HEDGE_DELAY_NANOS = Duration.ofMillis(50).toNanos();
+    private static final String PAGING_UNAVAILABLE = "The pricebook service doesn't offer more listings.";
 
     private final HttpClient httpClient;
+    private final Executor callbackExecutor;
     private final String baseUrl;
+    private final LocalPriceIndex localIndex;
+    private final PriceHistoryCache historyCache = new PriceHistoryCache();
+    private final ListingPageCache pageCache = new ListingPageCache();
+    private final Map<String, ItemInfo> liveItems = new ConcurrentHashMap<>();
+    private final PriceStreamClient stream;
+    private final boolean hedgeLookups;
+    private final LatencyTracker lookupLatency = new LatencyTracker(LATENCY_SAMPLES, MIN_LATENCY_SAMPLES);
+    private final AtomicInteger lookupsSent = new AtomicInteger();
+    private final AtomicInteger hedgesSent = new AtomicInteger();
+    private volatile Consumer<ItemInfo> priceListener;
+    private final AtomicInteger interactiveInFlight = new AtomicInteger();
+    private volatile boolean batchEndpointAvailable = true;
+    private volatile boolean pagedEndpointAvailable = true;
+    private volatile long lastInteractiveAt = System.nanoTime() - INTERACTIVE_QUIET_PERIOD_NANOS;
+
+    public PricebookQueryService(ModConfig config, LocalPriceIndex localIndex) {
+        this(Objects.requireNonNull(config, "config").apiBaseUrl(), localIndex, config.liveUpdates,
+                config.hedgeLookups);
+    }
 
-    public PricebookQueryService(ModConfig config) {
-        Objects.requireNonNull(config, "config");
+    /**
+     * Points the service at an arbitrary base URL, e.g. a local stand-in server.
+     */
+    public PricebookQueryService(String baseUrl, LocalPriceIndex localIndex, boolean liveUpdates,
+                                 boolean hedgeLookups) {
         this.httpClient = HttpClients.shared();
-        this.baseUrl = config.apiBaseUrl();
+        this.callbackExecutor = HttpClients.callbacks();
+        this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl");
+        this.localIndex = localIndex;
+        this.hedgeLookups = hedgeLookups;
+        this.stream = liveUpdates
+                ? new PriceStreamClient(httpClient, baseUrl, this::applyLiveUpdate, liveItems::clear)
+                : null;
+    }
+
+    /**
+     * Registers the callback for items pushed over the live price stream. It runs on an HTTP
+     * client thread.
+     */
+    public void setPriceListener(Consumer<ItemInfo> listener) {
+        this.priceListener = listener;
+    }
+
+    /**
+     * Keeps the live price stream subscribed to these items for as long as the session lasts.
+     */
+    public void followItems(Collection<String> itemNames) {
+        if (stream != null) {
+            stream.pin(itemNames);
+        }
+    }
+
+    /**
+     * True when price changes for the item arrive over the live stream, so polling it is redundant.
+     */
+    public boolean isLive(String itemName) {
+        return stream != null && stream.isLive(itemName);
+    }
+
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+        liveItems.clear();
     }
 
     public CompletableFuture<ItemLookupResult> lookup(String itemName) {
@@ -44,267 +129,477 @@ public final class PricebookQueryService {
             return CompletableFuture.completedFuture(ItemLookupResult.error("Item name required."));
         }
 
-        String encoded = URLEncoder.encode(trimmed, StandardCharsets.UTF_8);
-        URI uri = URI.create(baseUrl + "/v1/item?item=" + encoded);
+        ItemInfo live = isLive(trimmed) ? liveItems.get(liveKey(trimmed)) : null;
+        if (live != null) {
+            return CompletableFuture.completedFuture(ItemLookupResult.success(live));
+        }
 
-        HttpRequest request = HttpRequest.newBuilder(uri)
-                .timeout(Duration.ofSeconds(ITEM_LOOKUP_TIMEOUT_SECONDS))
-                .header("Accept", "application/json")
-                .GET()
-                .build();
+        HttpRequest request = itemRequest(trimmed).build();
 
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
-                .thenApply(this::parseResponse)
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return interactive(sendLookup(request)
+                .whenCompleteAsync((response, throwable) -> event.observe(response), callbackExecutor)
+                .thenApply(response -> rememberLive(trimmed, parseResponse(trimmed, response)))
+                .thenApply(result -> expireListingPages(trimmed, result))
                 .exceptionally(throwable -> {
                     LOGGER.warn("Failed to lookup item '{}': {}", trimmed, throwable.getMessage());
-                    return ItemLookupResult.error("Failed to reach pricebook service.");
-                });
+                    return lookupLocal(trimmed, "Failed to reach pricebook service.");
+                })
+                .whenComplete((result, throwable) -> event.finish("lookup", trimmed, 1, isServiceAnswer(result))));
     }
 
-    public CompletableFuture<List<String>> fetchCatalog() {
-        URI uri = URI.create(baseUrl + "/v1/items");
-
-        HttpRequest request = HttpRequest.newBuilder(uri)
-                .timeout(Duration.ofSeconds(CATALOG_FETCH_TIMEOUT_SECONDS))
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
-                .thenApply(this::parseCatalog)
-                .exceptionally(throwable -> {
-                    LOGGER.warn("Failed to fetch item catalog: {}", throwable.getMessage());
-                    return Collections.emptyList();
-                });
+    /**
+     * Sends an item lookup, hedging it when enabled: if no answer has arrived by the recent p95
+     * latency, an identical second request goes out, the first response wins and the other is
+     * cancelled. Hedges are capped at {@link #MAX_HEDGE_RATE} of the session's lookups. The
+     * attempts are the client's own futures, so cancelling one aborts its exchange, and a loser
+     * that answers anyway has its body closed.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> sendLookup(HttpRequest request) {
+        lookupsSent.incrementAndGet();
+        CompletableFuture<HttpResponse<InputStream>> primary = timedSend(request);
+        long delay = hedgeLookups ? lookupLatency.percentile(HEDGE_PERCENTILE) : -1;
+        if (delay < 0) {
+            return primary;
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> winner = new CompletableFuture<>();
+        List<CompletableFuture<HttpResponse<InputStream>>> attempts = new CopyOnWriteArrayList<>();
+        attempts.add(primary);
+        AtomicInteger pending = new AtomicInteger(1);
+        race(primary, winner, attempts, pending);
+
+        CompletableFuture.delayedExecutor(Math.max(delay, MIN_HEDGE_DELAY_NANOS), TimeUnit.NANOSECONDS).execute(() -> {
+            if (winner.isDone() || !tryReserveHedge()) {
+                return;
+            }
+            LOGGER.debug("Hedging lookup {} after {} ms", request.uri(), TimeUnit.NANOSECONDS.toMillis(delay));
+            pending.incrementAndGet();
+            CompletableFuture<HttpResponse<InputStream>> hedge = timedSend(request);
+            attempts.add(hedge);
+            race(hedge, winner, attempts, pending);
+            // The primary may have won between the check above and the hedge joining attempts.
+            if (winner.isDone()) {
+                hedge.cancel(true);
+            }
+        });
+        winner.whenComplete((response, throwable) -> {
+            if (winner.isCancelled()) {
+                attempts.forEach(attempt -> attempt.cancel(true));
+            }
+        });
+        return winner;
     }
 
-    private ItemLookupResult parseResponse(HttpResponse<String> response) {
-        String body = validateResponse(response);
-        if (body == null) {
-            return ItemLookupResult.error("No response from pricebook service.");
-        }
+    /**
+     * Sends a lookup and records its latency. Returns the client's future itself rather than a
+     * stage chained onto it, so hedging can cancel the exchange.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> timedSend(HttpRequest request) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> sent =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        sent.thenRun(() -> lookupLatency.record(System.nanoTime() - start));
+        return sent;
+    }
 
-        try {
-            JsonObject root = parseJsonObject(body);
-            if (root == null) {
-                return ItemLookupResult.error("Malformed pricebook payload.");
-            }
+    /**
+     * Sends a request and hands the response over on the mod's HTTP executor, so the parsing
+     * chained onto it runs there rather than on the JDK's common pool.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpRequest request, QueryEvent event) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .whenCompleteAsync((response, throwable) -> event.observe(response), callbackExecutor);
+    }
 
-            if (!isOkResponse(root)) {
-                return ItemLookupResult.error("Item not found. No buyers or sellers yet.");
+    private void race(CompletableFuture<HttpResponse<InputStream>> attempt,
+                      CompletableFuture<HttpResponse<InputStream>> winner,
+                      List<CompletableFuture<HttpResponse<InputStream>>> attempts,
+                      AtomicInteger pending) {
+        attempt.whenComplete((response, throwable) -> {
+            int remaining = pending.decrementAndGet();
+            if (response != null) {
+                if (winner.complete(response)) {
+                    attempts.stream().filter(other -> other != attempt).forEach(other -> other.cancel(true));
+                } else {
+                    closeBody(response);
+                }
+            } else if (remaining == 0) {
+                winner.completeExceptionally(throwable);
             }
+        });
+    }
 
-            String item = getString(root, "item");
-            Instant refreshedAt = parseInstant(getString(root, "refreshedAt"));
-
-            List<Listing> sellers = parseListings(root.getAsJsonArray("topSellers"));
-            List<Listing> buyers = parseListings(root.getAsJsonArray("topBuyers"));
+    private static boolean isServiceAnswer(ItemLookupResult result) {
+        return result != null && result.isSuccess() && !result.offline();
+    }
 
-            if ((item == null || item.isBlank()) && sellers.isEmpty() && buyers.isEmpty()) {
-                return ItemLookupResult.error("Item not found. No buyers or sellers yet.");
+    private boolean tryReserveHedge() {
+        while (true) {
+            int hedges = hedgesSent.get();
+            if (hedges + 1 > MAX_HEDGE_RATE * lookupsSent.get()) {
+                return false;
+            }
+            if (hedgesSent.compareAndSet(hedges, hedges + 1)) {
+                return true;
             }
-
-            ItemInfo info = new ItemInfo(item, refreshedAt, sellers, buyers);
-            return ItemLookupResult.success(info);
-        } catch (RuntimeException ex) {
-            LOGGER.warn("Failed to parse item lookup response: {}", ex.getMessage());
-            return ItemLookupResult.error("Item not found. No buyers or sellers yet.");
         }
     }
 
-    private String getString(JsonObject obj, String key) {
-        if (obj == null || key == null) {
-            return "";
+    /**
+     * Starts following a looked-up item on the live stream. The answer is only cached once the
+     * connection already covers the item; before that a change could slip by unseen.
+     */
+    private ItemLookupResult rememberLive(String itemName, ItemLookupResult result) {
+        if (stream == null || result == null || !result.isSuccess() || result.offline()) {
+            return result;
         }
-        JsonElement element = obj.get(key);
-        if (element == null || element.isJsonNull()) {
-            return "";
+        // Events are keyed by the service's item name, so aliases like "diamonds" aren't cached.
+        String canonical = result.info().itemName();
+        if (canonical == null || !liveKey(canonical).equals(liveKey(itemName))) {
+            return result;
         }
-        try {
-            return element.getAsString();
-        } catch (RuntimeException ignored) {
-            return element.toString();
+        stream.touch(canonical);
+        if (stream.isLive(canonical)) {
+            liveItems.put(liveKey(canonical), result.info());
         }
+        return result;
     }
 
-    private List<Listing> parseListings(JsonArray array) {
-        if (array == null) {
-            return Collections.emptyList();
+    /**
+     * Drops cached listing pages older than the data a lookup just showed, so [More listings]
+     * never pages through an older market than the table above it.
+     */
+    private ItemLookupResult expireListingPages(String itemName, ItemLookupResult result) {
+        if (result != null && result.isSuccess() && !result.offline()) {
+            pageCache.expireOlderThan(itemName, result.info().refreshedAt());
+            pageCache.expireOlderThan(result.info().itemName(), result.info().refreshedAt());
         }
+        return result;
+    }
 
-        List<Listing> result = new ArrayList<>();
-        for (JsonElement element : array) {
-            if (!element.isJsonObject()) {
-                continue;
-            }
-            JsonObject obj = element.getAsJsonObject();
-            try {
-                String owner = getString(obj, "owner");
-                double price = safeDouble(obj, "price");
-                int amount = safeInt(obj, "amount");
-                String dimension = getString(obj, "dimension");
-                Instant lastSeenAt = parseInstant(getString(obj, "lastSeenAt"));
-
-                BlockPos position = null;
-                JsonArray coords = obj.getAsJsonArray("coords");
-                if (coords != null && coords.size() == 3) {
-                    try {
-                        int x = coords.get(0).getAsInt();
-                        int y = coords.get(1).getAsInt();
-                        int z = coords.get(2).getAsInt();
-                        position = new BlockPos(x, y, z);
-                    } catch (RuntimeException ignored) {
-                        position = null;
-                    }
-                }
+    private void applyLiveUpdate(ItemInfo info) {
+        String key = liveKey(info.itemName());
+        if (key.isEmpty()) {
+            return;
+        }
+        liveItems.put(key, info);
+        Consumer<ItemInfo> listener = priceListener;
+        if (listener != null) {
+            listener.accept(info);
+        }
+    }
 
-                WaystoneReference waystone = parseWaystone(obj.get("nearestWaystone"));
-                result.add(new Listing(owner, price, amount, position, dimension, lastSeenAt, waystone));
-            } catch (RuntimeException ignored) {
-                // Skip malformed listing entry
+    private static String liveKey(String itemName) {
+        return itemName == null ? "" : itemName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Looks up several items at once, returning results in the same order as {@code itemNames}.
+     * Uses the batch endpoint when the service offers one and otherwise falls back to individual
+     * lookups with at most {@link #MAX_PARALLEL_LOOKUPS} in flight.
+     */
+    public CompletableFuture<List<ItemLookupResult>> lookupAll(List<String> itemNames) {
+        List<String> names = new ArrayList<>();
+        if (itemNames != null) {
+            for (String name : itemNames) {
+                String trimmed = name == null ? "" : name.trim();
+                if (!trimmed.isEmpty()) {
+                    names.add(trimmed);
+                }
             }
         }
-        return result;
+        if (names.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (names.size() == 1 || !batchEndpointAvailable) {
+            return interactive(lookupEach(names));
+        }
+
+        HttpRequest request = batchRequest(names).build();
+
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return interactive(send(request, event)
+                .thenApply(response -> parseBatchResponse(names, response))
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Batch lookup failed: {}", throwable.getMessage());
+                    return null;
+                })
+                .whenComplete((results, throwable) -> event.finish("batch", names.get(0), names.size(), results != null))
+                .thenCompose(results -> results != null
+                        ? CompletableFuture.completedFuture(results)
+                        : lookupEach(names)));
     }
 
-    private double safeDouble(JsonObject obj, String key) {
-        try {
-            JsonElement element = obj.get(key);
-            if (element == null || element.isJsonNull()) {
-                return 0;
+    /**
+     * Background variant of {@link #lookupAll} for the watchlist. Sends {@code etag} as
+     * {@code If-None-Match} so an unchanged answer costs the service a 304 and no body. Several
+     * names always go out as one batch request; when the service has no batch endpoint the
+     * future completes with {@code null} and callers should poll items one at a time. Also
+     * completes with {@code null} when the service can't be reached, and never falls back to
+     * the local index.
+     */
+    public CompletableFuture<PollResult> pollChanges(List<String> names, String etag) {
+        if (names == null || names.isEmpty() || (names.size() > 1 && !batchEndpointAvailable)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        boolean batch = names.size() > 1;
+        HttpRequest.Builder builder = batch ? batchRequest(names) : itemRequest(names.get(0));
+        if (etag != null && !etag.isBlank()) {
+            builder.header("If-None-Match", etag);
+        }
+
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return send(builder.build(), event)
+                .thenApply(response -> parsePollResponse(names, batch, etag, response))
+                .exceptionally(throwable -> {
+                    LOGGER.debug("Watchlist poll failed: {}", throwable.getMessage());
+                    return null;
+                })
+                .whenComplete((result, throwable) -> event.finish("poll", names.get(0), names.size(), result != null));
+    }
+
+    public boolean supportsBatchLookup() {
+        return batchEndpointAvailable;
+    }
+
+    /**
+     * True while a lookup the player asked for is running or has just finished, so background
+     * polling can stay out of its way.
+     */
+    public boolean isBusy() {
+        return interactiveInFlight.get() > 0
+                || System.nanoTime() - lastInteractiveAt < INTERACTIVE_QUIET_PERIOD_NANOS;
+    }
+
+    private <T> CompletableFuture<T> interactive(CompletableFuture<T> future) {
+        interactiveInFlight.incrementAndGet();
+        lastInteractiveAt = System.nanoTime();
+        return future.whenComplete((result, throwable) -> {
+            lastInteractiveAt = System.nanoTime();
+            interactiveInFlight.decrementAndGet();
+        });
+    }
+
+    private HttpRequest.Builder itemRequest(String itemName) {
+        String encoded = URLEncoder.encode(itemName, StandardCharsets.UTF_8);
+        URI uri = URI.create(baseUrl + "/v1/item?item=" + encoded);
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(ITEM_LOOKUP_TIMEOUT_SECONDS))
+                .header("Accept", "application/json")
+                .GET();
+    }
+
+    private HttpRequest.Builder batchRequest(List<String> names) {
+        JsonObject payload = new JsonObject();
+        JsonArray items = new JsonArray();
+        names.forEach(items::add);
+        payload.add("items", items);
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/v1/items/lookup"))
+                .timeout(Duration.ofSeconds(BATCH_LOOKUP_TIMEOUT_SECONDS))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString(), StandardCharsets.UTF_8));
+    }
+
+    private PollResult parsePollResponse(List<String> names, boolean batch, String sentEtag,
+                                         HttpResponse<InputStream> response) {
+        if (response.statusCode() == 304) {
+            discardBody(response);
+            return new PollResult(List.of(), response.headers().firstValue("ETag").orElse(sentEtag), true);
+        }
+
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        List<ItemLookupResult> results;
+        if (batch) {
+            results = parseBatchResponse(names, response);
+        } else {
+            ItemLookupResult single;
+            try (Reader body = openBody(response)) {
+                single = body == null ? null : PricebookResponseDecoder.decodeItem(body);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
             }
-            return element.getAsDouble();
-        } catch (RuntimeException ignored) {
-            return 0;
+            results = single == null ? null : List.of(single);
         }
+        return results == null ? null : new PollResult(results, etag, false);
     }
 
-    private WaystoneReference parseWaystone(JsonElement element) {
-        if (element == null || element.isJsonNull() || !element.isJsonObject()) {
-            return null;
+    private List<ItemLookupResult> parseBatchResponse(List<String> names, HttpResponse<InputStream> response) {
+        int status = response == null ? 0 : response.statusCode();
+        if (status == 404 || status == 405 || status == 501) {
+            LOGGER.debug("Batch lookup endpoint unavailable (status {}), using individual lookups", status);
+            batchEndpointAvailable = false;
         }
-        JsonObject obj = element.getAsJsonObject();
-        String name = getString(obj, "name");
-        int distanceSq = safeInt(obj, "distanceSq");
 
-        JsonArray posArray = obj.getAsJsonArray("position");
-        if (posArray == null || posArray.size() != 3) {
-            return null;
+        List<ItemLookupResult> decoded;
+        try (Reader body = openBody(response)) {
+            decoded = body == null ? null : PricebookResponseDecoder.decodeBatch(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        try {
-            int x = posArray.get(0).getAsInt();
-            int y = posArray.get(1).getAsInt();
-            int z = posArray.get(2).getAsInt();
-            return new WaystoneReference(name, new BlockPos(x, y, z), distanceSq);
-        } catch (RuntimeException ignored) {
+        if (decoded == null) {
             return null;
         }
+
+        List<ItemLookupResult> results = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            results.add(i < decoded.size()
+                    ? decoded.get(i)
+                    : ItemLookupResult.error("Item not found. No buyers or sellers yet."));
+        }
+        return results;
     }
 
-    private int safeInt(JsonObject obj, String key) {
-        try {
-            JsonElement element = obj.get(key);
-            if (element == null || element.isJsonNull()) {
-                return 0;
-            }
-            return element.getAsInt();
-        } catch (RuntimeException ignored) {
-            return 0;
+    private CompletableFuture<List<ItemLookupResult>> lookupEach(List<String> names) {
+        List<CompletableFuture<ItemLookupResult>> futures = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(MAX_PARALLEL_LOOKUPS, names.size());
+        for (int i = 0; i < workers; i++) {
+            lookupNext(names, futures, next);
         }
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream().map(CompletableFuture::join).toList());
+    }
+
+    private void lookupNext(List<String> names, List<CompletableFuture<ItemLookupResult>> futures, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= names.size()) {
+            return;
+        }
+        lookup(names.get(index)).whenComplete((result, throwable) -> {
+            futures.get(index).complete(result != null
+                    ? result
+                    : ItemLookupResult.error("Failed to reach pricebook service."));
+            lookupNext(names, futures, next);
+        });
+    }
+
+    public CompletableFuture<List<String>> fetchCatalog() {
+        URI uri = URI.create(baseUrl + "/v1/items");
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(CATALOG_FETCH_TIMEOUT_SECONDS))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return send(request, event)
+                .thenApply(this::parseCatalog)
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Failed to fetch item catalog: {}", throwable.getMessage());
+                    return Collections.emptyList();
+                })
+                .whenComplete((names, throwable) -> event.finish("catalog", "", names == null ? 0 : names.size(),
+                        names != null && !names.isEmpty()));
     }
 
-    private List<String> parseCatalog(HttpResponse<String> response) {
-        String body = validateResponse(response);
-        if (body == null) {
-            return Collections.emptyList();
+    private ItemLookupResult parseResponse(String itemName, HttpResponse<InputStream> response) {
+        ItemLookupResult result;
+        try (Reader body = openBody(response)) {
+            result = body == null ? null : PricebookResponseDecoder.decodeItem(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+        return result != null ? result : lookupLocal(itemName, "No response from pricebook service.");
+    }
 
-        List<String> result = new ArrayList<>();
-        try {
-            JsonObject obj = parseJsonObject(body);
-            if (obj == null || !isOkResponse(obj)) {
-                return Collections.emptyList();
-            }
+    private ItemLookupResult lookupLocal(String itemName, String fallbackError) {
+        if (localIndex == null) {
+            return ItemLookupResult.error(fallbackError);
+        }
 
-            JsonArray items = obj.getAsJsonArray("items");
-            if (items == null) {
-                return Collections.emptyList();
-            }
+        return localIndex.lookup(itemName)
+                .map(snapshot -> ItemLookupResult.offline(new ItemInfo(snapshot.item(), snapshot.lastSeenAt(),
+                        toListings(snapshot.topSellers()), toListings(snapshot.topBuyers())), snapshot.version()))
+                .orElseGet(() -> ItemLookupResult.error(fallbackError));
+    }
 
-            for (JsonElement element : items) {
-                if (!element.isJsonObject()) {
-                    continue;
-                }
-                JsonObject item = element.getAsJsonObject();
-                JsonElement nameElement = item.get("name");
-                if (nameElement == null) {
-                    continue;
-                }
-                String name = nameElement.getAsString();
-                if (name == null) {
-                    continue;
-                }
-                String trimmed = name.trim();
-                if (!trimmed.isEmpty()) {
-                    result.add(trimmed);
-                }
-            }
-        } catch (RuntimeException ex) {
-            LOGGER.warn("Failed to parse catalog response: {}", ex.getMessage());
-            return Collections.emptyList();
+    private List<Listing> toListings(List<LocalPriceIndex.ObservedListing> observed) {
+        List<Listing> result = new ArrayList<>(observed.size());
+        for (LocalPriceIndex.ObservedListing entry : observed) {
+            result.add(new Listing(entry.owner(), entry.price(), entry.amount(), entry.position(),
+                    entry.dimension(), entry.seenAt(), null));
         }
         return result;
     }
 
-    private Instant parseInstant(String value) {
-        if (value == null || value.isBlank()) {
-            return Instant.EPOCH;
-        }
-        try {
-            return Instant.parse(value);
-        } catch (RuntimeException ignored) {
-            return Instant.EPOCH;
+    private List<String> parseCatalog(HttpResponse<InputStream> response) {
+        try (Reader body = openBody(response)) {
+            return body == null ? Collections.emptyList() : PricebookResponseDecoder.decodeCatalog(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
     }
 
-    private String validateResponse(HttpResponse<String> response) {
+    /**
+     * Returns a UTF-8 reader over a successful response body, or {@code null} (after releasing
+     * the connection) when the service answered with an error status.
+     */
+    private Reader openBody(HttpResponse<InputStream> response) throws IOException {
         if (response == null) {
             return null;
         }
+        InputStream body = response.body();
         int status = response.statusCode();
         if (status < 200 || status >= 300) {
+            if (body != null) {
+                body.close();
+            }
             return null;
         }
-        String body = response.body();
-        if (body == null || body.isBlank()) {
-            return null;
-        }
-        return body;
+        return body == null ? null : new InputStreamReader(body, StandardCharsets.UTF_8);
     }
 
-    private JsonObject parseJsonObject(String json) {
-        try {
-            JsonElement parsed = JsonParser.parseString(json);
-            if (!parsed.isJsonObject()) {
-                return null;
-            }
-            return parsed.getAsJsonObject();
-        } catch (RuntimeException ex) {
-            return null;
+    /**
+     * Abandons a response nobody will read; closing the stream aborts the exchange.
+     */
+    private static void closeBody(HttpResponse<InputStream> response) {
+        try (InputStream ignored = response.body()) {
+            // Closed by try-with-resources.
+        } catch (IOException ex) {
+            LOGGER.debug("Failed to close abandoned response: {}", ex.getMessage());
         }
     }
 
-    private boolean isOkResponse(JsonObject obj) {
-        return obj != null && obj.has("ok") && obj.get("ok").getAsBoolean();
+    private void discardBody(HttpResponse<InputStream> response) {
+        try (InputStream body = response.body()) {
+            if (body != null) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
-    public record ItemLookupResult(ItemInfo info, String error) {
+    /**
+     * {@code localVersion} identifies the local index state an offline answer was read from, and
+     * is 0 for answers from the service.
+     */
+    public record ItemLookupResult(ItemInfo info, String error, boolean offline, long localVersion) {
         public static ItemLookupResult success(ItemInfo info) {
-            return new ItemLookupResult(info, null);
+            return new ItemLookupResult(info, null, false, 0);
+        }
+
+        public static ItemLookupResult offline(ItemInfo info, long localVersion) {
+            return new ItemLookupResult(info, null, true, localVersion);
         }
 
         public static ItemLookupResult error(String message) {
-            return new ItemLookupResult(null, message);
+            return new ItemLookupResult(null, message, false, 0);
         }
 
         public boolean isSuccess() {
@@ -312,6 +607,13 @@ public final class PricebookQueryService {
         }
     }
 
+    /**
+     * Outcome of {@link #pollChanges}: either fresh results in request order, or
+     * {@code notModified} with no results when the service confirmed nothing changed.
+     */
+    public record PollResult(List<ItemLookupResult> results, String etag, boolean notModified) {
+    }
+
     public record ItemInfo(String itemName, Instant refreshedAt, List<Listing> topSellers,
                            List<Listing> topBuyers) {
     }
@@ -323,6 +625,84 @@ public final class PricebookQueryService {
     public record WaystoneReference(String name, BlockPos position, int distanceSq) {
     }
 
+    /**
+     * Returns page {@code page} (1-based) of the item's sellers and buyers,
+     * {@link #LISTING_PAGE_SIZE} of each. Pages are cached for a minute, and dropped sooner when a
+     * lookup reports a newer {@code refreshedAt} for the item. The next page is prefetched as soon
+     * as this one arrives, so paging forward is usually answered from memory.
+     */
+    public CompletableFuture<ListingPageResult> fetchListingPage(String itemName, int page) {
+        return fetchListingPage(itemName, page, LISTING_PAGE_SIZE);
+    }
+
+    /**
+     * Same as {@link #fetchListingPage(String, int)} with {@code pageSize} listings per side.
+     * Each page size is cached separately.
+     */
+    public CompletableFuture<ListingPageResult> fetchListingPage(String itemName, int page, int pageSize) {
+        String trimmed = itemName == null ? "" : itemName.trim();
+        if (trimmed.isEmpty()) {
+            return CompletableFuture.completedFuture(ListingPageResult.error("Item name required."));
+        }
+        if (page < 1) {
+            return CompletableFuture.completedFuture(ListingPageResult.error("Page numbers start at 1."));
+        }
+        if (!pagedEndpointAvailable) {
+            return CompletableFuture.completedFuture(ListingPageResult.error(PAGING_UNAVAILABLE));
+        }
+
+        int size = Math.max(1, Math.min(MAX_LISTING_PAGE_SIZE, pageSize));
+        return interactive(pageCache.getOrFetch(trimmed, size, page, number -> requestListingPage(trimmed, number, size))
+                .thenApply(result -> {
+                    if (result.isSuccess() && result.page().hasNext()) {
+                        pageCache.getOrFetch(trimmed, size, page + 1, number -> requestListingPage(trimmed, number, size));
+                    }
+                    return result;
+                }));
+    }
+
+    private CompletableFuture<ListingPageResult> requestListingPage(String itemName, int page, int pageSize) {
+        String encoded = URLEncoder.encode(itemName, StandardCharsets.UTF_8);
+        int offset = (page - 1) * pageSize;
+        URI uri = URI.create(baseUrl + "/v1/item/listings?item=" + encoded
+                + "&offset=" + offset + "&limit=" + pageSize);
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(ITEM_LOOKUP_TIMEOUT_SECONDS))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return send(request, event)
+                .thenApply(response -> parseListingPage(page, pageSize, response))
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Failed to fetch page {} of '{}': {}", page, itemName, throwable.getMessage());
+                    return ListingPageResult.error("Failed to reach pricebook service.");
+                })
+                .whenComplete((result, throwable) -> event.finish("listings", itemName, 1,
+                        result != null && result.isSuccess()));
+    }
+
+    private ListingPageResult parseListingPage(int page, int pageSize, HttpResponse<InputStream> response) {
+        int status = response.statusCode();
+        if (status == 404 || status == 405 || status == 501) {
+            LOGGER.debug("Listing page endpoint unavailable (status {})", status);
+            pagedEndpointAvailable = false;
+            closeBody(response);
+            return ListingPageResult.error(PAGING_UNAVAILABLE);
+        }
+
+        ListingPageResult result;
+        try (Reader body = openBody(response)) {
+            result = body == null ? null : PricebookResponseDecoder.decodeListingPage(body, page, pageSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return result != null ? result : ListingPageResult.error("No response from pricebook service.");
+    }
+
     public CompletableFuture<PriceHistoryResult> fetchHistory(String itemName) {
         String trimmed = itemName == null ? "" : itemName.trim();
         if (trimmed.isEmpty()) {
@@ -330,7 +710,9 @@ public final class PricebookQueryService {
         }
 
         String encoded = URLEncoder.encode(trimmed, StandardCharsets.UTF_8);
-        URI uri = URI.create(baseUrl + "/v1/item/history?item=" + encoded);
+        String since = historyCache.latestDate(trimmed);
+        String query = since == null ? "" : "&since=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+        URI uri = URI.create(baseUrl + "/v1/item/history?item=" + encoded + query);
 
         HttpRequest request = HttpRequest.newBuilder(uri)
                 .timeout(Duration.ofSeconds(ITEM_LOOKUP_TIMEOUT_SECONDS))
@@ -338,63 +720,68 @@ public final class PricebookQueryService {
                 .GET()
                 .build();
 
-        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        return interactive(send(request, event)
                 .thenApply(this::parseHistoryResponse)
                 .exceptionally(throwable -> {
                     LOGGER.warn("Failed to fetch history for '{}': {}", trimmed, throwable.getMessage());
                     return PriceHistoryResult.error("Failed to reach pricebook service.");
-                });
+                })
+                .whenComplete((result, throwable) -> event.finish("history", trimmed, 1,
+                        result != null && result.isSuccess()))
+                .thenApply(result -> historyCache.merge(trimmed, result)));
     }
 
-    private PriceHistoryResult parseHistoryResponse(HttpResponse<String> response) {
-        String body = validateResponse(response);
-        if (body == null) {
-            return PriceHistoryResult.error("No response from pricebook service.");
+    private PriceHistoryResult parseHistoryResponse(HttpResponse<InputStream> response) {
+        PriceHistoryResult result;
+        try (Reader body = openBody(response)) {
+            result = body == null ? null : PricebookResponseDecoder.decodeHistory(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+        return result != null ? result : PriceHistoryResult.error("No response from pricebook service.");
+    }
 
-        try {
-            JsonObject root = parseJsonObject(body);
-            if (root == null) {
-                return PriceHistoryResult.error("Malformed pricebook payload.");
-            }
-
-            if (!isOkResponse(root)) {
-                return PriceHistoryResult.error("No history data available.");
-            }
+    public record ListingPageResult(ListingPage page, String error) {
+        public static ListingPageResult success(ListingPage page) {
+            return new ListingPageResult(page, null);
+        }
 
-            String item = getString(root, "item");
-            List<HistoryDay> historyDays = parseHistoryDays(root.getAsJsonArray("history"));
+        public static ListingPageResult error(String message) {
+            return new ListingPageResult(null, message);
+        }
 
-            PriceHistory history = new PriceHistory(item, historyDays);
-            return PriceHistoryResult.success(history);
-        } catch (RuntimeException ex) {
-            LOGGER.warn("Failed to parse history response: {}", ex.getMessage());
-            return PriceHistoryResult.error("No history data available.");
+        public boolean isSuccess() {
+            return page != null;
         }
     }
 
-    private List<HistoryDay> parseHistoryDays(JsonArray array) {
-        if (array == null) {
-            return Collections.emptyList();
+    /**
+     * One page of an item's market. Totals are {@code -1} when the service doesn't report them,
+     * in which case a full page is taken to mean there may be more.
+     */
+    public record ListingPage(String itemName, Instant refreshedAt, int page, int pageSize, List<Listing> sellers,
+                              List<Listing> buyers, int totalSellers, int totalBuyers) {
+        public boolean hasNext() {
+            int shown = page * pageSize;
+            return hasMore(sellers, totalSellers, shown) || hasMore(buyers, totalBuyers, shown);
+        }
+
+        /**
+         * Number of pages when the service reports totals, otherwise {@code -1}.
+         */
+        public int pageCount() {
+            if (totalSellers < 0 || totalBuyers < 0) {
+                return -1;
+            }
+            int total = Math.max(totalSellers, totalBuyers);
+            return Math.max(1, (total + pageSize - 1) / pageSize);
         }
 
-        List<HistoryDay> result = new ArrayList<>();
-        for (JsonElement element : array) {
-            if (!element.isJsonObject()) {
-                continue;
-            }
-            JsonObject obj = element.getAsJsonObject();
-            try {
-                String date = getString(obj, "date");
-                double lowestPrice = safeDouble(obj, "lowestPrice");
-                int stock = safeInt(obj, "stock");
-                int shops = safeInt(obj, "shops");
-                result.add(new HistoryDay(date, lowestPrice, stock, shops));
-            } catch (RuntimeException ignored) {
-                // Skip malformed entry
-            }
+        private boolean hasMore(List<Listing> listings, int total, int shown) {
+            return total >= 0 ? total > shown : listings.size() >= pageSize;
         }
-        return result;
     }
 
     public record PriceHistoryResult(PriceHistory history, String error) {
@@ -411,7 +798,10 @@ public final class PricebookQueryService {
         }
     }
 
-    public record PriceHistory(String itemName, List<HistoryDay> history) {
+    public record PriceHistory(String itemName, List<HistoryDay> history, HistoryInsights insights) {
+    }
+
+    public record HistoryInsights(HistoryDay lowest, HistoryDay highest, boolean fractionalPrices) {
     }
 
     public record HistoryDay(String date, double lowestPrice, int stock, int shops) {
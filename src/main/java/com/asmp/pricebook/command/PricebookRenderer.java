@@ -3,10 +3,15 @@ package com.asmp.pricebook.command;
 import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
 import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
 import com.asmp.pricebook.command.PricebookQueryService.Listing;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPage;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
 import com.asmp.pricebook.command.PricebookQueryService.WaystoneReference;
 import com.asmp.pricebook.command.PricebookQueryService.PriceHistoryResult;
 import com.asmp.pricebook.util.Dimensions;
+import com.asmp.pricebook.util.Loggers;
+import com.asmp.pricebook.util.Workers;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.font.TextRenderer;
 import net.minecraft.client.network.ClientPlayerEntity;
 import net.minecraft.text.ClickEvent;
 import net.minecraft.text.HoverEvent;
@@ -14,6 +19,7 @@ import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
+import org.slf4j.Logger;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -23,16 +29,21 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public final class PricebookRenderer {
+    private static final Logger LOGGER = Loggers.APP;
     static final int MAX_LISTINGS_DISPLAYED = 3;
     static final int STALENESS_THRESHOLD_MINUTES = 60 * 24;
     static final String WAYPOINT_COMMAND_NAME = "pricebook_waypoint";
-    private static final double PRICE_DELTA_EPSILON = 0.0001;
+    static final double PRICE_DELTA_EPSILON = 0.0001;
 
     static final DecimalFormat NUMBER_FORMAT = new DecimalFormat("#,##0",
             DecimalFormatSymbols.getInstance(Locale.ROOT));
@@ -41,14 +52,38 @@ public final class PricebookRenderer {
     private static final DateTimeFormatter HISTORY_DISPLAY_FORMAT = DateTimeFormatter.ofPattern("MM-dd", Locale.ROOT);
     static final String CONTENT_INDENT = "  ";
     static final int MAX_OWNER_DISPLAY_LENGTH = 18;
-    private static final String[] SPACE_GLYPHS = {
-            " ",
-            "\u2000", "\u2001", "\u2002", "\u2003", "\u2004", "\u2005", "\u2006", "\u2007", "\u2008", "\u2009", "\u200A",
-            "\u202F"
-    };
+    private static final WidthProvider FALLBACK_WIDTH_PROVIDER = text -> text.getString().length() * 6;
+    private static volatile CachedMetrics cachedMetrics;
+    private static volatile CachedSpacerTable cachedSpacerTable;
+    private static final AtomicInteger FONT_GENERATION = new AtomicInteger();
+    private static final RenderedResultCache RENDERED_RESULTS = new RenderedResultCache();
+
     @FunctionalInterface
     interface WidthProvider {
         int width(Text text);
+
+        /**
+         * Providers returning the same key measure every text the same, so measurements made
+         * through one can be reused for the other.
+         */
+        default Object metricsKey() {
+            return this;
+        }
+    }
+
+    /**
+     * Client state a chat layout depends on, captured on the client thread so the layout itself
+     * can run on a worker.
+     */
+    record LayoutContext(WidthProvider widthProvider, String playerDimension, int chatWidth, Instant now,
+                         int fontGeneration) {
+        boolean covers(List<String> strings) {
+            return !(widthProvider instanceof FontMetricsSnapshot snapshot) || snapshot.covers(strings);
+        }
+
+        LayoutContext withWidthProvider(WidthProvider provider) {
+            return new LayoutContext(provider, playerDimension, chatWidth, now, fontGeneration);
+        }
     }
 
     static {
@@ -58,42 +93,113 @@ public final class PricebookRenderer {
     private PricebookRenderer() {
     }
 
+    /**
+     * Drops every width measured against the old fonts after a resource reload.
+     */
+    public static void onFontsReloaded() {
+        FONT_GENERATION.incrementAndGet();
+        cachedMetrics = null;
+        cachedSpacerTable = null;
+    }
+
+    static int fontGeneration() {
+        return FONT_GENERATION.get();
+    }
+
+    /**
+     * Returns the font metrics snapshot for the client's text renderer. The snapshot is reused,
+     * and only grows when new characters need measuring, so caches keyed on it survive across
+     * formatting calls. Must run on the client thread.
+     */
     static WidthProvider createWidthProvider() {
-        MinecraftClient client = MinecraftClient.getInstance();
-        if (client == null || client.textRenderer == null) {
-            return text -> text.getString().length() * 6;
-        }
-        return client.textRenderer::getWidth;
+        return widthProviderCovering(List.of());
     }
 
-    public static void deliverResult(ClientPlayerEntity playerRef, ItemLookupResult result) {
+    private static WidthProvider widthProviderCovering(List<String> strings) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client == null || client.textRenderer == null) {
+            return FALLBACK_WIDTH_PROVIDER;
+        }
+        CachedMetrics cached = cachedMetrics;
+        FontMetricsSnapshot snapshot = cached == null || cached.renderer() != client.textRenderer
+                ? FontMetricsSnapshot.capture(client.textRenderer)
+                : cached.snapshot();
+        FontMetricsSnapshot extended = snapshot.extend(client.textRenderer, strings);
+        if (cached == null || cached.snapshot() != extended) {
+            cachedMetrics = new CachedMetrics(client.textRenderer, extended);
+        }
+        return extended;
+    }
+
+    /**
+     * Captures what a chat layout depends on. Must run on the client thread; the result can be
+     * handed to any thread.
+     */
+    static LayoutContext captureLayout(ClientPlayerEntity player) {
+        return new LayoutContext(createWidthProvider(),
+                player == null ? "" : Dimensions.canonical(player.getWorld()),
+                ListingTableFormatter.resolveChatWidth(),
+                Instant.now(),
+                fontGeneration());
+    }
+
+    /**
+     * Sends lines built by one of the {@code layout} methods. Must run on the client thread.
+     */
+    public static void sendLines(ClientPlayerEntity playerRef, List<MutableText> lines) {
         ClientPlayerEntity player = validatePlayer(playerRef);
-        if (player == null) {
+        if (player == null || lines == null) {
             return;
         }
+        for (MutableText line : lines) {
+            player.sendMessage(line, false);
+        }
+    }
 
+    /**
+     * Builds the chat lines for a lookup result on the layout thread.
+     */
+    static CompletableFuture<List<MutableText>> layoutResult(Executor clientThread, LayoutContext context,
+                                                             ItemLookupResult result) {
         if (result == null) {
-            player.sendMessage(prefixed("No response.", Formatting.RED), false);
-            return;
+            return CompletableFuture.completedFuture(List.of(prefixed("No response.", Formatting.RED)));
         }
-
         if (!result.isSuccess()) {
             String message = Objects.requireNonNullElse(result.error(), "Unknown error.");
-            player.sendMessage(prefixed(message, Formatting.RED), false);
-            return;
+            return CompletableFuture.completedFuture(List.of(prefixed(message, Formatting.RED)));
         }
 
         ItemInfo info = result.info();
         if (info == null) {
-            player.sendMessage(prefixed("Unknown error.", Formatting.RED), false);
-            return;
-        }
+            return CompletableFuture.completedFuture(List.of(prefixed("Unknown error.", Formatting.RED)));
+        }
+        List<String> strings = displayedStrings(info.itemName(), info.topSellers(), info.topBuyers());
+        return layout(clientThread, context, strings, ready -> {
+            RenderedResultCache.Key cacheKey = RenderedResultCache.key(ready, result);
+            List<MutableText> lines = cacheKey == null ? null : RENDERED_RESULTS.get(cacheKey);
+            if (lines == null) {
+                lines = buildResultLines(ready, info, result.offline());
+                if (cacheKey != null) {
+                    RENDERED_RESULTS.put(cacheKey, lines);
+                }
+            }
+            return lines;
+        });
+    }
 
+    private static List<MutableText> buildResultLines(LayoutContext context, ItemInfo info, boolean offline) {
+        List<MutableText> lines = new ArrayList<>();
         String itemName = toTitleCase(info.itemName() == null || info.itemName().isBlank() ? "Unknown item" : info.itemName());
 
         MutableText header = Text.literal("┌─ Pricebook ─ ").formatted(Formatting.AQUA)
                 .append(Text.literal(itemName).formatted(Formatting.AQUA));
-        player.sendMessage(header, false);
+        if (offline) {
+            header.append(Text.literal(" (offline)")
+                    .formatted(Formatting.GRAY)
+                    .styled(style -> style.withHoverEvent(new HoverEvent.ShowText(
+                            Text.literal("Service unreachable, showing shops you have scanned")))));
+        }
+        lines.add(header);
 
         List<Listing> sellers = info.topSellers();
         List<Listing> buyers = info.topBuyers();
@@ -102,16 +208,12 @@ public final class PricebookRenderer {
         boolean noBuyers = buyers == null || buyers.isEmpty();
 
         if (noSellers && noBuyers) {
-            player.sendMessage(linePrefix().append(Text.literal("No buyers or sellers yet.").formatted(Formatting.GRAY)), false);
-            return;
+            lines.add(linePrefix().append(Text.literal("No buyers or sellers yet.").formatted(Formatting.GRAY)));
+            return List.copyOf(lines);
         }
 
         DecimalFormat priceFormatter = createPriceFormatter(sellers, buyers);
-
-        List<MutableText> tableLines = ListingTableFormatter.build(player, sellers, buyers, priceFormatter);
-        for (MutableText line : tableLines) {
-            player.sendMessage(line, false);
-        }
+        lines.addAll(ListingTableFormatter.build(context, sellers, buyers, priceFormatter));
 
         MutableText historyLink = Text.literal("└─ ").formatted(Formatting.AQUA)
                 .append(Text.literal("[Price History]")
@@ -120,7 +222,250 @@ public final class PricebookRenderer {
                                 .withClickEvent(new ClickEvent.RunCommand("/pricebook_history " + info.itemName()))
                                 .withHoverEvent(new HoverEvent.ShowText(
                                         Text.literal("Click to view price history")))));
-        player.sendMessage(historyLink, false);
+        // Lookups return more than the table shows, so only a side with rows left over has more to page through.
+        boolean truncated = (!noSellers && sellers.size() > MAX_LISTINGS_DISPLAYED)
+                || (!noBuyers && buyers.size() > MAX_LISTINGS_DISPLAYED);
+        if (!offline && truncated) {
+            historyLink.append(separator()).append(pageLink("[More listings]", info.itemName(), 1));
+        }
+        lines.add(historyLink);
+        return List.copyOf(lines);
+    }
+
+    /**
+     * Builds the chat lines for one page of listings on the layout thread.
+     */
+    static CompletableFuture<List<MutableText>> layoutListingPage(Executor clientThread, LayoutContext context,
+                                                                  String query, ListingPageResult result) {
+        if (result == null) {
+            return CompletableFuture.completedFuture(List.of(prefixed("No response.", Formatting.RED)));
+        }
+        if (!result.isSuccess()) {
+            String message = Objects.requireNonNullElse(result.error(), "Unknown error.");
+            return CompletableFuture.completedFuture(List.of(prefixed(message, Formatting.RED)));
+        }
+
+        ListingPage page = result.page();
+        List<String> strings = displayedStrings(page.itemName(), page.sellers(), page.buyers());
+        return layout(clientThread, context, strings, ready -> buildListingPageLines(ready, query, page));
+    }
+
+    private static List<MutableText> buildListingPageLines(LayoutContext context, String query, ListingPage page) {
+        List<MutableText> lines = new ArrayList<>();
+        String item = page.itemName() == null || page.itemName().isBlank() ? query : page.itemName();
+        int pageCount = page.pageCount();
+        String position = pageCount > 0
+                ? String.format(Locale.ROOT, " (page %d of %d)", page.page(), pageCount)
+                : String.format(Locale.ROOT, " (page %d)", page.page());
+        lines.add(Text.literal("┌─ Pricebook ─ ").formatted(Formatting.AQUA)
+                .append(Text.literal(toTitleCase(item)).formatted(Formatting.AQUA))
+                .append(Text.literal(position).formatted(Formatting.GRAY)));
+
+        if (page.sellers().isEmpty() && page.buyers().isEmpty()) {
+            lines.add(linePrefix().append(Text.literal("No more listings.").formatted(Formatting.GRAY)));
+        } else {
+            DecimalFormat priceFormatter = createPriceFormatter(page.sellers(), page.buyers());
+            lines.addAll(ListingTableFormatter.buildPage(context, page.sellers(), page.buyers(), priceFormatter));
+        }
+
+        MutableText footer = Text.literal("└─").formatted(Formatting.AQUA);
+        boolean linked = false;
+        if (page.page() > 1) {
+            footer.append(Text.literal(" ")).append(pageLink("[◂ Previous]", item, page.page() - 1));
+            linked = true;
+        }
+        if (page.hasNext()) {
+            if (linked) {
+                footer.append(separator());
+            } else {
+                footer.append(Text.literal(" "));
+            }
+            footer.append(pageLink("[Next ▸]", item, page.page() + 1));
+        }
+        lines.add(footer);
+        return lines;
+    }
+
+    private static MutableText pageLink(String label, String itemName, int page) {
+        String command = String.format(Locale.ROOT, "/pb page %d %s", page, itemName);
+        return Text.literal(label)
+                .formatted(Formatting.GRAY)
+                .styled(style -> style
+                        .withClickEvent(new ClickEvent.RunCommand(command))
+                        .withHoverEvent(new HoverEvent.ShowText(Text.literal("Click to view page " + page))));
+    }
+
+    /**
+     * Builds the chat lines for a shopping list on the layout thread.
+     */
+    static CompletableFuture<List<MutableText>> layoutShoppingList(Executor clientThread, LayoutContext context,
+                                                                   List<String> items, List<ItemLookupResult> results) {
+        if (items == null || items.isEmpty() || results == null || results.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of(prefixed("No response.", Formatting.RED)));
+        }
+
+        List<ListingTableFormatter.ShoppingListEntry> entries = new ArrayList<>();
+        List<Listing> cheapestListings = new ArrayList<>();
+        List<String> strings = new ArrayList<>();
+        boolean offline = false;
+        for (int i = 0; i < items.size(); i++) {
+            ItemLookupResult result = i < results.size() ? results.get(i) : null;
+            ItemInfo info = result != null && result.isSuccess() ? result.info() : null;
+            String name = info != null && info.itemName() != null && !info.itemName().isBlank()
+                    ? info.itemName()
+                    : items.get(i);
+            Listing cheapest = info == null ? null : cheapestSeller(info.topSellers());
+            if (cheapest != null) {
+                cheapestListings.add(cheapest);
+                strings.add(cheapest.owner());
+            }
+            entries.add(new ListingTableFormatter.ShoppingListEntry(items.get(i), toTitleCase(name), cheapest));
+            strings.add(toTitleCase(name));
+            offline |= result != null && result.offline();
+        }
+
+        boolean anyOffline = offline;
+        return layout(clientThread, context, strings, ready -> {
+            List<MutableText> lines = new ArrayList<>();
+            MutableText header = Text.literal("┌─ Pricebook ─ Shopping List").formatted(Formatting.AQUA);
+            if (anyOffline) {
+                header.append(Text.literal(" (offline)").formatted(Formatting.GRAY));
+            }
+            lines.add(header);
+
+            DecimalFormat priceFormatter = createPriceFormatter(cheapestListings, List.of());
+            lines.addAll(ListingTableFormatter.buildShoppingList(ready, entries, priceFormatter));
+
+            String summary = String.format(Locale.ROOT, "%d of %d items available", cheapestListings.size(), entries.size());
+            lines.add(Text.literal("└─ ").formatted(Formatting.AQUA)
+                    .append(Text.literal(summary).formatted(Formatting.GRAY)));
+            return lines;
+        });
+    }
+
+    /**
+     * Runs {@code builder} on the layout thread. If the data has characters the context's font
+     * snapshot hasn't measured (rare outside ASCII and Latin-1), they are measured with one hop
+     * to the client thread first.
+     */
+    private static CompletableFuture<List<MutableText>> layout(Executor clientThread, LayoutContext context,
+                                                              List<String> strings,
+                                                              Function<LayoutContext, List<MutableText>> builder) {
+        return CompletableFuture.supplyAsync(() -> context.covers(strings), Workers.layout())
+                .thenCompose(covered -> covered
+                        ? CompletableFuture.completedFuture(context)
+                        : CompletableFuture.supplyAsync(() -> context.withWidthProvider(widthProviderCovering(strings)),
+                        clientThread))
+                .thenApplyAsync(builder, Workers.layout())
+                .exceptionally(throwable -> {
+                    LOGGER.warn("Failed to lay out chat output: {}", throwable.getMessage());
+                    return List.of(prefixed("Failed to display the result.", Formatting.RED));
+                });
+    }
+
+    /**
+     * Text from the service that ends up in measured table cells.
+     */
+    private static List<String> displayedStrings(String itemName, List<Listing> sellers, List<Listing> buyers) {
+        List<String> strings = new ArrayList<>();
+        if (itemName != null) {
+            strings.add(itemName);
+            strings.add(toTitleCase(itemName));
+        }
+        for (List<Listing> listings : Arrays.asList(sellers, buyers)) {
+            if (listings == null) {
+                continue;
+            }
+            for (Listing listing : listings) {
+                if (listing == null) {
+                    continue;
+                }
+                strings.add(listing.owner());
+                strings.add(listing.dimension());
+                if (listing.nearestWaystone() != null) {
+                    strings.add(listing.nearestWaystone().name());
+                }
+            }
+        }
+        return strings;
+    }
+
+    private static Listing cheapestSeller(List<Listing> sellers) {
+        Listing cheapest = null;
+        if (sellers == null) {
+            return null;
+        }
+        for (Listing listing : sellers) {
+            if (listing != null && (cheapest == null || listing.price() < cheapest.price())) {
+                cheapest = listing;
+            }
+        }
+        return cheapest;
+    }
+
+    public static void deliverWatchAlert(ClientPlayerEntity playerRef, PriceWatchlist.Alert alert) {
+        ClientPlayerEntity player = validatePlayer(playerRef);
+        if (player == null || alert == null || alert.listing() == null) {
+            return;
+        }
+
+        Listing listing = alert.listing();
+        DecimalFormat priceFormatter = buildFormatter(listing.price() % 1 != 0 || alert.threshold() % 1 != 0);
+        String itemName = toTitleCase(alert.itemName());
+        String side = alert.direction() == PriceWatchlist.Direction.BELOW ? "selling" : "buying";
+        String owner = listing.owner() == null || listing.owner().isBlank() ? "Someone" : listing.owner();
+
+        MutableText message = prefixed("", null)
+                .append(Text.literal(" " + itemName).formatted(Formatting.GOLD)
+                        .styled(style -> style
+                                .withClickEvent(new ClickEvent.RunCommand("/pb " + alert.itemName()))
+                                .withHoverEvent(new HoverEvent.ShowText(Text.literal("Click to look up")))))
+                .append(Text.literal(": " + owner + " is " + side + " at ").formatted(Formatting.GRAY))
+                .append(Text.literal(priceFormatter.format(listing.price())).formatted(Formatting.GREEN))
+                .append(Text.literal(" (" + alert.direction().label() + " "
+                        + priceFormatter.format(alert.threshold()) + ")").formatted(Formatting.DARK_GRAY));
+        player.sendMessage(message, false);
+    }
+
+    public static void deliverWatchlist(ClientPlayerEntity playerRef, List<PriceWatchlist.WatchedItem> entries) {
+        ClientPlayerEntity player = validatePlayer(playerRef);
+        if (player == null) {
+            return;
+        }
+
+        if (entries == null || entries.isEmpty()) {
+            player.sendMessage(prefixed("Not watching anything. Use /pb watch <item> [below|above <price>].",
+                    Formatting.GRAY), false);
+            return;
+        }
+
+        player.sendMessage(Text.literal("┌─ Pricebook ─ Watchlist").formatted(Formatting.AQUA), false);
+        for (PriceWatchlist.WatchedItem entry : entries) {
+            Double current = entry.direction() == PriceWatchlist.Direction.BELOW ? entry.bestSeller() : entry.bestBuyer();
+            boolean needsDecimals = (entry.threshold() != null && entry.threshold() % 1 != 0)
+                    || (current != null && current % 1 != 0);
+            DecimalFormat priceFormatter = buildFormatter(needsDecimals);
+
+            String condition = entry.threshold() == null
+                    ? entry.direction().label() + " current price"
+                    : entry.direction().label() + " " + priceFormatter.format(entry.threshold());
+            MutableText line = linePrefix()
+                    .append(Text.literal(toTitleCase(entry.item())).formatted(Formatting.WHITE)
+                            .styled(style -> style
+                                    .withClickEvent(new ClickEvent.RunCommand("/pb unwatch " + entry.item()))
+                                    .withHoverEvent(new HoverEvent.ShowText(Text.literal("Click to stop watching")))))
+                    .append(separator())
+                    .append(Text.literal(condition).formatted(Formatting.GRAY));
+            if (current != null) {
+                line.append(separator())
+                        .append(Text.literal("now " + priceFormatter.format(current)).formatted(Formatting.DARK_GRAY));
+            }
+            player.sendMessage(line, false);
+        }
+
+        String summary = String.format(Locale.ROOT, "%d of %d slots used", entries.size(), PriceWatchlist.MAX_WATCHES);
+        player.sendMessage(Text.literal("└─ ").formatted(Formatting.AQUA)
+                .append(Text.literal(summary).formatted(Formatting.GRAY)), false);
     }
 
     public static void sendTestLayout(ClientPlayerEntity playerRef) {
@@ -171,7 +516,7 @@ public final class PricebookRenderer {
         player.sendMessage(header, false);
 
         DecimalFormat priceFormatter = createPriceFormatter(sellers, buyers);
-        for (MutableText line : ListingTableFormatter.build(player, sellers, buyers, priceFormatter)) {
+        for (MutableText line : ListingTableFormatter.build(captureLayout(player), sellers, buyers, priceFormatter)) {
             player.sendMessage(line, false);
         }
 
@@ -196,40 +541,39 @@ public final class PricebookRenderer {
             return;
         }
 
-        PricebookQueryService.PriceHistory history = result.history();
+        PricebookQueryService.PriceHistory history = PriceHistoryCache.prepare(result.history());
         if (history == null) {
             player.sendMessage(prefixed("Unknown error.", Formatting.RED), false);
             return;
         }
 
+        for (MutableText line : buildHistoryLines(history, createWidthProvider())) {
+            player.sendMessage(line, false);
+        }
+    }
+
+    /**
+     * Header plus one aligned row per day, newest first.
+     */
+    static List<MutableText> buildHistoryLines(PricebookQueryService.PriceHistory history, WidthProvider measuredBy) {
+        List<MutableText> lines = new ArrayList<>();
         String itemName = toTitleCase(history.itemName() == null || history.itemName().isBlank() ? "Unknown item" : history.itemName());
 
         MutableText header = Text.literal("┌─ Pricebook History ─ ").formatted(Formatting.AQUA)
                 .append(Text.literal(itemName).formatted(Formatting.AQUA));
-        player.sendMessage(header, false);
+        lines.add(header);
 
-        List<PricebookQueryService.HistoryDay> historyDays = history.history();
-        if (historyDays == null || historyDays.isEmpty()) {
-            player.sendMessage(Text.literal("No price history available.").formatted(Formatting.GRAY), false);
-            return;
-        }
-
-        List<PricebookQueryService.HistoryDay> sanitizedDays = sanitizeHistoryDays(historyDays);
-        if (sanitizedDays.isEmpty()) {
-            player.sendMessage(Text.literal("No price history available.").formatted(Formatting.GRAY), false);
-            return;
+        List<PricebookQueryService.HistoryDay> orderedDays = history.history();
+        if (orderedDays == null || orderedDays.isEmpty()) {
+            lines.add(Text.literal("No price history available.").formatted(Formatting.GRAY));
+            return lines;
         }
 
-        DecimalFormat priceFormatter = createPriceFormatterForHistory(sanitizedDays);
-        HistoryInsights insights = analyzeHistory(sanitizedDays);
-        if (insights == null) {
-            player.sendMessage(Text.literal("No price history available.").formatted(Formatting.GRAY), false);
-            return;
-        }
+        PricebookQueryService.HistoryInsights insights = history.insights();
+        DecimalFormat priceFormatter = buildFormatter(insights.fractionalPrices());
 
-        List<PricebookQueryService.HistoryDay> orderedDays = insights.days();
         int size = orderedDays.size();
-        WidthProvider widthProvider = createWidthProvider();
+        WidthProvider widthProvider = TextWidthCache.session(measuredBy);
         int labelWidth = 0;
         int priceWidth = 0;
         int stockWidth = 0;
@@ -252,65 +596,15 @@ public final class PricebookRenderer {
             boolean isLatest = i == 0;
             MutableText row = buildHistoryRow(day, previous, priceFormatter, insights, isLatest,
                     labelWidth, priceWidth, stockWidth, shopsWidth, widthProvider);
-            player.sendMessage(row, false);
+            lines.add(row);
         }
-    }
-
-    private static List<PricebookQueryService.HistoryDay> sanitizeHistoryDays(List<PricebookQueryService.HistoryDay> historyDays) {
-        List<PricebookQueryService.HistoryDay> filtered = new ArrayList<>();
-        if (historyDays == null) {
-            return filtered;
-        }
-
-        for (PricebookQueryService.HistoryDay day : historyDays) {
-            if (day == null) {
-                continue;
-            }
-            double price = day.lowestPrice();
-            if (Double.isNaN(price) || price <= 0) {
-                continue;
-            }
-            filtered.add(day);
-        }
-
-        filtered.sort((first, second) -> compareHistoryDates(second, first));
-        return filtered;
-    }
-
-    private static HistoryInsights analyzeHistory(List<PricebookQueryService.HistoryDay> days) {
-        if (days == null || days.isEmpty()) {
-            return null;
-        }
-
-        double minPrice = Double.POSITIVE_INFINITY;
-        double maxPrice = Double.NEGATIVE_INFINITY;
-        PricebookQueryService.HistoryDay minDay = null;
-        PricebookQueryService.HistoryDay maxDay = null;
-
-        for (PricebookQueryService.HistoryDay day : days) {
-            double price = day.lowestPrice();
-
-            if (price < minPrice) {
-                minPrice = price;
-                minDay = day;
-            }
-
-            if (price > maxPrice) {
-                maxPrice = price;
-                maxDay = day;
-            }
-        }
-
-        boolean hasRange = minDay != null && maxDay != null && Math.abs(maxPrice - minPrice) >= PRICE_DELTA_EPSILON;
-        return new HistoryInsights(days,
-                hasRange ? minDay : null,
-                hasRange ? maxDay : null);
+        return lines;
     }
 
     private static MutableText buildHistoryRow(PricebookQueryService.HistoryDay day,
                                                PricebookQueryService.HistoryDay previous,
                                                DecimalFormat priceFormatter,
-                                               HistoryInsights insights,
+                                               PricebookQueryService.HistoryInsights insights,
                                                boolean isLatest,
                                                int labelWidth,
                                                int priceWidth,
@@ -431,45 +725,11 @@ public final class PricebookRenderer {
         return null;
     }
 
-    private static int compareHistoryDates(PricebookQueryService.HistoryDay first,
-                                           PricebookQueryService.HistoryDay second) {
-        LocalDate firstDate = parseHistoryDate(first.date());
-        LocalDate secondDate = parseHistoryDate(second.date());
-
-        if (firstDate != null && secondDate != null) {
-            return firstDate.compareTo(secondDate);
-        }
-
-        String firstRaw = first.date() == null ? "" : first.date();
-        String secondRaw = second.date() == null ? "" : second.date();
-        return firstRaw.compareTo(secondRaw);
-    }
-
-    private record HistoryInsights(
-            List<PricebookQueryService.HistoryDay> days,
-            PricebookQueryService.HistoryDay lowest,
-            PricebookQueryService.HistoryDay highest
-    ) {
-    }
-
     static DecimalFormat createPriceFormatter(List<Listing> sellers, List<Listing> buyers) {
         boolean needsDecimals = anyPriceHasDecimals(sellers, buyers);
         return buildFormatter(needsDecimals);
     }
 
-    private static DecimalFormat createPriceFormatterForHistory(List<PricebookQueryService.HistoryDay> historyDays) {
-        boolean needsDecimals = false;
-        if (historyDays != null) {
-            for (PricebookQueryService.HistoryDay day : historyDays) {
-                if (day.lowestPrice() % 1 != 0) {
-                    needsDecimals = true;
-                    break;
-                }
-            }
-        }
-        return buildFormatter(needsDecimals);
-    }
-
     private static boolean anyPriceHasDecimals(List<Listing> sellers, List<Listing> buyers) {
         if (sellers != null) {
             for (Listing listing : sellers) {
@@ -540,33 +800,16 @@ public final class PricebookRenderer {
     }
 
     static MutableText spacer(WidthProvider widthProvider, int pixels) {
-        MutableText filler = Text.empty();
         if (pixels <= 0) {
-            return filler;
-        }
-
-        if (widthProvider == null) {
-            int spaces = Math.max(1, (int) Math.ceil(pixels / 4.0));
-            filler.append(Text.literal(" ".repeat(spaces)));
-            return filler;
+            return Text.empty();
         }
 
-        List<SpaceUnit> units = spaceUnits(widthProvider);
-        if (units.isEmpty()) {
+        SpacerTable table = widthProvider == null ? null : spacerTable(widthProvider);
+        if (table == null) {
             int spaces = Math.max(1, (int) Math.ceil(pixels / 4.0));
-            filler.append(Text.literal(" ".repeat(spaces)));
-            return filler;
-        }
-
-        int generated = 0;
-        while (generated < pixels) {
-            int remaining = pixels - generated;
-            SpaceUnit unit = pickSpaceUnit(units, remaining);
-            filler.append(unit.text.copy());
-            generated += unit.width;
+            return Text.literal(" ".repeat(spaces));
         }
-
-        return filler;
+        return Text.literal(table.fill(pixels));
     }
 
     static int measureWidth(WidthProvider widthProvider, Text text) {
@@ -576,29 +819,13 @@ public final class PricebookRenderer {
         return text.getString().length() * 6;
     }
 
-    private static List<SpaceUnit> spaceUnits(WidthProvider widthProvider) {
-        if (widthProvider == null) {
-            return List.of();
-        }
-        List<SpaceUnit> units = new ArrayList<>();
-        for (String glyph : SPACE_GLYPHS) {
-            Text candidate = Text.literal(glyph);
-            int width = widthProvider.width(candidate);
-            if (width > 0) {
-                units.add(new SpaceUnit(candidate, width));
-            }
+    private static SpacerTable spacerTable(WidthProvider widthProvider) {
+        CachedSpacerTable cached = cachedSpacerTable;
+        if (cached == null || cached.metricsKey() != widthProvider.metricsKey()) {
+            cached = new CachedSpacerTable(widthProvider.metricsKey(), SpacerTable.measure(widthProvider));
+            cachedSpacerTable = cached;
         }
-        units.sort(Comparator.comparingInt(SpaceUnit::width).reversed());
-        return units;
-    }
-
-    private static SpaceUnit pickSpaceUnit(List<SpaceUnit> units, int remaining) {
-        for (SpaceUnit unit : units) {
-            if (unit.width <= remaining) {
-                return unit;
-            }
-        }
-        return units.get(units.size() - 1);
+        return cached.table();
     }
 
     static String truncate(String value, int maxLength) {
@@ -614,7 +841,10 @@ public final class PricebookRenderer {
         return value.substring(0, maxLength - 3) + "...";
     }
 
-    private record SpaceUnit(Text text, int width) {
+    private record CachedMetrics(TextRenderer renderer, FontMetricsSnapshot snapshot) {
+    }
+
+    private record CachedSpacerTable(Object metricsKey, SpacerTable table) {
     }
 
     private static ClientPlayerEntity validatePlayer(ClientPlayerEntity playerRef) {
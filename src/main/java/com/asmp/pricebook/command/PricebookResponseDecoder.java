@@ -0,0 +1,572 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.HistoryDay;
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import com.asmp.pricebook.command.PricebookQueryService.Listing;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPage;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistory;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistoryResult;
+import com.asmp.pricebook.command.PricebookQueryService.WaystoneReference;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams pricebook JSON responses straight into the query records without building a
+ * DOM first. Malformed entries are skipped with the same rules the tree-based parser used.
+ */
+final class PricebookResponseDecoder {
+    private static final String NOT_FOUND = "Item not found. No buyers or sellers yet.";
+    private static final String MALFORMED = "Malformed pricebook payload.";
+    private static final String NO_HISTORY = "No history data available.";
+
+    private PricebookResponseDecoder() {
+    }
+
+    /**
+     * Returns {@code null} when the body is empty so callers can treat it like a missing response.
+     */
+    static ItemLookupResult decodeItem(Reader body) throws IOException {
+        JsonReader in = open(body);
+        try {
+            if (isEmpty(in)) {
+                return null;
+            }
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                return ItemLookupResult.error(MALFORMED);
+            }
+            ItemLookupResult result = readItem(in);
+            requireEnd(in);
+            return result;
+        } catch (MalformedJsonException | EOFException | IllegalStateException | JsonParseException ex) {
+            return ItemLookupResult.error(MALFORMED);
+        }
+    }
+
+    /**
+     * Returns the per-item results in payload order, or {@code null} when the body carries no
+     * {@code results} array.
+     */
+    static List<ItemLookupResult> decodeBatch(Reader body) throws IOException {
+        JsonReader in = open(body);
+        try {
+            if (isEmpty(in) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+
+            List<ItemLookupResult> results = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"results".equals(in.nextName()) || in.peek() != JsonToken.BEGIN_ARRAY) {
+                    in.skipValue();
+                    continue;
+                }
+                results = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        results.add(readItem(in));
+                    } else {
+                        in.skipValue();
+                        results.add(ItemLookupResult.error(NOT_FOUND));
+                    }
+                }
+                in.endArray();
+            }
+            in.endObject();
+            requireEnd(in);
+            return results;
+        } catch (MalformedJsonException | EOFException | IllegalStateException | JsonParseException ex) {
+            return null;
+        }
+    }
+
+    static List<String> decodeCatalog(Reader body) throws IOException {
+        JsonReader in = open(body);
+        try {
+            if (isEmpty(in) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                return Collections.emptyList();
+            }
+
+            boolean ok = false;
+            boolean invalid = false;
+            List<String> names = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "ok" -> ok = readOk(in);
+                    case "items" -> {
+                        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                            in.skipValue();
+                            invalid = true;
+                        } else {
+                            names = new ArrayList<>();
+                            invalid |= !readCatalogItems(in, names);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            requireEnd(in);
+
+            if (!ok || invalid || names == null) {
+                return Collections.emptyList();
+            }
+            return names;
+        } catch (MalformedJsonException | EOFException | IllegalStateException | JsonParseException ex) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns {@code null} when the body is empty so callers can treat it like a missing response.
+     */
+    static PriceHistoryResult decodeHistory(Reader body) throws IOException {
+        JsonReader in = open(body);
+        try {
+            if (isEmpty(in)) {
+                return null;
+            }
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                return PriceHistoryResult.error(MALFORMED);
+            }
+
+            boolean ok = false;
+            boolean invalid = false;
+            String item = "";
+            List<HistoryDay> days = Collections.emptyList();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "ok" -> ok = readOk(in);
+                    case "item" -> item = readString(in);
+                    case "history" -> {
+                        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                            in.skipValue();
+                            invalid = true;
+                        } else {
+                            days = readHistoryDays(in);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            requireEnd(in);
+
+            if (!ok || invalid) {
+                return PriceHistoryResult.error(NO_HISTORY);
+            }
+            return PriceHistoryResult.success(new PriceHistory(item, days, null));
+        } catch (MalformedJsonException | EOFException | IllegalStateException | JsonParseException ex) {
+            return PriceHistoryResult.error(MALFORMED);
+        }
+    }
+
+    /**
+     * Decodes one page of an item's listings. Returns {@code null} when the body is empty.
+     */
+    static ListingPageResult decodeListingPage(Reader body, int page, int pageSize) throws IOException {
+        JsonReader in = open(body);
+        try {
+            if (isEmpty(in)) {
+                return null;
+            }
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                return ListingPageResult.error(MALFORMED);
+            }
+
+            boolean ok = false;
+            boolean invalid = false;
+            String item = "";
+            String refreshedAt = "";
+            List<Listing> sellers = Collections.emptyList();
+            List<Listing> buyers = Collections.emptyList();
+            int totalSellers = -1;
+            int totalBuyers = -1;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                switch (name) {
+                    case "ok" -> ok = readOk(in);
+                    case "item" -> item = readString(in);
+                    case "refreshedAt" -> refreshedAt = readString(in);
+                    case "totalSellers" -> totalSellers = readInt(in);
+                    case "totalBuyers" -> totalBuyers = readInt(in);
+                    case "sellers", "buyers" -> {
+                        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                            in.skipValue();
+                            invalid = true;
+                        } else if (name.equals("sellers")) {
+                            sellers = readListings(in);
+                        } else {
+                            buyers = readListings(in);
+                        }
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            requireEnd(in);
+
+            if (!ok || invalid) {
+                return ListingPageResult.error(NOT_FOUND);
+            }
+            return ListingPageResult.success(new ListingPage(item, parseInstant(refreshedAt), page, pageSize, sellers, buyers,
+                    totalSellers, totalBuyers));
+        } catch (MalformedJsonException | EOFException | IllegalStateException | JsonParseException ex) {
+            return ListingPageResult.error(MALFORMED);
+        }
+    }
+
+    private static JsonReader open(Reader body) {
+        JsonReader in = new JsonReader(body);
+        in.setLenient(true);
+        return in;
+    }
+
+    private static boolean isEmpty(JsonReader in) throws IOException {
+        try {
+            return in.peek() == JsonToken.END_DOCUMENT;
+        } catch (EOFException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Rejects anything but whitespace after the top-level value, as {@code JsonParser.parseString}
+     * did before responses were streamed.
+     */
+    private static void requireEnd(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("Unexpected content after the top-level value");
+        }
+    }
+
+    private static ItemLookupResult readItem(JsonReader in) throws IOException {
+        boolean ok = false;
+        boolean invalid = false;
+        String item = "";
+        String refreshedAt = "";
+        List<Listing> sellers = Collections.emptyList();
+        List<Listing> buyers = Collections.emptyList();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "ok" -> ok = readOk(in);
+                case "item" -> item = readString(in);
+                case "refreshedAt" -> refreshedAt = readString(in);
+                case "topSellers", "topBuyers" -> {
+                    if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                        in.skipValue();
+                        invalid = true;
+                    } else if (name.equals("topSellers")) {
+                        sellers = readListings(in);
+                    } else {
+                        buyers = readListings(in);
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (!ok || invalid) {
+            return ItemLookupResult.error(NOT_FOUND);
+        }
+        if (item.isBlank() && sellers.isEmpty() && buyers.isEmpty()) {
+            return ItemLookupResult.error(NOT_FOUND);
+        }
+        return ItemLookupResult.success(new ItemInfo(item, parseInstant(refreshedAt), sellers, buyers));
+    }
+
+    private static List<Listing> readListings(JsonReader in) throws IOException {
+        List<Listing> result = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            Listing listing = readListing(in);
+            if (listing != null) {
+                result.add(listing);
+            }
+        }
+        in.endArray();
+        return result;
+    }
+
+    /**
+     * Returns {@code null} for entries whose {@code coords} or waystone {@code position} is present
+     * but not an array; those were dropped as malformed before as well.
+     */
+    private static Listing readListing(JsonReader in) throws IOException {
+        String owner = "";
+        double price = 0;
+        int amount = 0;
+        String dimension = "";
+        String lastSeenAt = "";
+        BlockPos position = null;
+        WaystoneReference waystone = null;
+        boolean malformed = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "owner" -> owner = readString(in);
+                case "price" -> price = readDouble(in);
+                case "amount" -> amount = readInt(in);
+                case "dimension" -> dimension = readString(in);
+                case "lastSeenAt" -> lastSeenAt = readString(in);
+                case "coords" -> {
+                    if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                        in.skipValue();
+                        malformed = true;
+                    } else {
+                        position = readBlockPos(in);
+                    }
+                }
+                case "nearestWaystone" -> {
+                    if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                        in.skipValue();
+                        waystone = null;
+                    } else {
+                        WaystoneField field = readWaystone(in);
+                        malformed |= field.malformed();
+                        waystone = field.waystone();
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (malformed) {
+            return null;
+        }
+        return new Listing(owner, price, amount, position, dimension, parseInstant(lastSeenAt), waystone);
+    }
+
+    private static WaystoneField readWaystone(JsonReader in) throws IOException {
+        String name = "";
+        int distanceSq = 0;
+        BlockPos position = null;
+        boolean hasPosition = false;
+        boolean malformed = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "name" -> name = readString(in);
+                case "distanceSq" -> distanceSq = readInt(in);
+                case "position" -> {
+                    if (in.peek() != JsonToken.BEGIN_ARRAY) {
+                        in.skipValue();
+                        malformed = true;
+                    } else {
+                        hasPosition = true;
+                        position = readBlockPos(in);
+                    }
+                }
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (!hasPosition || position == null) {
+            return new WaystoneField(null, malformed);
+        }
+        return new WaystoneField(new WaystoneReference(name, position, distanceSq), malformed);
+    }
+
+    /**
+     * Reads a coordinate triple, returning {@code null} unless it holds exactly three integers.
+     */
+    private static BlockPos readBlockPos(JsonReader in) throws IOException {
+        int[] coords = new int[3];
+        int count = 0;
+        boolean valid = true;
+        in.beginArray();
+        while (in.hasNext()) {
+            Integer value = readStrictInt(in);
+            if (value == null) {
+                valid = false;
+            } else if (count < coords.length) {
+                coords[count] = value;
+            }
+            count++;
+        }
+        in.endArray();
+
+        if (!valid || count != coords.length) {
+            return null;
+        }
+        return new BlockPos(coords[0], coords[1], coords[2]);
+    }
+
+    private static boolean readCatalogItems(JsonReader in, List<String> names) throws IOException {
+        boolean valid = true;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"name".equals(in.nextName())) {
+                    in.skipValue();
+                    continue;
+                }
+                JsonToken token = in.peek();
+                if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN) {
+                    String trimmed = readString(in).trim();
+                    if (!trimmed.isEmpty()) {
+                        names.add(trimmed);
+                    }
+                } else {
+                    in.skipValue();
+                    valid = false;
+                }
+            }
+            in.endObject();
+        }
+        in.endArray();
+        return valid;
+    }
+
+    private static List<HistoryDay> readHistoryDays(JsonReader in) throws IOException {
+        List<HistoryDay> result = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+            String date = "";
+            double lowestPrice = 0;
+            int stock = 0;
+            int shops = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "date" -> date = readString(in);
+                    case "lowestPrice" -> lowestPrice = readDouble(in);
+                    case "stock" -> stock = readInt(in);
+                    case "shops" -> shops = readInt(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            result.add(new HistoryDay(date, lowestPrice, stock, shops));
+        }
+        in.endArray();
+        return result;
+    }
+
+    private static boolean readOk(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case BOOLEAN -> in.nextBoolean();
+            case STRING, NUMBER -> Boolean.parseBoolean(in.nextString());
+            default -> {
+                in.skipValue();
+                yield false;
+            }
+        };
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        return switch (in.peek()) {
+            case STRING, NUMBER -> in.nextString();
+            case BOOLEAN -> String.valueOf(in.nextBoolean());
+            case NULL -> {
+                in.nextNull();
+                yield "";
+            }
+            default -> JsonParser.parseReader(in).toString();
+        };
+    }
+
+    private static double readDouble(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+            in.skipValue();
+            return 0;
+        }
+        try {
+            return Double.parseDouble(in.nextString());
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+
+    private static int readInt(JsonReader in) throws IOException {
+        Integer value = readStrictInt(in);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Mirrors {@code JsonPrimitive.getAsInt()}: numbers truncate, strings must parse exactly.
+     */
+    private static Integer readStrictInt(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.STRING) {
+            try {
+                return Integer.parseInt(in.nextString());
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+        if (token != JsonToken.NUMBER) {
+            in.skipValue();
+            return null;
+        }
+
+        String raw = in.nextString();
+        try {
+            return Integer.parseInt(raw);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return (int) Long.parseLong(raw);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return new BigDecimal(raw).intValue();
+        } catch (NumberFormatException ignored) {
+            return null;
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return Instant.EPOCH;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (RuntimeException ignored) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private record WaystoneField(WaystoneReference waystone, boolean malformed) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.asmp.pricebook.command;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.net.http.HttpResponse;
+
+/**
+ * Flight recorder event spanning one {@link PricebookQueryService} request, from sending it to
+ * having parsed the answer. Answers served from memory don't produce one.
+ */
+@Name("pricebook.Query")
+@Label("Pricebook Query")
+@Category({"Pricebook", "Network"})
+@Description("One request to the pricebook service, including parsing the response")
+@StackTrace(false)
+final class QueryEvent extends Event {
+    @Label("Operation")
+    @Description("lookup, batch, poll, catalog, listings or history")
+    String operation;
+
+    @Label("Item")
+    @Description("Item asked about, or the first of a batch")
+    String item;
+
+    @Label("Items")
+    @Description("Items asked about, or returned by a catalog fetch")
+    int items;
+
+    @Label("Status")
+    @Description("HTTP status, or 0 when no response arrived")
+    int status;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * Notes the status of the response that will be parsed; a hedged lookup sees only the winner.
+     */
+    void observe(HttpResponse<?> response) {
+        status = response == null ? 0 : response.statusCode();
+    }
+
+    void finish(String operation, String item, int items, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.item = item;
+            this.items = items;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import net.minecraft.text.MutableText;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chat lines already built for a lookup result. A repeat {@code /pb} for data the service has
+ * not refreshed re-sends these instead of laying the table out again. The key covers everything
+ * the lines depend on: the data version, chat width, the player's dimension (cross-dimension
+ * tags and waypoint links), which rows are stale, and the font the widths were measured with.
+ * Offline answers also key on the local index version, since a scan that removes a shop can
+ * change the rows without moving the newest {@code lastSeenAt}.
+ */
+final class RenderedResultCache {
+    private static final int MAX_CACHED_RESULTS = 32;
+
+    private final Map<Key, List<MutableText>> linesByKey = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<MutableText>> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+        }
+    };
+
+    /**
+     * Returns {@code null} when the result carries no data version to key on.
+     */
+    static Key key(PricebookRenderer.LayoutContext context, ItemLookupResult result) {
+        ItemInfo info = result.info();
+        Instant refreshedAt = info.refreshedAt();
+        if (refreshedAt == null || refreshedAt.equals(Instant.EPOCH) || info.itemName() == null) {
+            return null;
+        }
+        return new Key(
+                info.itemName().trim().toLowerCase(Locale.ROOT),
+                refreshedAt,
+                result.offline(),
+                result.localVersion(),
+                context.chatWidth(),
+                context.playerDimension(),
+                ListingTableFormatter.staleMask(info.topSellers(), info.topBuyers(), context.now()),
+                context.fontGeneration());
+    }
+
+    synchronized List<MutableText> get(Key key) {
+        return linesByKey.get(key);
+    }
+
+    synchronized void put(Key key, List<MutableText> lines) {
+        linesByKey.put(key, lines);
+    }
+
+    record Key(String item,
+               Instant refreshedAt,
+               boolean offline,
+               long localVersion,
+               int chatWidth,
+               String dimension,
+               long staleMask,
+               int fontGeneration) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.asmp.pricebook.command;
+
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+
+/**
+ * Exact-width padding built from the font's space glyphs. The glyphs are measured once, and a
+ * coin-change table gives, for every pixel width, the fewest glyphs that reach it (or the
+ * nearest width above it when it cannot be hit exactly). Padding strings are memoized per width.
+ */
+final class SpacerTable {
+    private static final String[] SPACE_GLYPHS = {
+            " ",
+            "\u2000", "\u2001", "\u2002", "\u2003", "\u2004", "\u2005", "\u2006", "\u2007", "\u2008", "\u2009", "\u200A",
+            "\u202F"
+    };
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final String[] glyphs;
+    private final int[] glyphWidths;
+    private final int maxGlyphWidth;
+    private int[] counts = new int[0];
+    private int[] lastGlyph = new int[0];
+    private int[] nearestReachable = new int[0];
+    private String[] fills = new String[0];
+
+    private SpacerTable(String[] glyphs, int[] glyphWidths) {
+        this.glyphs = glyphs;
+        this.glyphWidths = glyphWidths;
+        this.maxGlyphWidth = Arrays.stream(glyphWidths).max().orElse(0);
+    }
+
+    /**
+     * Measures each space glyph once. Glyphs of a width already covered are dropped, keeping
+     * the first in {@link #SPACE_GLYPHS} order. Returns {@code null} if no glyph has width.
+     */
+    static SpacerTable measure(PricebookRenderer.WidthProvider widthProvider) {
+        String[] glyphs = new String[SPACE_GLYPHS.length];
+        int[] widths = new int[SPACE_GLYPHS.length];
+        int count = 0;
+        outer:
+        for (String glyph : SPACE_GLYPHS) {
+            int width = widthProvider.width(Text.literal(glyph));
+            if (width <= 0) {
+                continue;
+            }
+            for (int i = 0; i < count; i++) {
+                if (widths[i] == width) {
+                    continue outer;
+                }
+            }
+            glyphs[count] = glyph;
+            widths[count++] = width;
+        }
+        return count == 0 ? null : new SpacerTable(Arrays.copyOf(glyphs, count), Arrays.copyOf(widths, count));
+    }
+
+    /**
+     * Returns the shortest run of space glyphs at least {@code pixels} wide, exact whenever the
+     * available glyph widths can sum to it.
+     */
+    synchronized String fill(int pixels) {
+        if (pixels <= 0) {
+            return "";
+        }
+        ensureCapacity(pixels);
+        String cached = fills[pixels];
+        if (cached == null) {
+            StringBuilder builder = new StringBuilder();
+            int remaining = nearestReachable[pixels];
+            while (remaining > 0) {
+                int glyph = lastGlyph[remaining];
+                builder.append(glyphs[glyph]);
+                remaining -= glyphWidths[glyph];
+            }
+            cached = builder.toString();
+            fills[pixels] = cached;
+        }
+        return cached;
+    }
+
+    private void ensureCapacity(int pixels) {
+        if (pixels < nearestReachable.length) {
+            return;
+        }
+
+        int size = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(pixels) << 1);
+        // The DP runs past the largest request so widths that can only be overshot still resolve.
+        int limit = size + maxGlyphWidth;
+        counts = new int[limit + 1];
+        lastGlyph = new int[limit + 1];
+        Arrays.fill(counts, UNREACHABLE);
+        counts[0] = 0;
+        for (int width = 1; width <= limit; width++) {
+            for (int glyph = 0; glyph < glyphWidths.length; glyph++) {
+                int previous = width - glyphWidths[glyph];
+                if (previous >= 0 && counts[previous] != UNREACHABLE && counts[previous] + 1 < counts[width]) {
+                    counts[width] = counts[previous] + 1;
+                    lastGlyph[width] = glyph;
+                }
+            }
+        }
+
+        nearestReachable = new int[size];
+        int next = limit;
+        while (counts[next] == UNREACHABLE) {
+            next--;
+        }
+        for (int width = limit; width >= 0; width--) {
+            if (counts[width] != UNREACHABLE) {
+                next = width;
+            }
+            if (width < size) {
+                nearestReachable[width] = next;
+            }
+        }
+        fills = Arrays.copyOf(fills, size);
+    }
+}
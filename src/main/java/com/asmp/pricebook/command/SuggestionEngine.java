@@ -0,0 +1,90 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.util.Workers;
+import com.mojang.brigadier.LiteralMessage;
+import com.mojang.brigadier.Message;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes item suggestions on the worker thread. Keeps the full match set of the previous
+ * query so that typing another character only re-checks those matches, and drops work for
+ * inputs the player has already typed past.
+ *
+ * <p>Suggestions go out in rank order instead of through {@link SuggestionsBuilder#build()},
+ * which sorts them alphabetically. Brigadier keeps that order when the item argument is the only
+ * child of its node ({@code /pricebook_history}, {@code /pb watch}, {@code browse}, {@code page},
+ * {@code list}). Under {@code /pb <item>} it merges them with the subcommand literals and sorts
+ * again, and the chat screen always lists names starting with the word being typed first. So
+ * usage always decides which names make the cut but not always where they appear; each used
+ * item's tooltip shows its recent lookups either way.
+ */
+final class SuggestionEngine {
+    private final AtomicInteger generation = new AtomicInteger();
+    private ItemSearchIndex cachedIndex;
+    private String cachedQuery;
+    private int[] cachedMatches;
+
+    CompletableFuture<Suggestions> suggest(ItemSearchIndex index, SuggestionsBuilder builder, int limit) {
+        int ticket = generation.incrementAndGet();
+        String query = builder.getRemaining().toLowerCase(Locale.ROOT);
+        return CompletableFuture.supplyAsync(() -> {
+            if (ticket != generation.get()) {
+                return Suggestions.empty().join();
+            }
+            List<String> names = compute(index, query, limit);
+            if (ticket != generation.get()) {
+                return Suggestions.empty().join();
+            }
+            return ranked(index, builder, names);
+        }, Workers.background());
+    }
+
+    private static Suggestions ranked(ItemSearchIndex index, SuggestionsBuilder builder, List<String> names) {
+        if (names.isEmpty()) {
+            return builder.build();
+        }
+        StringRange range = StringRange.between(builder.getStart(), builder.getInput().length());
+        List<Suggestion> suggestions = new ArrayList<>(names.size());
+        for (String name : names) {
+            suggestions.add(new Suggestion(range, name, usageTooltip(index.recentLookups(name))));
+        }
+        return new Suggestions(range, suggestions);
+    }
+
+    private static Message usageTooltip(int lookups) {
+        if (lookups <= 0) {
+            return null;
+        }
+        return new LiteralMessage(lookups == 1 ? "Looked up recently" : "Looked up " + lookups + " times recently");
+    }
+
+    /**
+     * Only ever runs on the single worker thread, so the cache needs no locking.
+     */
+    private List<String> compute(ItemSearchIndex index, String query, int limit) {
+        if (query.isBlank()) {
+            return index.head(limit);
+        }
+
+        int[] matches;
+        if (index == cachedIndex && cachedQuery != null && query.startsWith(cachedQuery)) {
+            matches = query.equals(cachedQuery) ? cachedMatches : index.narrow(cachedMatches, query);
+        } else {
+            matches = index.match(query);
+        }
+        cachedIndex = index;
+        cachedQuery = query;
+        cachedMatches = matches;
+
+        return matches.length > 0 ? index.top(query, matches, limit) : index.closest(query, limit);
+    }
+}
@@ -0,0 +1,44 @@
+package com.asmp.pricebook.command;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one {@link ListingTableFormatter} build, covering measuring,
+ * column fitting and building the chat lines.
+ */
+@Name("pricebook.TableLayout")
+@Label("Chat Table Layout")
+@Category({"Pricebook", "Rendering"})
+@Description("Layout of one pricebook chat table")
+@StackTrace(false)
+final class TableLayoutEvent extends Event {
+    @Label("Table")
+    @Description("listings, page or shopping list")
+    String table;
+
+    @Label("Rows")
+    @Description("Listings or shopping list entries given to the layout")
+    int rows;
+
+    @Label("Lines")
+    int lines;
+
+    @Label("Chat Width")
+    int chatWidth;
+
+    void finish(String table, int rows, int lines, int chatWidth) {
+        end();
+        if (shouldCommit()) {
+            this.table = table;
+            this.rows = rows;
+            this.lines = lines;
+            this.chatWidth = chatWidth;
+            commit();
+        }
+    }
+}
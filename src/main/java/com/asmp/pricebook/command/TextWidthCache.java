@@ -0,0 +1,108 @@
+package com.asmp.pricebook.command;
+
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Memoizing {@link PricebookRenderer.WidthProvider} for one layout pass. Texts are keyed by
+ * their flattened (string, style) segments, so a padded cell, its trimmed variants and the
+ * composed row are each measured once per pass. Single-segment texts (prices, dimension names,
+ * separators, labels) are also kept in a small cache shared across passes, which is dropped
+ * when the font changes.
+ */
+final class TextWidthCache implements PricebookRenderer.WidthProvider {
+    private static final int SHARED_CAPACITY = 512;
+    private static final Map<Segment, Integer> SHARED = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Segment, Integer> eldest) {
+            return size() > SHARED_CAPACITY;
+        }
+    };
+    private static Object sharedOwner;
+    private static int sharedGeneration;
+
+    private final PricebookRenderer.WidthProvider delegate;
+    private final Map<Object, Integer> widths = new HashMap<>();
+
+    private TextWidthCache(PricebookRenderer.WidthProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Wraps {@code delegate} for one formatter session; {@code null} stays {@code null} so
+     * callers keep their unmeasured fallbacks.
+     */
+    static PricebookRenderer.WidthProvider session(PricebookRenderer.WidthProvider delegate) {
+        if (delegate == null || delegate instanceof TextWidthCache) {
+            return delegate;
+        }
+        return new TextWidthCache(delegate);
+    }
+
+    @Override
+    public int width(Text text) {
+        List<Segment> segments = segments(text);
+        Object key = segments.size() == 1 ? segments.get(0) : segments;
+        Integer cached = widths.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int width = key instanceof Segment segment ? sharedWidth(segment, text) : delegate.width(text);
+        widths.put(key, width);
+        return width;
+    }
+
+    @Override
+    public Object metricsKey() {
+        return delegate.metricsKey();
+    }
+
+    private int sharedWidth(Segment segment, Text text) {
+        if (delegate instanceof FontMetricsSnapshot snapshot && !snapshot.covers(List.of(segment.text()))) {
+            // Measured with the fallback advance; a later snapshot of the same lineage will know better.
+            return delegate.width(text);
+        }
+        int generation = PricebookRenderer.fontGeneration();
+        synchronized (SHARED) {
+            if (sharedOwner != delegate.metricsKey() || sharedGeneration != generation) {
+                SHARED.clear();
+                sharedOwner = delegate.metricsKey();
+                sharedGeneration = generation;
+            }
+            Integer cached = SHARED.get(segment);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        int width = delegate.width(text);
+        synchronized (SHARED) {
+            if (sharedOwner == delegate.metricsKey() && sharedGeneration == generation) {
+                SHARED.put(segment, width);
+            }
+        }
+        return width;
+    }
+
+    private static List<Segment> segments(Text text) {
+        List<Segment> segments = new ArrayList<>(4);
+        text.visit((style, string) -> {
+            if (!string.isEmpty()) {
+                segments.add(new Segment(string, style));
+            }
+            return Optional.empty();
+        }, Style.EMPTY);
+        return segments.isEmpty() ? List.of(new Segment("", Style.EMPTY)) : segments;
+    }
+
+    private record Segment(String text, Style style) {
+    }
+}
@@ -26,6 +26,9 @@ public final class ModConfig {
     public String senderId = "";
     public String apiBaseUrl = DEFAULT_API_BASE_URL;
     public boolean enabled = true;
+    public boolean liveUpdates = false;
+    public boolean hedgeLookups = false;
+    public boolean captureChunks = false;
 
     public static ModConfig load() {
         if (!Files.exists(CONFIG_PATH)) {
@@ -9,6 +9,7 @@ import net.minecraft.text.Text;
 public final class PricebookConfigScreen extends Screen {
     private final Screen parent;
     private ButtonWidget enabledButton;
+    private ButtonWidget liveUpdatesButton;
 
     public PricebookConfigScreen(Screen parent) {
         super(Text.literal("Pricebook ASMP Settings"));
@@ -27,8 +28,13 @@ public final class PricebookConfigScreen extends Screen {
                 .build();
         addDrawableChild(this.enabledButton);
 
+        this.liveUpdatesButton = ButtonWidget.builder(liveUpdatesLabel(), button -> toggleLiveUpdates())
+                .dimensions(centerX - (buttonWidth / 2), y + 24, buttonWidth, buttonHeight)
+                .build();
+        addDrawableChild(this.liveUpdatesButton);
+
         addDrawableChild(ButtonWidget.builder(Text.translatable("gui.done"), button -> close())
-                .dimensions(centerX - (buttonWidth / 2), y + 32, buttonWidth, buttonHeight)
+                .dimensions(centerX - (buttonWidth / 2), y + 56, buttonWidth, buttonHeight)
                 .build());
     }
 
@@ -55,6 +61,22 @@ public final class PricebookConfigScreen extends Screen {
         }
     }
 
+    private void toggleLiveUpdates() {
+        ModConfig config = Pricebook.config();
+        config.liveUpdates = !config.liveUpdates;
+        config.save();
+        Pricebook.onConfigUpdated();
+        if (this.liveUpdatesButton != null) {
+            this.liveUpdatesButton.setMessage(liveUpdatesLabel());
+        }
+    }
+
+    private Text liveUpdatesLabel() {
+        return Pricebook.config().liveUpdates
+                ? Text.literal("Live Updates: ON")
+                : Text.literal("Live Updates: OFF");
+    }
+
     private Text enabledLabel() {
         return Pricebook.config().enabled
                 ? Text.literal("Enabled: ON")
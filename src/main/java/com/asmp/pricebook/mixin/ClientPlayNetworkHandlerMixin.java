@@ -1,6 +1,7 @@
 package com.asmp.pricebook.mixin;
 
 import com.asmp.pricebook.Pricebook;
+import com.asmp.pricebook.scanner.ChunkCaptureWriter;
 import com.asmp.pricebook.scanner.ShopScanner;
 import net.minecraft.client.network.ClientPlayNetworkHandler;
 import net.minecraft.client.world.ClientWorld;
@@ -33,6 +34,11 @@ public abstract class ClientPlayNetworkHandlerMixin {
             return;
         }
         scanner.scanChunk(world, chunk);
+
+        ChunkCaptureWriter capture = Pricebook.chunkCapture();
+        if (capture != null) {
+            capture.record(world, chunk);
+        }
     }
 
     @Inject(method = "onGameJoin", at = @At("TAIL"))
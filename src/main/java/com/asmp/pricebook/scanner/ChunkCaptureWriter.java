@@ -0,0 +1,268 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.util.Dimensions;
+import com.asmp.pricebook.util.Loggers;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.SignBlockEntity;
+import net.minecraft.command.argument.BlockArgumentParser;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records every chunk the scanner sees to a compact file, so a real join burst can be replayed
+ * offline through {@link ShopScanner} (see the {@code replayCapture} Gradle task). The client
+ * thread only copies each section's paletted container (a small palette and packed indices) as
+ * the chunk arrives; expanding blocks, encoding, compression and disk writes happen on a
+ * dedicated thread. At most {@link #MAX_QUEUED_CHUNKS} chunks wait for that thread. Chunks
+ * arriving while it is that far behind are dropped uncopied and counted in the closing log line.
+ *
+ * <p>Format (gzip): a header ({@link #MAGIC}, {@link #VERSION}), then one record per chunk and
+ * an {@link #END} marker. A chunk record holds the time since capture start, dimension, position
+ * and height range, any block states not seen earlier in the file (as block state strings),
+ * each non-empty section as a palette of state ids plus 4096 palette indices, and the chunk's
+ * block entities with sign text where present.
+ */
+public final class ChunkCaptureWriter implements AutoCloseable {
+    private static final Logger LOGGER = Loggers.APP;
+    static final int MAGIC = 0x50424350;
+    static final int VERSION = 1;
+    static final int CHUNK = 1;
+    static final int END = 0;
+    static final int SECTION_VOLUME = 16 * 16 * 16;
+    private static final int MAX_QUEUED_CHUNKS = 256;
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+    private final Path path;
+    private final DataOutputStream out;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pricebook-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Reference2IntOpenHashMap<BlockState> stateIds = new Reference2IntOpenHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final long startedAt = System.nanoTime();
+    private int chunks;
+    // Only touched on the client thread, like record() and close().
+    private int dropped;
+    private boolean failed;
+
+    private ChunkCaptureWriter(Path path, DataOutputStream out) {
+        this.path = path;
+        this.out = out;
+        stateIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Starts a new capture file in {@code directory}, or returns {@code null} if it cannot be created.
+     */
+    public static ChunkCaptureWriter open(Path directory) {
+        Path path = directory.resolve("chunks-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".pbcap");
+        try {
+            Files.createDirectories(directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(path), 1 << 16)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            LOGGER.info("Capturing scanned chunks to {}", path);
+            return new ChunkCaptureWriter(path, out);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to start chunk capture at {}: {}", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Copies the chunk as the scanner sees it, or drops it when the writer is too far behind.
+     * Must run on the client thread.
+     */
+    public void record(World world, WorldChunk chunk) {
+        if (world == null || chunk == null) {
+            return;
+        }
+        if (queued.incrementAndGet() > MAX_QUEUED_CHUNKS) {
+            queued.decrementAndGet();
+            dropped++;
+            return;
+        }
+
+        long elapsed = System.nanoTime() - startedAt;
+        ChunkSection[] sections = chunk.getSectionArray();
+        @SuppressWarnings("unchecked")
+        PalettedContainer<BlockState>[] states = new PalettedContainer[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            ChunkSection section = sections[i];
+            if (section != null && !section.isEmpty()) {
+                states[i] = section.getBlockStateContainer().copy();
+            }
+        }
+
+        List<CapturedBlockEntity> blockEntities = new ArrayList<>();
+        for (Map.Entry<BlockPos, BlockEntity> entry : chunk.getBlockEntities().entrySet()) {
+            String[] lines = entry.getValue() instanceof SignBlockEntity sign ? ShopSignParser.readLines(sign) : null;
+            blockEntities.add(new CapturedBlockEntity(entry.getKey().asLong(), lines));
+        }
+
+        CapturedChunk captured = new CapturedChunk(elapsed, Dimensions.canonical(world), chunk.getPos(),
+                world.getBottomY(), world.getHeight(), states, blockEntities);
+        writer.execute(() -> {
+            queued.decrementAndGet();
+            write(captured);
+        });
+    }
+
+    private void write(CapturedChunk chunk) {
+        if (failed) {
+            return;
+        }
+        try {
+            List<BlockState> newStates = new ArrayList<>();
+            int[][] sectionIds = new int[chunk.sections().length][];
+            for (int i = 0; i < chunk.sections().length; i++) {
+                PalettedContainer<BlockState> section = chunk.sections()[i];
+                if (section == null) {
+                    continue;
+                }
+                int[] ids = new int[SECTION_VOLUME];
+                for (int index = 0; index < SECTION_VOLUME; index++) {
+                    BlockState state = section.get(index & 15, index >> 8, (index >> 4) & 15);
+                    int id = stateIds.getInt(state);
+                    if (id < 0) {
+                        id = stateIds.size();
+                        stateIds.put(state, id);
+                        newStates.add(state);
+                    }
+                    ids[index] = id;
+                }
+                sectionIds[i] = ids;
+            }
+
+            out.writeByte(CHUNK);
+            out.writeLong(chunk.elapsedNanos());
+            out.writeUTF(chunk.dimension());
+            out.writeInt(chunk.pos().x);
+            out.writeInt(chunk.pos().z);
+            out.writeInt(chunk.bottomY());
+            out.writeInt(chunk.height());
+
+            out.writeInt(newStates.size());
+            for (BlockState state : newStates) {
+                out.writeUTF(BlockArgumentParser.stringifyBlockState(state));
+            }
+
+            int nonEmpty = 0;
+            for (int[] ids : sectionIds) {
+                nonEmpty += ids == null ? 0 : 1;
+            }
+            out.writeShort(nonEmpty);
+            for (int i = 0; i < sectionIds.length; i++) {
+                if (sectionIds[i] != null) {
+                    out.writeShort(i);
+                    writeSection(sectionIds[i]);
+                }
+            }
+
+            out.writeInt(chunk.blockEntities().size());
+            for (CapturedBlockEntity blockEntity : chunk.blockEntities()) {
+                out.writeLong(blockEntity.pos());
+                out.writeBoolean(blockEntity.signLines() != null);
+                if (blockEntity.signLines() != null) {
+                    out.writeByte(blockEntity.signLines().length);
+                    for (String line : blockEntity.signLines()) {
+                        out.writeUTF(line);
+                    }
+                }
+            }
+            chunks++;
+        } catch (IOException ex) {
+            failed = true;
+            LOGGER.warn("Chunk capture to {} stopped: {}", path, ex.getMessage());
+        }
+    }
+
+    /**
+     * Section palette (file-wide state ids), then one index per block: a byte while the palette
+     * fits in one, a short otherwise.
+     */
+    private void writeSection(int[] ids) throws IOException {
+        Int2IntOpenHashMap palette = new Int2IntOpenHashMap();
+        palette.defaultReturnValue(-1);
+        IntArrayList order = new IntArrayList();
+        for (int id : ids) {
+            if (palette.putIfAbsent(id, order.size()) == -1) {
+                order.add(id);
+            }
+        }
+        out.writeShort(order.size());
+        for (int i = 0; i < order.size(); i++) {
+            out.writeInt(order.getInt(i));
+        }
+        boolean wide = order.size() > 256;
+        for (int id : ids) {
+            int index = palette.get(id);
+            if (wide) {
+                out.writeShort(index);
+            } else {
+                out.writeByte(index);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        int droppedChunks = dropped;
+        writer.execute(() -> {
+            try {
+                out.writeByte(END);
+                out.close();
+                LOGGER.info("Captured {} chunks to {}", chunks, path);
+                if (droppedChunks > 0) {
+                    LOGGER.warn("Dropped {} chunks from {} while its writer was behind", droppedChunks, path);
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to finish chunk capture {}: {}", path, ex.getMessage());
+            }
+        });
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warn("Chunk capture {} did not finish writing in time", path);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record CapturedChunk(long elapsedNanos, String dimension, ChunkPos pos, int bottomY, int height,
+                                 PalettedContainer<BlockState>[] sections, List<CapturedBlockEntity> blockEntities) {
+    }
+
+    private record CapturedBlockEntity(long pos, String[] signLines) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.asmp.pricebook.scanner;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Flight recorder event for one {@link ShopScanner} pass over a chunk, so scan spikes can be
+ * lined up against frame times. Fields are only filled in when a recording wants the event.
+ */
+@Name("pricebook.ChunkScan")
+@Label("Chunk Scan")
+@Category({"Pricebook", "Scanner"})
+@Description("Shop sign and waystone scan of one chunk")
+@StackTrace(false)
+final class ChunkScanEvent extends Event {
+    @Label("Dimension")
+    String dimension;
+
+    @Label("Chunk X")
+    int chunkX;
+
+    @Label("Chunk Z")
+    int chunkZ;
+
+    @Label("Shop Signs")
+    int shopSigns;
+
+    @Label("Waystones")
+    int waystones;
+
+    @Label("Outcome")
+    @Description("unchanged, skipped (empty and unknown to the server) or sent")
+    String outcome;
+
+    void finish(String dimension, ChunkPos pos, int shopSigns, int waystones, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.dimension = dimension;
+            this.chunkX = pos.x;
+            this.chunkZ = pos.z;
+            this.shopSigns = shopSigns;
+            this.waystones = waystones;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
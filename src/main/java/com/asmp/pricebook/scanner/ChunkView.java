@@ -0,0 +1,65 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.SignBlockEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * What the shop scanner reads from a chunk. In game this is a loaded {@link WorldChunk}; the
+ * benchmarks supply synthetic chunks so scanning can be measured without a running client.
+ */
+interface ChunkView {
+    ChunkPos pos();
+
+    int bottomY();
+
+    int height();
+
+    BlockState getBlockState(BlockPos pos);
+
+    Iterable<BlockPos> blockEntityPositions();
+
+    /**
+     * Front text of the sign at {@code pos}, or {@code null} when there is no sign there.
+     */
+    String[] signLines(BlockPos pos);
+
+    static ChunkView of(World world, WorldChunk chunk) {
+        return new Loaded(world, chunk);
+    }
+
+    record Loaded(World world, WorldChunk chunk) implements ChunkView {
+        @Override
+        public ChunkPos pos() {
+            return chunk.getPos();
+        }
+
+        @Override
+        public int bottomY() {
+            return world.getBottomY();
+        }
+
+        @Override
+        public int height() {
+            return world.getHeight();
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            return chunk.getBlockState(pos);
+        }
+
+        @Override
+        public Iterable<BlockPos> blockEntityPositions() {
+            return chunk.getBlockEntityPositions();
+        }
+
+        @Override
+        public String[] signLines(BlockPos pos) {
+            return world.getBlockEntity(pos) instanceof SignBlockEntity sign ? ShopSignParser.readLines(sign) : null;
+        }
+    }
+}
@@ -21,29 +21,40 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
-public final class HttpScanTransport {
+public final class HttpScanTransport implements ScanTransport {
     private static final Logger LOGGER = Loggers.APP;
     private static final int REQUEST_TIMEOUT_SECONDS = 10;
 
     private final HttpClient httpClient;
+    private final Executor callbackExecutor;
     private final String baseUrl;
     private final URI scanEndpoint;
     private final URI waystoneEndpoint;
     private final Set<ChunkCoordinate> serverKnownChunks = ConcurrentHashMap.newKeySet();
 
     public HttpScanTransport(ModConfig config) {
-        Objects.requireNonNull(config, "config");
+        this(Objects.requireNonNull(config, "config").apiBaseUrl());
+    }
+
+    /**
+     * Points the transport at an arbitrary base URL, e.g. a local stand-in server.
+     */
+    public HttpScanTransport(String baseUrl) {
         this.httpClient = HttpClients.shared();
-        this.baseUrl = config.apiBaseUrl();
+        this.callbackExecutor = HttpClients.callbacks();
+        this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl");
         this.scanEndpoint = URI.create(baseUrl + "/v1/scan");
         this.waystoneEndpoint = URI.create(baseUrl + "/v1/scan-waystone");
         LOGGER.debug("Initialized HttpScanTransport with baseUrl={}", baseUrl);
     }
 
-    public void sendScan(String senderId, String dimension, ChunkPos pos,
-                         List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+    @Override
+    public CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                               List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
         ChunkCoordinate coordinate = new ChunkCoordinate(dimension, pos.x, pos.z);
         boolean empty = shops.isEmpty() && waystones.isEmpty();
         if (!empty) {
@@ -59,8 +70,14 @@ public final class HttpScanTransport {
                 .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
                 .build();
 
-        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
-                .whenComplete((response, throwable) -> handleSendResult(coordinate, empty, response, throwable));
+        ScanUploadEvent event = new ScanUploadEvent();
+        event.begin();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .handleAsync((response, throwable) -> {
+                    boolean accepted = handleSendResult(coordinate, empty, response, throwable);
+                    event.finish(coordinate, payload, response, accepted);
+                    return accepted;
+                }, callbackExecutor);
     }
 
     public void sendWaystoneScan(String senderId, String dimension, ChunkPos chunkPos, BlockPos position,
@@ -85,24 +102,29 @@ public final class HttpScanTransport {
         httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding());
     }
 
-    public void bootstrap() {
+    /**
+     * Fetches the chunks the server holds shops for. The future completes once they are known,
+     * or once fetching them has failed.
+     */
+    public CompletableFuture<Void> bootstrap() {
         LOGGER.debug("Bootstrapping transport: fetching known chunks from server");
-        fetchChunksPage();
+        return fetchChunksPage();
     }
 
     public void clear() {
         serverKnownChunks.clear();
     }
 
+    @Override
     public boolean shouldTransmitEmpty(String dimension, ChunkPos pos) {
         return serverKnownChunks.contains(new ChunkCoordinate(dimension, pos.x, pos.z));
     }
 
-    private void handleSendResult(ChunkCoordinate coordinate, boolean empty,
-                                  HttpResponse<String> response, Throwable throwable) {
+    private boolean handleSendResult(ChunkCoordinate coordinate, boolean empty,
+                                     HttpResponse<String> response, Throwable throwable) {
         if (throwable != null) {
             LOGGER.warn("Failed to send scan for chunk {}: {}", coordinate, throwable.getMessage());
-            return;
+            return false;
         }
 
         int status = response.statusCode();
@@ -113,14 +135,15 @@ public final class HttpScanTransport {
             } else {
                 serverKnownChunks.add(coordinate);
             }
-            return;
+            return true;
         }
 
         LOGGER.warn("Scan request failed for chunk {} with status {}", coordinate, status);
+        return false;
     }
 
-    private String encodePayload(String senderId, String dimension, ChunkPos pos,
-                                  List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+    static String encodePayload(String senderId, String dimension, ChunkPos pos,
+                                List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
         JsonObject root = new JsonObject();
         root.addProperty("senderId", senderId);
         root.addProperty("dimension", dimension);
@@ -154,7 +177,7 @@ public final class HttpScanTransport {
         return root.toString();
     }
 
-    private void fetchChunksPage() {
+    private CompletableFuture<Void> fetchChunksPage() {
         URI uri = URI.create(baseUrl + "/v1/chunks");
         HttpRequest request = HttpRequest.newBuilder(uri)
                 .timeout(Duration.ofSeconds(REQUEST_TIMEOUT_SECONDS))
@@ -162,8 +185,11 @@ public final class HttpScanTransport {
                 .GET()
                 .build();
 
-        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
-                .whenComplete((response, throwable) -> handleChunksResponse(response, throwable));
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .handleAsync((response, throwable) -> {
+                    handleChunksResponse(response, throwable);
+                    return null;
+                }, callbackExecutor);
     }
 
     private void handleChunksResponse(HttpResponse<String> response, Throwable throwable) {
@@ -187,7 +213,7 @@ public final class HttpScanTransport {
         LOGGER.info("Loaded {} known chunks from server", chunks.size());
     }
 
-    private List<ChunkCoordinate> parseChunkList(String body) {
+    static List<ChunkCoordinate> parseChunkList(String body) {
         List<ChunkCoordinate> result = new ArrayList<>();
         try {
             JsonElement parsed = JsonParser.parseString(body);
@@ -233,7 +259,7 @@ public final class HttpScanTransport {
     }
 
 
-    private record ChunkCoordinate(String dimension, int chunkX, int chunkZ) {
+    record ChunkCoordinate(String dimension, int chunkX, int chunkZ) {
         ChunkCoordinate {
             dimension = dimension == null ? "" : dimension.toLowerCase();
         }
@@ -0,0 +1,333 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.util.Loggers;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistent record of the shop signs this client has scanned, grouped by item so
+ * {@code /pb} can still answer from memory when the pricebook service is unreachable.
+ */
+public final class LocalPriceIndex {
+    private static final Logger LOGGER = Loggers.APP;
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final Type STORED_TYPE = new TypeToken<List<StoredShop>>() { }.getType();
+    private static final int TOP_K = 16;
+    private static final Duration MAX_ENTRY_AGE = Duration.ofDays(30);
+    private static final Duration SAVE_INTERVAL = Duration.ofMinutes(5);
+
+    // Listings that tie on price and age still need a fixed order, or the sets below would treat
+    // two different shops as one.
+    private static final Comparator<ObservedListing> TIEBREAK = Comparator
+            .comparing(ObservedListing::dimension)
+            .thenComparingInt(listing -> listing.position().getX())
+            .thenComparingInt(listing -> listing.position().getY())
+            .thenComparingInt(listing -> listing.position().getZ())
+            .thenComparing(ObservedListing::owner, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ObservedListing::item)
+            .thenComparingInt(ObservedListing::amount);
+    private static final Comparator<ObservedListing> SELLER_ORDER = Comparator
+            .comparingDouble(ObservedListing::price)
+            .thenComparing(ObservedListing::seenAt, Comparator.reverseOrder())
+            .thenComparing(TIEBREAK);
+    private static final Comparator<ObservedListing> BUYER_ORDER = Comparator
+            .comparingDouble(ObservedListing::price).reversed()
+            .thenComparing(ObservedListing::seenAt, Comparator.reverseOrder())
+            .thenComparing(TIEBREAK);
+
+    private final Path path;
+    private final Map<ChunkKey, List<ObservedListing>> listingsByChunk = new HashMap<>();
+    private final Map<String, ItemBook> booksByItem = new HashMap<>();
+    private boolean dirty;
+    private long version;
+    private Instant lastSavedAt = Instant.now();
+
+    private LocalPriceIndex(Path path) {
+        this.path = path;
+    }
+
+    public static LocalPriceIndex load(Path path) {
+        LocalPriceIndex index = new LocalPriceIndex(path);
+        if (path == null || !Files.exists(path)) {
+            return index;
+        }
+
+        try (Reader reader = Files.newBufferedReader(path)) {
+            List<StoredShop> stored = GSON.fromJson(reader, STORED_TYPE);
+            if (stored != null) {
+                index.restore(stored);
+            }
+            LOGGER.info("Loaded {} locally observed shops from {}", index.size(), path);
+        } catch (IOException | JsonParseException ex) {
+            LOGGER.warn("Failed to load local price index from {}: {}", path, ex.getMessage());
+        }
+        return index;
+    }
+
+    synchronized void recordChunk(String dimension, ChunkPos pos, List<ShopSignParser.ShopEntry> shops) {
+        ChunkKey key = new ChunkKey(normalizeDimension(dimension), pos.x, pos.z);
+        List<ObservedListing> previous = listingsByChunk.remove(key);
+        version++;
+        if (previous != null) {
+            previous.forEach(this::unindex);
+        }
+
+        Instant now = Instant.now();
+        List<ObservedListing> current = new ArrayList<>();
+        for (ShopSignParser.ShopEntry entry : shops) {
+            Side side = Side.fromAction(entry.action());
+            if (side == null) {
+                continue;
+            }
+            ObservedListing listing = new ObservedListing(entry.owner(), entry.item(), key.dimension(),
+                    entry.position(), entry.price(), entry.amount(), side, now);
+            current.add(listing);
+            index(listing);
+        }
+
+        if (!current.isEmpty()) {
+            listingsByChunk.put(key, current);
+        }
+        if (previous != null || !current.isEmpty()) {
+            dirty = true;
+        }
+        saveIfDue();
+    }
+
+    public synchronized Optional<ItemSnapshot> lookup(String itemName) {
+        ItemBook book = booksByItem.get(normalizeItem(itemName));
+        if (book == null || book.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(book.snapshot());
+    }
+
+    public synchronized int size() {
+        int total = 0;
+        for (List<ObservedListing> listings : listingsByChunk.values()) {
+            total += listings.size();
+        }
+        return total;
+    }
+
+    public CompletableFuture<Void> saveAsync() {
+        return CompletableFuture.runAsync(this::save);
+    }
+
+    public void save() {
+        List<StoredShop> stored;
+        synchronized (this) {
+            if (!dirty || path == null) {
+                return;
+            }
+            stored = new ArrayList<>();
+            for (List<ObservedListing> listings : listingsByChunk.values()) {
+                for (ObservedListing listing : listings) {
+                    stored.add(StoredShop.from(listing));
+                }
+            }
+            dirty = false;
+            lastSavedAt = Instant.now();
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                GSON.toJson(stored, STORED_TYPE, writer);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.debug("Saved {} locally observed shops to {}", stored.size(), path);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to save local price index to {}: {}", path, ex.getMessage());
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    private void saveIfDue() {
+        if (dirty && Duration.between(lastSavedAt, Instant.now()).compareTo(SAVE_INTERVAL) >= 0) {
+            lastSavedAt = Instant.now();
+            saveAsync();
+        }
+    }
+
+    private void restore(List<StoredShop> stored) {
+        Instant cutoff = Instant.now().minus(MAX_ENTRY_AGE);
+        for (StoredShop shop : stored) {
+            if (shop == null || shop.item == null || shop.item.isBlank()) {
+                continue;
+            }
+            Side side = Side.fromAction(shop.action);
+            Instant seenAt = Instant.ofEpochMilli(shop.seenAt);
+            if (side == null || seenAt.isBefore(cutoff)) {
+                continue;
+            }
+            BlockPos position = new BlockPos(shop.x, shop.y, shop.z);
+            String dimension = normalizeDimension(shop.dimension);
+            ObservedListing listing = new ObservedListing(shop.owner, shop.item, dimension, position,
+                    shop.price, shop.amount, side, seenAt);
+            ChunkKey key = new ChunkKey(dimension, position.getX() >> 4, position.getZ() >> 4);
+            listingsByChunk.computeIfAbsent(key, ignored -> new ArrayList<>()).add(listing);
+            index(listing);
+        }
+    }
+
+    private void index(ObservedListing listing) {
+        booksByItem.computeIfAbsent(normalizeItem(listing.item()), ignored -> new ItemBook()).add(listing, version);
+    }
+
+    private void unindex(ObservedListing listing) {
+        String key = normalizeItem(listing.item());
+        ItemBook book = booksByItem.get(key);
+        if (book != null && book.remove(listing, version) && book.isEmpty()) {
+            booksByItem.remove(key);
+        }
+    }
+
+    private static String normalizeItem(String item) {
+        if (item == null) {
+            return "";
+        }
+        return item.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeDimension(String dimension) {
+        return dimension == null ? "" : dimension.toLowerCase(Locale.ROOT);
+    }
+
+    public enum Side {
+        SELL,
+        BUY;
+
+        private static Side fromAction(String action) {
+            if ("sell".equals(action)) {
+                return SELL;
+            }
+            if ("buy".equals(action)) {
+                return BUY;
+            }
+            return null;
+        }
+    }
+
+    public record ObservedListing(String owner, String item, String dimension, BlockPos position,
+                                  double price, int amount, Side side, Instant seenAt) {
+    }
+
+    /**
+     * An item's best listings. {@code version} changes whenever a scan adds, replaces or removes
+     * any of the item's listings, including removals that leave {@code lastSeenAt} as it was.
+     */
+    public record ItemSnapshot(String item, Instant lastSeenAt, long version, List<ObservedListing> topSellers,
+                               List<ObservedListing> topBuyers) {
+    }
+
+    /**
+     * One item's listings, each side kept in rank order so a scan adds or removes a listing in
+     * O(log n) and a snapshot only reads the first {@link #TOP_K}.
+     */
+    private static final class ItemBook {
+        private final TreeSet<ObservedListing> sellers = new TreeSet<>(SELLER_ORDER);
+        private final TreeSet<ObservedListing> buyers = new TreeSet<>(BUYER_ORDER);
+        private final TreeMap<Instant, Integer> seenAtCounts = new TreeMap<>();
+        private long version;
+
+        private void add(ObservedListing listing, long indexVersion) {
+            if (side(listing).add(listing)) {
+                seenAtCounts.merge(listing.seenAt(), 1, Integer::sum);
+                version = indexVersion;
+            }
+        }
+
+        private boolean remove(ObservedListing listing, long indexVersion) {
+            boolean removed = side(listing).remove(listing);
+            if (removed) {
+                seenAtCounts.computeIfPresent(listing.seenAt(), (seenAt, count) -> count == 1 ? null : count - 1);
+                version = indexVersion;
+            }
+            return removed;
+        }
+
+        private boolean isEmpty() {
+            return sellers.isEmpty() && buyers.isEmpty();
+        }
+
+        private ItemSnapshot snapshot() {
+            String item = (sellers.isEmpty() ? buyers : sellers).first().item();
+            return new ItemSnapshot(item, seenAtCounts.lastKey(), version, first(sellers), first(buyers));
+        }
+
+        private TreeSet<ObservedListing> side(ObservedListing listing) {
+            return listing.side() == Side.SELL ? sellers : buyers;
+        }
+
+        private static List<ObservedListing> first(TreeSet<ObservedListing> ranked) {
+            List<ObservedListing> result = new ArrayList<>(Math.min(TOP_K, ranked.size()));
+            for (ObservedListing listing : ranked) {
+                if (result.size() == TOP_K) {
+                    break;
+                }
+                result.add(listing);
+            }
+            return List.copyOf(result);
+        }
+    }
+
+    private record ChunkKey(String dimension, int chunkX, int chunkZ) {
+    }
+
+    private static final class StoredShop {
+        private String owner;
+        private String item;
+        private String dimension;
+        private int x;
+        private int y;
+        private int z;
+        private double price;
+        private int amount;
+        private String action;
+        private long seenAt;
+
+        private static StoredShop from(ObservedListing listing) {
+            StoredShop shop = new StoredShop();
+            shop.owner = listing.owner();
+            shop.item = listing.item();
+            shop.dimension = listing.dimension();
+            shop.x = listing.position().getX();
+            shop.y = listing.position().getY();
+            shop.z = listing.position().getZ();
+            shop.price = listing.price();
+            shop.amount = listing.amount();
+            shop.action = listing.side() == Side.SELL ? "sell" : "buy";
+            shop.seenAt = listing.seenAt().toEpochMilli();
+            return shop;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where {@link ShopScanner} sends what it finds. In game this is {@link HttpScanTransport};
+ * the capture replay tool supplies a stub that only encodes.
+ */
+public interface ScanTransport {
+    /**
+     * True when the server holds shops for this chunk, so an empty scan must be sent to clear them.
+     */
+    boolean shouldTransmitEmpty(String dimension, ChunkPos pos);
+
+    /**
+     * Sends one chunk's scan. The future completes with {@code true} once the scan has been
+     * accepted and {@code false} when it was rejected or never arrived; the scanner itself
+     * doesn't wait on it.
+     */
+    CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                        List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones);
+}
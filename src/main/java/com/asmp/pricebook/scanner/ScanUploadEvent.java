@@ -0,0 +1,56 @@
+package com.asmp.pricebook.scanner;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flight recorder event spanning one scan upload from hand-off to the HTTP client until the
+ * answer is handled. It begins on the client thread and is committed on an HTTP thread.
+ */
+@Name("pricebook.ScanUpload")
+@Label("Scan Upload")
+@Category({"Pricebook", "Network"})
+@Description("One chunk scan sent to the pricebook service")
+@StackTrace(false)
+final class ScanUploadEvent extends Event {
+    @Label("Dimension")
+    String dimension;
+
+    @Label("Chunk X")
+    int chunkX;
+
+    @Label("Chunk Z")
+    int chunkZ;
+
+    @Label("Request Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Status")
+    @Description("HTTP status, or 0 when no response arrived")
+    int status;
+
+    @Label("Accepted")
+    boolean accepted;
+
+    void finish(HttpScanTransport.ChunkCoordinate chunk, String payload, HttpResponse<?> response, boolean accepted) {
+        end();
+        if (shouldCommit()) {
+            this.dimension = chunk.dimension();
+            this.chunkX = chunk.chunkX();
+            this.chunkZ = chunk.chunkZ();
+            this.bytes = payload.getBytes(StandardCharsets.UTF_8).length;
+            this.status = response == null ? 0 : response.statusCode();
+            this.accepted = accepted;
+            commit();
+        }
+    }
+}
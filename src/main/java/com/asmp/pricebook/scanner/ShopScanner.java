@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class ShopScanner {
@@ -43,13 +44,22 @@ public final class ShopScanner {
 
     private static final Map<Block, List<WaystonePattern>> WAYSTONE_PATTERNS = createWaystonePatterns();
 
-    private final ModConfig config;
-    private final HttpScanTransport transport;
+    private final Supplier<String> senderId;
+    private final ScanTransport transport;
+    private final LocalPriceIndex localIndex;
     private final Long2ObjectMap<ChunkSnapshot> lastKnownChunks = new Long2ObjectOpenHashMap<>();
 
-    public ShopScanner(ModConfig config, HttpScanTransport transport) {
-        this.config = Objects.requireNonNull(config, "config");
+    public ShopScanner(ModConfig config, ScanTransport transport, LocalPriceIndex localIndex) {
+        this(senderIdOf(Objects.requireNonNull(config, "config")), transport, localIndex);
+    }
+
+    /**
+     * For running the scanner without a mod config, as the capture replay tool does.
+     */
+    ShopScanner(Supplier<String> senderId, ScanTransport transport, LocalPriceIndex localIndex) {
+        this.senderId = Objects.requireNonNull(senderId, "senderId");
         this.transport = Objects.requireNonNull(transport, "transport");
+        this.localIndex = Objects.requireNonNull(localIndex, "localIndex");
     }
 
     public void scanChunk(ClientWorld world, int chunkX, int chunkZ) {
@@ -71,16 +81,23 @@ public final class ShopScanner {
             return;
         }
 
-        ChunkPos pos = chunk.getPos();
+        scanChunk(Dimensions.canonical(world), ChunkView.of(world, chunk));
+    }
+
+    void scanChunk(String dimension, ChunkView chunk) {
+        ChunkScanEvent event = new ChunkScanEvent();
+        event.begin();
+        ChunkPos pos = chunk.pos();
         long key = pos.toLong();
 
-        Set<ShopSignParser.ShopEntry> currentShops = collectShops(world, chunk);
-        Set<BlockPos> currentWaystones = collectWaystones(world, chunk);
+        Set<ShopSignParser.ShopEntry> currentShops = collectShops(chunk);
+        Set<BlockPos> currentWaystones = collectWaystones(chunk);
 
         ChunkSnapshot previous = lastKnownChunks.get(key);
         ChunkSnapshot current = new ChunkSnapshot(Set.copyOf(currentShops), Set.copyOf(currentWaystones));
         if (previous != null && previous.equals(current)) {
             LOGGER.trace("Chunk {} unchanged, skipping scan", pos);
+            event.finish(dimension, pos, currentShops.size(), currentWaystones.size(), "unchanged");
             return;
         }
 
@@ -93,15 +110,22 @@ public final class ShopScanner {
                 .sorted(BLOCK_POS_ORDER)
                 .collect(Collectors.toList());
 
-        String dimension = Dimensions.canonical(world);
+        localIndex.recordChunk(dimension, pos, sorted);
+
         boolean empty = sorted.isEmpty() && waystones.isEmpty();
         if (empty && !transport.shouldTransmitEmpty(dimension, pos)) {
             LOGGER.trace("Chunk {} is empty and not known to server, skipping", pos);
+            event.finish(dimension, pos, 0, 0, "skipped");
             return;
         }
 
         LOGGER.debug("Scanning chunk {} in {}: {} shops, {} waystones", pos, dimension, sorted.size(), waystones.size());
-        transport.sendScan(config.senderId, dimension, pos, sorted, waystones);
+        transport.sendScan(senderId.get(), dimension, pos, sorted, waystones);
+        event.finish(dimension, pos, sorted.size(), waystones.size(), "sent");
+    }
+
+    private static Supplier<String> senderIdOf(ModConfig config) {
+        return () -> config.senderId;
     }
 
     public void forgetChunk(ChunkPos pos) {
@@ -116,12 +140,14 @@ public final class ShopScanner {
         return parseShop(world, pos).map(ShopSignParser.ShopEntry::item);
     }
 
-    private Set<ShopSignParser.ShopEntry> collectShops(ClientWorld world, WorldChunk chunk) {
+    static Set<ShopSignParser.ShopEntry> collectShops(ChunkView chunk) {
         Set<ShopSignParser.ShopEntry> entries = new HashSet<>();
-        chunk.getBlockEntityPositions().forEach((BlockPos pos) -> {
-            Optional<ShopSignParser.ShopEntry> parsed = parseShop(world, pos);
-            parsed.ifPresent(entries::add);
-        });
+        for (BlockPos pos : chunk.blockEntityPositions()) {
+            String[] lines = chunk.signLines(pos);
+            if (lines != null) {
+                ShopSignParser.parse(chunk.getBlockState(pos), pos, lines).ifPresent(entries::add);
+            }
+        }
         return entries;
     }
 
@@ -135,11 +161,11 @@ public final class ShopScanner {
         return Optional.empty();
     }
 
-    private Set<BlockPos> collectWaystones(ClientWorld world, WorldChunk chunk) {
+    static Set<BlockPos> collectWaystones(ChunkView chunk) {
         Set<BlockPos> positions = new HashSet<>();
-        ChunkPos chunkPos = chunk.getPos();
-        int minY = world.getBottomY();
-        int maxY = minY + world.getHeight() - 1;
+        ChunkPos chunkPos = chunk.pos();
+        int minY = chunk.bottomY();
+        int maxY = minY + chunk.height() - 1;
         BlockPos start = new BlockPos(chunkPos.getStartX(), minY, chunkPos.getStartZ());
         BlockPos end = new BlockPos(chunkPos.getEndX(), maxY - 1, chunkPos.getEndZ());
 
@@ -23,13 +23,21 @@ final class ShopSignParser {
     }
 
     static Optional<ShopEntry> parse(World world, BlockPos pos, SignBlockEntity sign) {
-        BlockState blockState = world.getBlockState(pos);
+        return parse(world.getBlockState(pos), pos, readLines(sign));
+    }
+
+    static Optional<ShopEntry> parse(BlockState blockState, BlockPos pos, String[] lines) {
         if (!(blockState.getBlock() instanceof SignBlock || blockState.getBlock() instanceof WallSignBlock)) {
             return Optional.empty();
         }
+        return parseLines(lines, pos);
+    }
 
-        String[] lines = readLines(sign);
-        if (lines.length != 4) {
+    /**
+     * Applies the shop sign rules to the four front lines of a sign, without looking at the block.
+     */
+    static Optional<ShopEntry> parseLines(String[] lines, BlockPos pos) {
+        if (lines == null || lines.length != 4) {
             return Optional.empty();
         }
 
@@ -61,7 +69,7 @@ final class ShopSignParser {
     static record ShopEntry(String owner, String item, BlockPos position, double price, int amount, String action) {
     }
 
-    private static String[] readLines(SignBlockEntity sign) {
+    static String[] readLines(SignBlockEntity sign) {
         SignText front = sign.getFrontText();
         return Arrays.stream(front.getMessages(false))
                 .map(Text::getString)
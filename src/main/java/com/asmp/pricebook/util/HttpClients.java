@@ -1,25 +1,89 @@
 package com.asmp.pricebook.util;
 
+import jdk.jfr.FlightRecorder;
+
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * Maintains a single shared {@link HttpClient} for outbound requests so we do not
- * spin up redundant thread pools per service.
+ * spin up redundant thread pools per service. The client keeps its own default executor:
+ * parsers block reading streamed bodies, and if they shared a bounded pool with the client's
+ * reads they could starve them. Parsing runs on the mod's {@link HttpExecutor} instead of the
+ * JDK's common pool, which callers reach with an {@code *Async} stage on {@link #callbacks()}.
+ * Both are dropped by {@link #shutdown()} at the end of a session and rebuilt when next asked
+ * for.
  */
 public final class HttpClients {
     private static final int CONNECT_TIMEOUT_SECONDS = 5;
+    private static final String EXECUTOR_NAME = "pricebook-http";
+    private static final int MAX_THREADS = 16;
+    private static final int QUEUE_CAPACITY = 512;
+
+    private static HttpExecutor executor;
+    private static HttpClient shared;
 
-    private static final HttpClient SHARED = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS))
-            .version(HttpClient.Version.HTTP_1_1)
-            .build();
+    static {
+        FlightRecorder.addPeriodicEvent(HttpExecutorEvent.class, HttpExecutorEvent::emit);
+    }
 
     private HttpClients() {
     }
 
-    public static HttpClient shared() {
-        return SHARED;
+    public static synchronized HttpClient shared() {
+        if (shared == null) {
+            executor = new HttpExecutor(EXECUTOR_NAME, MAX_THREADS, QUEUE_CAPACITY);
+            shared = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+        }
+        return shared;
+    }
+
+    /**
+     * The executor response parsing runs on, for its queue depth and thread counts. Stages that
+     * own a response go through {@link #callbacks()} rather than this directly.
+     */
+    public static synchronized HttpExecutor executor() {
+        shared();
+        return executor;
     }
-}
 
+    /**
+     * Where response stages run: {@link #executor()}, or the completing thread when it is full
+     * or already shut down, so every response still gets read and closed.
+     */
+    public static Executor callbacks() {
+        return executor().orCallerRuns();
+    }
+
+    /**
+     * The current executor without creating one, or {@code null} between sessions.
+     */
+    static synchronized HttpExecutor currentExecutor() {
+        return executor;
+    }
+
+    /**
+     * Aborts requests still in flight and stops the executor taking new work; callbacks already
+     * queued finish on their own. Does not block.
+     */
+    public static void shutdown() {
+        HttpClient client;
+        HttpExecutor closing;
+        synchronized (HttpClients.class) {
+            client = shared;
+            closing = executor;
+            shared = null;
+            executor = null;
+        }
+        if (client != null) {
+            client.shutdownNow();
+        }
+        if (closing != null) {
+            closing.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.asmp.pricebook.util;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs response parsing on virtual threads, at most {@code maxThreads} at a time. Work beyond
+ * that waits in a queue of {@code queueCapacity}; anything past the queue is rejected. Closing
+ * stops new work but lets queued work finish, so it never blocks the caller. Response stages
+ * should go through {@link #orCallerRuns()}, since a rejected stage would never read or close
+ * its response.
+ */
+public final class HttpExecutor implements Executor, AutoCloseable {
+    private static final Logger LOGGER = Loggers.APP;
+
+    private final String name;
+    private final int maxThreads;
+    private final int queueCapacity;
+    private final ThreadFactory threads;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean closed;
+
+    public HttpExecutor(String name, int maxThreads, int queueCapacity) {
+        if (maxThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("maxThreads and queueCapacity must be positive");
+        }
+        this.name = name;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.threads = Thread.ofVirtual().name(name + "-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (closed) {
+            rejected.increment();
+            throw new RejectedExecutionException(name + " is shut down");
+        }
+        int depth = queued.incrementAndGet();
+        if (depth > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException(name + " queue is full (" + queueCapacity + " tasks)");
+        }
+        peakQueued.accumulateAndGet(depth, Math::max);
+        queue.add(task);
+        startWorkerIfIdle();
+    }
+
+    /**
+     * This executor, except that work it rejects (queue full or closed) runs on the submitting
+     * thread. For {@code *Async} stages that own a response body: a rejected stage would complete
+     * exceptionally without ever closing the body, leaving its connection held.
+     */
+    public Executor orCallerRuns() {
+        return task -> {
+            try {
+                execute(task);
+            } catch (RejectedExecutionException ex) {
+                task.run();
+            }
+        };
+    }
+
+    private void startWorkerIfIdle() {
+        while (true) {
+            int running = active.get();
+            if (running >= maxThreads) {
+                return;
+            }
+            if (active.compareAndSet(running, running + 1)) {
+                threads.newThread(this::drain).start();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                queued.decrementAndGet();
+                try {
+                    task.run();
+                } catch (Throwable throwable) {
+                    LOGGER.warn("Task on {} failed", name, throwable);
+                } finally {
+                    completed.increment();
+                }
+            }
+        } finally {
+            active.decrementAndGet();
+            // Work queued while this worker was on its way out would otherwise wait for the next submit.
+            if (!queue.isEmpty()) {
+                startWorkerIfIdle();
+            }
+        }
+    }
+
+    /**
+     * Tasks waiting for a thread.
+     */
+    public int queueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Deepest the queue has been since this executor was created.
+     */
+    public int peakQueueDepth() {
+        return peakQueued.get();
+    }
+
+    /**
+     * Virtual threads currently running tasks.
+     */
+    public int activeThreads() {
+        return active.get();
+    }
+
+    public int maxThreads() {
+        return maxThreads;
+    }
+
+    public long completedTasks() {
+        return completed.sum();
+    }
+
+    public long rejectedTasks() {
+        return rejected.sum();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Waits until every accepted task has run. Only meant for tests and tools; the game never
+     * blocks on it.
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (queued.get() > 0 || active.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting work. Queued and running tasks still finish on their own threads.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LOGGER.debug("Closed {}: {} tasks run, {} rejected, peak queue depth {}", name, completedTasks(),
+                rejectedTasks(), peakQueueDepth());
+    }
+}
@@ -0,0 +1,55 @@
+package com.asmp.pricebook.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic flight recorder sample of the {@link HttpExecutor} behind {@link HttpClients}, so a
+ * backlog of HTTP callbacks shows up next to the query and upload events it delays. Nothing is
+ * emitted between sessions.
+ */
+@Name("pricebook.HttpExecutor")
+@Label("HTTP Executor")
+@Category({"Pricebook", "Network"})
+@Description("Queue depth and busy threads of the pricebook HTTP executor")
+@StackTrace(false)
+@Period("1 s")
+final class HttpExecutorEvent extends Event {
+    @Label("Queue Depth")
+    int queueDepth;
+
+    @Label("Peak Queue Depth")
+    int peakQueueDepth;
+
+    @Label("Active Threads")
+    int activeThreads;
+
+    @Label("Max Threads")
+    int maxThreads;
+
+    @Label("Completed Tasks")
+    long completedTasks;
+
+    @Label("Rejected Tasks")
+    long rejectedTasks;
+
+    static void emit() {
+        HttpExecutor executor = HttpClients.currentExecutor();
+        if (executor == null) {
+            return;
+        }
+        HttpExecutorEvent event = new HttpExecutorEvent();
+        event.queueDepth = executor.queueDepth();
+        event.peakQueueDepth = executor.peakQueueDepth();
+        event.activeThreads = executor.activeThreads();
+        event.maxThreads = executor.maxThreads();
+        event.completedTasks = executor.completedTasks();
+        event.rejectedTasks = executor.rejectedTasks();
+        event.commit();
+    }
+}
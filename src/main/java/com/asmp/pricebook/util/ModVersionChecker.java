@@ -32,7 +32,7 @@ public final class ModVersionChecker {
 
         return HttpClients.shared()
                 .sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
-                .thenApply(response -> parseResponse(response, currentVersion))
+                .thenApplyAsync(response -> parseResponse(response, currentVersion), HttpClients.callbacks())
                 .exceptionally(ex -> {
                     LOGGER.warn("Version check failed: {}", ex.getMessage());
                     return Result.compatibleResult();
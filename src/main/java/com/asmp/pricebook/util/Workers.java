@@ -0,0 +1,39 @@
+package com.asmp.pricebook.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background threads for CPU work that should stay off the client thread. Each is a single
+ * daemon thread that keeps tasks in submission order and never holds up shutdown. Chat layout
+ * has its own so a burst of suggestion work while typing never delays a lookup's output.
+ */
+public final class Workers {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService BACKGROUND = singleDaemonThread("pricebook-worker-");
+    private static final ExecutorService LAYOUT = singleDaemonThread("pricebook-layout-");
+
+    private Workers() {
+    }
+
+    public static Executor background() {
+        return BACKGROUND;
+    }
+
+    /**
+     * Lays out chat output for lookups, pages and shopping lists.
+     */
+    public static Executor layout() {
+        return LAYOUT;
+    }
+
+    private static ExecutorService singleDaemonThread(String namePrefix) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ListingPage;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ListingPageCacheTest {
+    private static final Instant REFRESHED = Instant.parse("2025-10-16T12:00:00Z");
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final ListingPageCache cache = new ListingPageCache(nanos::get);
+
+    @Test
+    void pagesAreReusedUntilTheyExpire() {
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED)).join();
+        cache.getOrFetch("diamond", 5, 1, fetcher(REFRESHED)).join();
+        assertEquals(1, fetches.get());
+
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED)).join();
+        assertEquals(1, fetches.get());
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED)).join();
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void aNewerLookupDropsOlderPagesAtEveryPageSize() {
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED)).join();
+        cache.getOrFetch("Diamond", 10, 1, fetcher(REFRESHED)).join();
+        cache.getOrFetch("Emerald", 5, 1, fetcher(REFRESHED)).join();
+
+        cache.expireOlderThan("Diamond", REFRESHED);
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED)).join();
+        assertEquals(3, fetches.get());
+
+        cache.expireOlderThan("Diamond", REFRESHED.plusSeconds(30));
+        cache.getOrFetch("Diamond", 5, 1, fetcher(REFRESHED.plusSeconds(30))).join();
+        cache.getOrFetch("Diamond", 10, 1, fetcher(REFRESHED.plusSeconds(30))).join();
+        cache.getOrFetch("Emerald", 5, 1, fetcher(REFRESHED)).join();
+        assertEquals(5, fetches.get());
+    }
+
+    private IntFunction<CompletableFuture<ListingPageResult>> fetcher(Instant refreshedAt) {
+        return page -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(ListingPageResult.success(
+                    new ListingPage("Diamond", refreshedAt, page, 5, List.of(), List.of(), 0, 0)));
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceStreamClientTest {
+    private static final PriceStreamClient.Timing FAST = new PriceStreamClient.Timing(Duration.ofMillis(20),
+            Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofMillis(100));
+    private static final PriceStreamClient.Timing IMPATIENT = new PriceStreamClient.Timing(Duration.ofMillis(20),
+            Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofMillis(300), Duration.ofMillis(100));
+
+    private final List<ItemInfo> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private StandInPricebookServer server;
+    private HttpClient httpClient;
+    private PriceStreamClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = StandInPricebookServer.start();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+        httpClient.shutdownNow();
+    }
+
+    @Test
+    void pushesPricesForPinnedItemsOnly() throws Exception {
+        startClient(FAST);
+        client.pin(List.of("Diamond"));
+        assertTrue(eventually(() -> client.isLive("diamond")));
+
+        server.putShop("overworld", "Alex", "Emerald", 3, 8, "sell", 0, 64, 0);
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+
+        assertTrue(eventually(() -> received.size() == 1));
+        assertEquals("Diamond", received.get(0).itemName());
+        assertEquals(12, received.get(0).topSellers().get(0).price());
+    }
+
+    @Test
+    void resumesFromTheLastEventIdAfterTheServerDropsTheStream() throws Exception {
+        startClient(FAST);
+        client.pin(List.of("Diamond"));
+        assertTrue(eventually(() -> client.isLive("Diamond")));
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        assertTrue(eventually(() -> received.size() == 1));
+        long firstEvent = server.lastEventId();
+
+        server.dropStreams();
+        assertTrue(eventually(() -> disconnects.get() == 1 && !client.isLive("Diamond")));
+        // Recorded while the client is between connections, so only the resumed stream can deliver it.
+        server.putShop("overworld", "Steve", "Diamond", 9, 16, "sell", -40, 70, 12);
+
+        assertTrue(eventually(() -> received.size() == 2));
+        assertEquals(9, received.get(1).topSellers().get(0).price());
+        assertEquals(List.of("", Long.toString(firstEvent)), server.streamResumeIds());
+        assertTrue(client.isLive("Diamond"));
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(2, received.size());
+        assertEquals(1, disconnects.get());
+    }
+
+    @Test
+    void reconnectsAStreamThatGoesQuiet() throws Exception {
+        startClient(IMPATIENT);
+        client.pin(List.of("Diamond"));
+        assertTrue(eventually(() -> client.isLive("Diamond")));
+
+        assertTrue(eventually(() -> server.requests(StandInPricebookServer.STREAM) >= 2));
+        assertTrue(disconnects.get() >= 1);
+        assertTrue(eventually(() -> client.isLive("Diamond")));
+
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        assertTrue(eventually(() -> received.size() == 1));
+    }
+
+    @Test
+    void followsTheServersRetryHint() throws Exception {
+        server.setStreamRetry(Duration.ofMillis(900));
+        startClient(FAST);
+        client.pin(List.of("Diamond"));
+        assertTrue(eventually(() -> client.isLive("Diamond")));
+
+        server.dropStreams();
+        assertTrue(eventually(() -> disconnects.get() == 1));
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertEquals(1, server.requests(StandInPricebookServer.STREAM));
+        assertTrue(eventually(() -> server.requests(StandInPricebookServer.STREAM) == 2));
+    }
+
+    @Test
+    void turnsItselfOffWhenTheServiceHasNoStream() throws Exception {
+        server.disable(StandInPricebookServer.STREAM);
+        startClient(FAST);
+        client.pin(List.of("Diamond"));
+        assertTrue(server.awaitRequests(StandInPricebookServer.STREAM, 1, Duration.ofSeconds(5)));
+
+        client.touch("Emerald");
+        client.pin(List.of("Diamond", "Gold Ingot"));
+        TimeUnit.MILLISECONDS.sleep(600);
+
+        assertEquals(1, server.requests(StandInPricebookServer.STREAM));
+        assertFalse(client.isLive("Diamond"));
+        assertEquals(0, disconnects.get());
+    }
+
+    private void startClient(PriceStreamClient.Timing timing) {
+        client = new PriceStreamClient(httpClient, server.baseUrl(), received::add, disconnects::incrementAndGet,
+                timing);
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+package com.asmp.pricebook.command;
+
+import com.asmp.pricebook.command.PricebookQueryService.ItemInfo;
+import com.asmp.pricebook.command.PricebookQueryService.ItemLookupResult;
+import com.asmp.pricebook.command.PricebookQueryService.ListingPageResult;
+import com.asmp.pricebook.command.PricebookQueryService.PollResult;
+import com.asmp.pricebook.command.PricebookQueryService.PriceHistoryResult;
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import com.asmp.pricebook.util.HttpClients;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricebookQueryServiceTest {
+    private static final Instant NOW = Instant.parse("2025-10-16T12:00:00Z");
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 16);
+
+    private StandInPricebookServer server;
+    private PricebookQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        server = StandInPricebookServer.start(Clock.fixed(NOW, ZoneOffset.UTC));
+        service = new PricebookQueryService(server.baseUrl(), null, false, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        server.close();
+    }
+
+    @Test
+    void lookupReturnsCheapestSellersAndHighestBuyersFirst() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.putShop("overworld", "Steve", "Diamond", 9.5, 16, "sell", -40, 70, 12);
+        server.putShop("overworld", "Kai", "Diamond", 7, 32, "buy", 5, 64, 5);
+        server.putShop("overworld", "Noor", "Diamond", 8, 4, "buy", 6, 64, 5);
+
+        ItemLookupResult result = await(service.lookup("diamond"));
+
+        assertTrue(result.isSuccess(), result.error());
+        assertFalse(result.offline());
+        ItemInfo info = result.info();
+        assertEquals("Diamond", info.itemName());
+        assertEquals(NOW, info.refreshedAt());
+        assertEquals(List.of("Steve", "Alex"), info.topSellers().stream().map(PricebookQueryService.Listing::owner).toList());
+        assertEquals(List.of("Noor", "Kai"), info.topBuyers().stream().map(PricebookQueryService.Listing::owner).toList());
+        assertEquals(new BlockPos(-40, 70, 12), info.topSellers().get(0).position());
+    }
+
+    @Test
+    void unknownItemIsNotFound() throws Exception {
+        ItemLookupResult result = await(service.lookup("Netherite Ingot"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("Item not found. No buyers or sellers yet.", result.error());
+    }
+
+    @Test
+    void serverErrorsSurfaceAsUnreachable() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.setFaults(Faults.NONE.withErrorRate(1));
+
+        ItemLookupResult result = await(service.lookup("Diamond"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("No response from pricebook service.", result.error());
+    }
+
+    @Test
+    void lookupAllUsesOneBatchRequest() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.putShop("overworld", "Alex", "Emerald", 3, 64, "sell", 101, 64, 100);
+
+        List<ItemLookupResult> results = await(service.lookupAll(List.of("Emerald", "Gold Ingot", "Diamond")));
+
+        assertEquals(3, results.size());
+        assertEquals("Emerald", results.get(0).info().itemName());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("Diamond", results.get(2).info().itemName());
+        assertEquals(1, server.requests(StandInPricebookServer.ITEMS_LOOKUP));
+        assertEquals(0, server.requests(StandInPricebookServer.ITEM));
+    }
+
+    @Test
+    void lookupAllFallsBackToSingleLookupsWithoutBatchEndpoint() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.putShop("overworld", "Alex", "Emerald", 3, 64, "sell", 101, 64, 100);
+        server.disable(StandInPricebookServer.ITEMS_LOOKUP);
+
+        List<ItemLookupResult> results = await(service.lookupAll(List.of("Diamond", "Emerald")));
+
+        assertTrue(results.stream().allMatch(ItemLookupResult::isSuccess));
+        assertFalse(service.supportsBatchLookup());
+        assertEquals(2, server.requests(StandInPricebookServer.ITEM));
+    }
+
+    @Test
+    void unchangedPollIsNotModified() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.putShop("overworld", "Alex", "Emerald", 3, 64, "sell", 101, 64, 100);
+        List<String> names = List.of("Diamond", "Emerald");
+
+        PollResult first = await(service.pollChanges(names, null));
+        PollResult second = await(service.pollChanges(names, first.etag()));
+        server.putShop("overworld", "Steve", "Emerald", 2, 64, "sell", 300, 64, 300);
+        PollResult third = await(service.pollChanges(names, first.etag()));
+
+        assertFalse(first.notModified());
+        assertNotNull(first.etag());
+        assertTrue(second.notModified());
+        assertFalse(third.notModified());
+        assertEquals(2, third.results().get(1).info().topSellers().get(0).price());
+    }
+
+    @Test
+    void listingPagesCarryTotalsAndPrefetchTheNextPage() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            server.putShop("overworld", "Seller" + i, "Diamond", 10 + i, 1, "sell", i * 16, 64, 0);
+        }
+
+        ListingPageResult first = await(service.fetchListingPage("Diamond", 1));
+        assertTrue(server.awaitRequests(StandInPricebookServer.ITEM_LISTINGS, 2, Duration.ofSeconds(5)));
+        ListingPageResult third = await(service.fetchListingPage("Diamond", 3));
+
+        assertTrue(first.isSuccess(), first.error());
+        assertEquals(3, first.page().pageCount());
+        assertEquals(12, first.page().totalSellers());
+        assertEquals(10, first.page().sellers().get(0).price());
+        assertEquals(List.of("Seller10", "Seller11"),
+                third.page().sellers().stream().map(PricebookQueryService.Listing::owner).toList());
+        assertFalse(third.page().hasNext());
+    }
+
+    @Test
+    void historyIsFetchedIncrementally() throws Exception {
+        server.putHistoryDay("Diamond", TODAY.minusDays(3), 14, 20, 3);
+        server.putHistoryDay("Diamond", TODAY.minusDays(2), 11, 25, 4);
+        server.putHistoryDay("Diamond", TODAY.minusDays(1), 13, 10, 2);
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+
+        PriceHistoryResult first = await(service.fetchHistory("Diamond"));
+        server.putShop("overworld", "Steve", "Diamond", 9, 8, "sell", 200, 64, 100);
+        PriceHistoryResult second = await(service.fetchHistory("Diamond"));
+
+        assertTrue(first.isSuccess(), first.error());
+        assertEquals(4, first.history().history().size());
+        assertEquals(11, first.history().insights().lowest().lowestPrice());
+        assertEquals(4, second.history().history().size());
+        assertEquals(9, second.history().history().get(3).lowestPrice());
+        assertEquals(2, second.history().history().get(3).shops());
+        assertEquals(9, second.history().insights().lowest().lowestPrice());
+    }
+
+    @Test
+    void catalogListsEveryItemWithShops() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.putShop("the_nether", "Alex", "Quartz", 1, 64, "buy", 10, 40, 10);
+
+        assertEquals(List.of("Diamond", "Quartz"), await(service.fetchCatalog()));
+    }
+
+    @Test
+    void throttledCatalogIsEmpty() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.setFaults(StandInPricebookServer.ITEMS, Faults.NONE.withThrottleRate(1));
+
+        assertEquals(List.of(), await(service.fetchCatalog()));
+        assertEquals(1, server.responses(429));
+    }
+
+    @Test
+    void slowLookupsTimeOutIntoAnError() throws Exception {
+        server.setFaults(Faults.NONE.withLatency(Duration.ofSeconds(10), Duration.ZERO));
+
+        ItemLookupResult result = service.lookup("Diamond").get(15, TimeUnit.SECONDS);
+
+        assertNull(result.info());
+        assertEquals("Failed to reach pricebook service.", result.error());
+    }
+
+    @Test
+    void hedgeAnswersAStalledLookupAndTheStalledRequestIsAborted() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        PricebookQueryService hedging = warmedUpHedgingService();
+        try {
+            long before = server.requests(StandInPricebookServer.ITEM);
+            server.stallNext(StandInPricebookServer.ITEM, Duration.ofSeconds(1));
+
+            ItemLookupResult result = await(hedging.lookup("Diamond"));
+
+            assertTrue(result.isSuccess(), result.error());
+            // The stand-in counts a request just before answering it, so only the hedge has been answered.
+            assertEquals(before + 1, server.requests(StandInPricebookServer.ITEM));
+            assertEquals(0, server.abandonedResponses());
+            // The stalled primary was cancelled, so its answer has no one left to read it.
+            assertTrue(server.awaitRequests(StandInPricebookServer.ITEM, before + 2, Duration.ofSeconds(5)));
+            assertTrue(eventually(() -> server.abandonedResponses() == 1));
+        } finally {
+            hedging.close();
+        }
+    }
+
+    @Test
+    void hedgeThatLosesIsAborted() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        PricebookQueryService hedging = warmedUpHedgingService();
+        try {
+            long before = server.requests(StandInPricebookServer.ITEM);
+            server.setFaults(StandInPricebookServer.ITEM, Faults.NONE.withLatency(Duration.ofMillis(300), Duration.ZERO));
+
+            ItemLookupResult result = await(hedging.lookup("Diamond"));
+
+            assertTrue(result.isSuccess(), result.error());
+            assertTrue(server.awaitRequests(StandInPricebookServer.ITEM, before + 2, Duration.ofSeconds(5)));
+            assertTrue(eventually(() -> server.abandonedResponses() == 1));
+        } finally {
+            hedging.close();
+        }
+    }
+
+    @Test
+    void moreSlowBodiesThanParserThreadsAllComplete() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", 100, 64, 100);
+        server.slowBodies(StandInPricebookServer.ITEM, Duration.ofMillis(300));
+
+        // Every parser thread ends up blocked mid-body; the client must still read the bodies for them.
+        List<CompletableFuture<ItemLookupResult>> lookups = new ArrayList<>();
+        for (int i = 0; i < HttpClients.executor().maxThreads() + 8; i++) {
+            lookups.add(service.lookup("Diamond"));
+        }
+
+        for (CompletableFuture<ItemLookupResult> lookup : lookups) {
+            ItemLookupResult result = await(lookup);
+            assertTrue(result.isSuccess(), result.error());
+            assertEquals(12, result.info().topSellers().get(0).price());
+        }
+    }
+
+    /**
+     * A hedging service that has seen enough fast lookups to hedge at its minimum delay.
+     */
+    private PricebookQueryService warmedUpHedgingService() throws Exception {
+        PricebookQueryService hedging = new PricebookQueryService(server.baseUrl(), null, false, true);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(await(hedging.lookup("Diamond")).isSuccess());
+        }
+        assertEquals(0, server.abandonedResponses());
+        return hedging;
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.asmp.pricebook.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.Message;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.suggestion.Suggestion;
+import com.mojang.brigadier.suggestion.Suggestions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SuggestionEngineTest {
+    private static final List<String> CATALOG = List.of("Diamond", "Diamond Axe", "Diamond Block", "Diamond Sword",
+            "Emerald");
+    private static final Map<String, Double> USAGE = Map.of("diamond sword", 8.0, "diamond block", 2.0);
+
+    private final ItemSearchIndex index = ItemSearchIndex.build(CATALOG, name -> USAGE.getOrDefault(name, 0.0));
+    private final SuggestionEngine engine = new SuggestionEngine();
+
+    @Test
+    void singleArgumentCommandsShowSuggestionsInRankOrder() throws Exception {
+        CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+        dispatcher.register(LiteralArgumentBuilder.literal("history").then(itemArgument()));
+
+        assertEquals(List.of("diamond", "diamond sword", "diamond block", "diamond axe"),
+                texts(suggestions(dispatcher, "history diamond")));
+        assertEquals(List.of("diamond sword", "diamond block", "diamond", "diamond axe", "emerald"),
+                texts(suggestions(dispatcher, "history ")));
+    }
+
+    @Test
+    void subcommandSiblingsSortSuggestionsButTooltipsKeepTheUsage() throws Exception {
+        CommandDispatcher<Object> dispatcher = new CommandDispatcher<>();
+        dispatcher.register(LiteralArgumentBuilder.literal("pb")
+                .then(LiteralArgumentBuilder.literal("watch"))
+                .then(itemArgument()));
+
+        List<Suggestion> suggestions = suggestions(dispatcher, "pb diamond");
+
+        assertEquals(List.of("diamond", "diamond axe", "diamond block", "diamond sword"), texts(suggestions));
+        assertEquals("Looked up 8 times recently", tooltip(suggestions, "diamond sword"));
+        assertEquals("Looked up 2 times recently", tooltip(suggestions, "diamond block"));
+        assertNull(tooltip(suggestions, "diamond axe"));
+    }
+
+    private RequiredArgumentBuilder<Object, String> itemArgument() {
+        return RequiredArgumentBuilder.<Object, String>argument("item", StringArgumentType.greedyString())
+                .suggests((context, builder) -> engine.suggest(index, builder, 50));
+    }
+
+    private static List<Suggestion> suggestions(CommandDispatcher<Object> dispatcher, String input) throws Exception {
+        Suggestions suggestions = dispatcher.getCompletionSuggestions(dispatcher.parse(input, new Object()))
+                .get(5, TimeUnit.SECONDS);
+        return suggestions.getList();
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).toList();
+    }
+
+    private static String tooltip(List<Suggestion> suggestions, String text) {
+        Message tooltip = suggestions.stream()
+                .filter(suggestion -> suggestion.getText().equals(text))
+                .findFirst()
+                .orElseThrow()
+                .getTooltip();
+        return tooltip == null ? null : tooltip.getString();
+    }
+}
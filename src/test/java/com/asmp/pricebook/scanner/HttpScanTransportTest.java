@@ -0,0 +1,99 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.command.PricebookQueryService;
+import com.asmp.pricebook.command.PricebookQueryService.WaystoneReference;
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpScanTransportTest {
+    private static final String SENDER = "test-sender";
+    private static final ChunkPos CHUNK = new ChunkPos(6, -2);
+
+    private StandInPricebookServer server;
+    private HttpScanTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        server = StandInPricebookServer.start();
+        transport = new HttpScanTransport(server.baseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void scansReplaceWhatTheServerHoldsForTheChunk() throws Exception {
+        assertTrue(await(transport.sendScan(SENDER, "overworld", CHUNK,
+                List.of(shop("Alex", "Diamond", 100), shop("Alex", "Emerald", 101)), List.of())));
+        assertEquals(2, server.shopCount());
+
+        assertTrue(await(transport.sendScan(SENDER, "overworld", CHUNK, List.of(shop("Alex", "Diamond", 100)), List.of())));
+        assertEquals(1, server.shopCount());
+    }
+
+    @Test
+    void emptyScanClearsAChunkTheServerKnows() throws Exception {
+        server.putShop("overworld", "Alex", "Diamond", 12, 8, "sell", CHUNK.getStartX(), 64, CHUNK.getStartZ());
+        assertFalse(transport.shouldTransmitEmpty("overworld", CHUNK));
+
+        await(transport.bootstrap());
+        assertTrue(transport.shouldTransmitEmpty("overworld", CHUNK));
+
+        assertTrue(await(transport.sendScan(SENDER, "overworld", CHUNK, List.of(), List.of())));
+        assertEquals(0, server.chunkCount());
+        assertFalse(transport.shouldTransmitEmpty("overworld", CHUNK));
+    }
+
+    @Test
+    void rejectedScansCompleteFalse() throws Exception {
+        server.setFaults(StandInPricebookServer.SCAN, Faults.NONE.withThrottleRate(1));
+        assertFalse(await(transport.sendScan(SENDER, "overworld", CHUNK, List.of(shop("Alex", "Diamond", 100)), List.of())));
+
+        server.setFaults(StandInPricebookServer.SCAN, Faults.NONE.withErrorRate(1));
+        assertFalse(await(transport.sendScan(SENDER, "overworld", CHUNK, List.of(shop("Alex", "Diamond", 100)), List.of())));
+
+        assertEquals(1, server.responses(429));
+        assertEquals(1, server.responses(500));
+        assertEquals(0, server.shopCount());
+    }
+
+    @Test
+    void namedWaystonesShowUpOnListings() throws Exception {
+        BlockPos waystone = new BlockPos(CHUNK.getStartX() + 8, 65, CHUNK.getStartZ() + 8);
+        assertTrue(await(transport.sendScan(SENDER, "overworld", CHUNK,
+                List.of(shop("Alex", "Diamond", 100)), List.of(waystone))));
+        transport.sendWaystoneScan(SENDER, "overworld", CHUNK, waystone, "Market Square", "Alex");
+        assertTrue(server.awaitRequests(StandInPricebookServer.SCAN_WAYSTONE, 1, Duration.ofSeconds(5)));
+
+        PricebookQueryService service = new PricebookQueryService(server.baseUrl(), null, false, false);
+        WaystoneReference nearest = await(service.lookup("Diamond")).info().topSellers().get(0).nearestWaystone();
+
+        assertEquals("Market Square", nearest.name());
+        assertEquals(waystone, nearest.position());
+    }
+
+    private static ShopSignParser.ShopEntry shop(String owner, String item, double price) {
+        BlockPos pos = new BlockPos(CHUNK.getStartX() + (int) price % 16, 64, CHUNK.getStartZ());
+        return new ShopSignParser.ShopEntry(owner, item, pos, price, 16, "sell");
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
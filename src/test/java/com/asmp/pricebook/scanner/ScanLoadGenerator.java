@@ -0,0 +1,218 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates many players scanning at once. Each one runs its own {@link ShopScanner} and
+ * {@link HttpScanTransport}, bootstraps like a fresh session and then wanders the market around
+ * spawn, scanning a {@link SimulatedChunk} at a steady rate and forgetting chunks it leaves
+ * behind, so the service sees the same mix of new, repeated and cleared chunks real clients
+ * send. Usage:
+ *
+ * <pre>./gradlew scanLoad [-PloadTarget=&lt;base url&gt;] [-Pscanners=200] [-Pseconds=30] [-PchunksPerSecond=5]</pre>
+ *
+ * <p>Without a target it runs against a {@link StandInPricebookServer} answering in 20-60 ms.
+ * Don't aim it at the production service.
+ */
+public final class ScanLoadGenerator {
+    private static final String DIMENSION = "overworld";
+    private static final int WALK_RADIUS = SimulatedChunk.MARKET_RADIUS + 8;
+    private static final int VIEW_DISTANCE = 8;
+    private static final double TURN_CHANCE = 0.2;
+    private static final long SHOP_CHANGE_PERIOD_NANOS = Duration.ofSeconds(10).toNanos();
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(15);
+
+    private ScanLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String target = args.length > 0 ? args[0] : "local";
+        Options options = new Options(
+                args.length > 1 ? Integer.parseInt(args[1]) : 200,
+                Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30),
+                args.length > 3 ? Integer.parseInt(args[3]) : 5);
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        if (!"local".equals(target)) {
+            System.out.println(run(target, options).summary());
+            return;
+        }
+        try (StandInPricebookServer server = StandInPricebookServer.start()) {
+            server.setFaults(Faults.NONE.withLatency(Duration.ofMillis(20), Duration.ofMillis(40)));
+            Report report = run(server.baseUrl(), options);
+            System.out.println(report.summary());
+            System.out.printf(Locale.ROOT, "Stand-in holds %d chunks with %d shops; answered %d scans, %d chunk lists%n",
+                    server.chunkCount(), server.shopCount(), server.requests(StandInPricebookServer.SCAN),
+                    server.requests(StandInPricebookServer.CHUNKS));
+        }
+    }
+
+    /**
+     * Runs the simulation and waits for every scan it sent to be answered. Expects the game to
+     * be bootstrapped.
+     */
+    static Report run(String baseUrl, Options options) throws InterruptedException {
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        long end = start + options.duration().toNanos();
+        try (ExecutorService players = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.scanners(); i++) {
+                int index = i;
+                players.submit(() -> {
+                    simulate(index, baseUrl, options, stats, start, end);
+                    return null;
+                });
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(stats.pending.toArray(CompletableFuture[]::new))
+                    .get(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Scans still unanswered are counted as neither accepted nor rejected.
+        }
+        return stats.report(System.nanoTime() - start);
+    }
+
+    private static void simulate(int index, String baseUrl, Options options, Stats stats, long start, long end)
+            throws InterruptedException {
+        HttpScanTransport http = new HttpScanTransport(baseUrl);
+        http.bootstrap().join();
+        String senderId = String.format(Locale.ROOT, "load-%05d", index);
+        ShopScanner scanner = new ShopScanner(() -> senderId, new MeasuringTransport(http, stats),
+                LocalPriceIndex.load(null));
+
+        SplittableRandom random = new SplittableRandom(index);
+        int x = random.nextInt(-WALK_RADIUS, WALK_RADIUS + 1);
+        int z = random.nextInt(-WALK_RADIUS, WALK_RADIUS + 1);
+        int dx = 1;
+        int dz = 0;
+        Set<ChunkPos> loaded = new HashSet<>();
+        long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, options.chunksPerSecond());
+        // Stagger players so they don't all scan on the same tick.
+        long next = System.nanoTime() + random.nextLong(period);
+
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            next += period;
+
+            if (random.nextDouble() < TURN_CHANCE) {
+                int turn = random.nextInt(4);
+                dx = turn == 0 ? 1 : turn == 1 ? -1 : 0;
+                dz = turn == 2 ? 1 : turn == 3 ? -1 : 0;
+            }
+            if (Math.abs(x + dx) > WALK_RADIUS || Math.abs(z + dz) > WALK_RADIUS) {
+                dx = -dx;
+                dz = -dz;
+            }
+            x += dx;
+            z += dz;
+
+            ChunkPos pos = new ChunkPos(x, z);
+            long epoch = (System.nanoTime() - start) / SHOP_CHANGE_PERIOD_NANOS;
+            scanner.scanChunk(DIMENSION, SimulatedChunk.at(pos, epoch));
+            stats.chunksScanned.increment();
+
+            loaded.add(pos);
+            loaded.removeIf(chunk -> {
+                boolean far = Math.max(Math.abs(chunk.x - pos.x), Math.abs(chunk.z - pos.z)) > VIEW_DISTANCE;
+                if (far) {
+                    scanner.forgetChunk(chunk);
+                }
+                return far;
+            });
+        }
+    }
+
+    record Options(int scanners, Duration duration, int chunksPerSecond) {
+    }
+
+    record Report(long chunksScanned, long sent, long accepted, long rejected, long elapsedNanos,
+                  long[] sortedLatencyNanos) {
+        double scansPerSecond() {
+            return sent / (elapsedNanos / 1e9);
+        }
+
+        long latencyPercentile(double fraction) {
+            if (sortedLatencyNanos.length == 0) {
+                return 0;
+            }
+            return sortedLatencyNanos[Math.min(sortedLatencyNanos.length - 1,
+                    (int) Math.floor(fraction * sortedLatencyNanos.length))];
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT,
+                    "%d chunks scanned, %d scans sent (%.1f/s): %d accepted, %d rejected, %d unanswered%n"
+                            + "Scan latency: p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, max %.1f ms",
+                    chunksScanned, sent, scansPerSecond(), accepted, rejected, sent - accepted - rejected,
+                    latencyPercentile(0.50) / 1e6, latencyPercentile(0.95) / 1e6,
+                    latencyPercentile(0.99) / 1e6, latencyPercentile(1.0) / 1e6);
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder chunksScanned = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<CompletableFuture<Boolean>> pending = new ConcurrentLinkedQueue<>();
+
+        private Report report(long elapsedNanos) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new Report(chunksScanned.sum(), sent.sum(), accepted.sum(), rejected.sum(), elapsedNanos, sorted);
+        }
+    }
+
+    /**
+     * Times each scan from hand-off to answer.
+     */
+    private record MeasuringTransport(HttpScanTransport delegate, Stats stats) implements ScanTransport {
+        @Override
+        public boolean shouldTransmitEmpty(String dimension, ChunkPos pos) {
+            return delegate.shouldTransmitEmpty(dimension, pos);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                                   List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+            long started = System.nanoTime();
+            stats.sent.increment();
+            CompletableFuture<Boolean> result = delegate.sendScan(senderId, dimension, pos, shops, waystones)
+                    .whenComplete((accepted, throwable) -> {
+                        stats.latencies.add(System.nanoTime() - started);
+                        (Boolean.TRUE.equals(accepted) ? stats.accepted : stats.rejected).increment();
+                    });
+            stats.pending.add(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanLoadGeneratorTest {
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    void everyScanIsAnsweredUnderThrottling() throws Exception {
+        try (StandInPricebookServer server = StandInPricebookServer.start()) {
+            server.setFaults(Faults.NONE.withLatency(Duration.ofMillis(5), Duration.ofMillis(20)));
+            server.setFaults(StandInPricebookServer.SCAN, Faults.NONE
+                    .withLatency(Duration.ofMillis(5), Duration.ofMillis(20))
+                    .withThrottleRate(0.1));
+
+            ScanLoadGenerator.Report report = ScanLoadGenerator.run(server.baseUrl(),
+                    new ScanLoadGenerator.Options(50, Duration.ofSeconds(3), 10));
+
+            assertEquals(50, server.requests(StandInPricebookServer.CHUNKS));
+            assertTrue(report.sent() > 0, report.summary());
+            assertTrue(report.sent() <= report.chunksScanned(), report.summary());
+            assertEquals(report.sent(), report.accepted() + report.rejected(), report.summary());
+            assertEquals(report.sent(), server.requests(StandInPricebookServer.SCAN));
+            assertEquals(report.rejected(), server.responses(429));
+            assertTrue(server.shopCount() > 0);
+        }
+    }
+}
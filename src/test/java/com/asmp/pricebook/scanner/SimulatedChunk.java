@@ -0,0 +1,114 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A chunk of a made-up shared world for the load generator. Every scanner sees the same
+ * contents for a chunk: within {@link #MARKET_RADIUS} chunks of spawn about a third of the
+ * chunks hold a row of shop signs, some with a waystone, and one shop in ten reprices every
+ * epoch so revisits keep producing new scans. Only a thin slice around the signs is modelled;
+ * everything else reads as air. Needs the game bootstrapped.
+ */
+final class SimulatedChunk implements ChunkView {
+    static final int MARKET_RADIUS = 24;
+
+    private static final int BOTTOM_Y = 60;
+    private static final int HEIGHT = 8;
+    private static final int SIGN_Y = 64;
+    private static final List<String> ITEMS = List.of("Diamond", "Emerald", "Iron Ingot", "Gold Ingot",
+            "Netherite Ingot", "Elytra", "Shulker Box", "Totem of Undying", "Ender Pearl", "Blaze Rod",
+            "Oak Log", "Spruce Log", "Cobblestone", "Glass", "Redstone Dust", "Lapis Lazuli", "Quartz",
+            "Bone Meal", "Sugar Cane", "Bread", "Golden Carrot", "Cooked Beef", "Experience Bottle",
+            "Mending Book", "Sea Lantern", "Slime Ball", "Honey Bottle", "Copper Ingot", "Amethyst Shard",
+            "Tnt", "Gunpowder", "String", "Leather", "Feather", "Arrow", "Name Tag", "Saddle",
+            "Trident", "Heart of the Sea", "Nautilus Shell");
+
+    private final BlockState air = Blocks.AIR.getDefaultState();
+    private final BlockState sign = Blocks.OAK_SIGN.getDefaultState();
+    private final BlockState waystoneTop = Blocks.LODESTONE.getDefaultState();
+    private final BlockState waystoneBase = Blocks.SMOOTH_STONE_SLAB.getDefaultState();
+    private final ChunkPos pos;
+    private final Map<BlockPos, String[]> signs;
+    private final BlockPos waystone;
+
+    private SimulatedChunk(ChunkPos pos, Map<BlockPos, String[]> signs, BlockPos waystone) {
+        this.pos = pos;
+        this.signs = signs;
+        this.waystone = waystone;
+    }
+
+    static SimulatedChunk at(ChunkPos pos, long epoch) {
+        SplittableRandom random = new SplittableRandom(pos.toLong() * 0x9E3779B97F4A7C15L);
+        boolean market = Math.abs(pos.x) <= MARKET_RADIUS && Math.abs(pos.z) <= MARKET_RADIUS;
+        if (!market || random.nextInt(3) != 0) {
+            return new SimulatedChunk(pos, Map.of(), null);
+        }
+
+        Map<BlockPos, String[]> signs = new HashMap<>();
+        int shops = 1 + random.nextInt(8);
+        for (int i = 0; i < shops; i++) {
+            String owner = "Player" + random.nextInt(500);
+            String item = ITEMS.get(random.nextInt(ITEMS.size()));
+            boolean selling = random.nextInt(5) != 0;
+            int amount = 1 + random.nextInt(64);
+            double price = 1 + random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                price += epoch % 3;
+            }
+            BlockPos at = new BlockPos(pos.getStartX() + i * 2, SIGN_Y, pos.getStartZ() + 2);
+            signs.put(at, new String[]{owner, (selling ? "Selling " : "Buying ") + amount, item,
+                    String.format(Locale.ROOT, "%.0f coins", price)});
+        }
+        BlockPos waystone = random.nextInt(4) == 0
+                ? new BlockPos(pos.getStartX() + 8, SIGN_Y + 1, pos.getStartZ() + 8)
+                : null;
+        return new SimulatedChunk(pos, signs, waystone);
+    }
+
+    @Override
+    public ChunkPos pos() {
+        return pos;
+    }
+
+    @Override
+    public int bottomY() {
+        return BOTTOM_Y;
+    }
+
+    @Override
+    public int height() {
+        return HEIGHT;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        if (waystone != null && pos.getX() == waystone.getX() && pos.getZ() == waystone.getZ()) {
+            if (pos.getY() == waystone.getY()) {
+                return waystoneTop;
+            }
+            if (pos.getY() == waystone.getY() - 1) {
+                return waystoneBase;
+            }
+        }
+        return signs.containsKey(pos) ? sign : air;
+    }
+
+    @Override
+    public Iterable<BlockPos> blockEntityPositions() {
+        return signs.keySet();
+    }
+
+    @Override
+    public String[] signLines(BlockPos pos) {
+        return signs.get(pos);
+    }
+}
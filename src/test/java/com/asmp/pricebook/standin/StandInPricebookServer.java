@@ -0,0 +1,940 @@
+package com.asmp.pricebook.standin;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * In-process stand-in for the pricebook service, for integration and load tests. Serves the
+ * scan, lookup, listing, history, catalog, version and live price stream endpoints from
+ * in-memory state built out of the scans it receives, and can be told to answer slowly, fail or
+ * throttle. Every scan that changes an item appends a numbered {@code price} event; streams
+ * replay the events after their {@code Last-Event-ID} and then follow new ones until
+ * {@link #dropStreams()} ends them.
+ *
+ * <p>Each request runs on its own virtual thread, so injected latency never holds up others.
+ */
+public final class StandInPricebookServer implements AutoCloseable {
+    public static final String SCAN = "/v1/scan";
+    public static final String SCAN_WAYSTONE = "/v1/scan-waystone";
+    public static final String CHUNKS = "/v1/chunks";
+    public static final String ITEM = "/v1/item";
+    public static final String ITEMS = "/v1/items";
+    public static final String ITEMS_LOOKUP = "/v1/items/lookup";
+    public static final String ITEM_LISTINGS = "/v1/item/listings";
+    public static final String ITEM_HISTORY = "/v1/item/history";
+    public static final String MOD_VERSION = "/v1/mod-version";
+    public static final String STREAM = "/v1/stream";
+
+    private static final int TOP_LISTINGS = 5;
+    private static final int DEFAULT_PAGE_LIMIT = 5;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final int MAX_STREAM_EVENTS = 1_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Clock clock;
+    private final Map<ChunkKey, ChunkState> chunks = new HashMap<>();
+    private final Map<String, Set<ChunkKey>> chunksByItem = new HashMap<>();
+    private final Map<WaystoneKey, String> waystoneNames = new HashMap<>();
+    private final Map<String, NavigableMap<LocalDate, HistoryDay>> history = new HashMap<>();
+    private final Map<String, Faults> pathFaults = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Duration>> stalls = new ConcurrentHashMap<>();
+    private final Map<String, Duration> slowBodies = new ConcurrentHashMap<>();
+    private final Set<String> disabledPaths = ConcurrentHashMap.newKeySet();
+    private final Map<String, LongAdder> requestsByPath = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+    private final LongAdder abandonedResponses = new LongAdder();
+    private final Object completions = new Object();
+    private final List<StreamEvent> streamEvents = new ArrayList<>();
+    private final Set<PriceStream> openStreams = new HashSet<>();
+    private final List<String> streamResumeIds = new CopyOnWriteArrayList<>();
+    private long nextEventId = 1;
+    private volatile Faults faults = Faults.NONE;
+    private volatile String minVersion = "0.0.0";
+    private volatile Duration streamRetry;
+
+    private StandInPricebookServer(HttpServer server, Clock clock) {
+        this.server = server;
+        this.clock = clock;
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     */
+    public static StandInPricebookServer start() {
+        return start(Clock.systemUTC());
+    }
+
+    /**
+     * Starts a server whose timestamps and history days come from {@code clock}.
+     */
+    public static StandInPricebookServer start(Clock clock) {
+        HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        StandInPricebookServer standIn = new StandInPricebookServer(server, Objects.requireNonNull(clock, "clock"));
+        server.start();
+        return standIn;
+    }
+
+    public String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    @Override
+    public void close() {
+        dropStreams();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Applies {@code faults} to every path without faults of its own.
+     */
+    public void setFaults(Faults faults) {
+        this.faults = Objects.requireNonNull(faults, "faults");
+    }
+
+    public void setFaults(String path, Faults faults) {
+        pathFaults.put(path, Objects.requireNonNull(faults, "faults"));
+    }
+
+    /**
+     * Holds the next request to {@code path} for {@code stall} on top of any faults, so one of
+     * several identical requests can be made the slow one.
+     */
+    public void stallNext(String path, Duration stall) {
+        stalls.computeIfAbsent(path, ignored -> new ConcurrentLinkedQueue<>()).add(stall);
+    }
+
+    /**
+     * Sends the headers and the first half of every response body for {@code path} straight away
+     * and the rest after {@code pause}, so a client reading the body blocks partway through it.
+     */
+    public void slowBodies(String path, Duration pause) {
+        slowBodies.put(path, Objects.requireNonNull(pause, "pause"));
+    }
+
+    /**
+     * Answers {@code path} with 404, like a service that predates the endpoint.
+     */
+    public void disable(String path) {
+        disabledPaths.add(path);
+    }
+
+    public void setMinVersion(String minVersion) {
+        this.minVersion = Objects.requireNonNull(minVersion, "minVersion");
+    }
+
+    /**
+     * Adds a shop as if a scan of its chunk had just reported it alongside what the chunk held.
+     */
+    public synchronized void putShop(String dimension, String owner, String item, double price, int amount,
+                                     String action, int x, int y, int z) {
+        String dim = dimension.toLowerCase(Locale.ROOT);
+        ChunkKey chunk = new ChunkKey(dim, x >> 4, z >> 4);
+        ChunkState previous = chunks.get(chunk);
+        List<Shop> shops = new ArrayList<>(previous == null ? List.of() : previous.shops());
+        Instant now = clock.instant();
+        shops.add(new Shop(owner, item, price, amount, dim, action, new Point(x, y, z), now));
+        recordScan(chunk, shops, previous == null ? List.of() : previous.waystones(), now);
+    }
+
+    /**
+     * Adds a history day for an item, replacing any the scans produced for that date.
+     */
+    public synchronized void putHistoryDay(String item, LocalDate date, double lowestPrice, int stock, int shops) {
+        history.computeIfAbsent(key(item), ignored -> new TreeMap<>())
+                .put(date, new HistoryDay(item, lowestPrice, stock, shops));
+    }
+
+    /**
+     * Requests to {@code path} that have been fully answered, including faulted ones.
+     */
+    public long requests(String path) {
+        LongAdder count = requestsByPath.get(path);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long responses(int status) {
+        LongAdder count = responsesByStatus.get(status);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Responses that could not be written because the client had already hung up, such as a
+     * cancelled request.
+     */
+    public long abandonedResponses() {
+        return abandonedResponses.sum();
+    }
+
+    /**
+     * Waits until {@code path} has answered at least {@code count} requests. For endpoints the
+     * client fires and forgets.
+     */
+    public boolean awaitRequests(String path, long count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (completions) {
+            while (requests(path) < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(completions, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sends {@code retry} as the reconnect delay at the start of every stream opened from now on.
+     */
+    public void setStreamRetry(Duration retry) {
+        this.streamRetry = retry;
+    }
+
+    /**
+     * Ends every open stream, as a restarting or load-shedding service would.
+     */
+    public synchronized void dropStreams() {
+        for (PriceStream stream : openStreams) {
+            stream.closed = true;
+        }
+        notifyAll();
+    }
+
+    public synchronized int openStreams() {
+        return openStreams.size();
+    }
+
+    /**
+     * The {@code Last-Event-ID} each stream request carried, in arrival order; empty for none.
+     */
+    public List<String> streamResumeIds() {
+        return List.copyOf(streamResumeIds);
+    }
+
+    /**
+     * Id of the newest price event, or 0 before any.
+     */
+    public synchronized long lastEventId() {
+        return nextEventId - 1;
+    }
+
+    public synchronized int chunkCount() {
+        return chunks.size();
+    }
+
+    public synchronized int shopCount() {
+        return chunks.values().stream().mapToInt(state -> state.shops().size()).sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                respond(exchange, exchange.getRequestURI().getPath());
+            } catch (RuntimeException ex) {
+                send(exchange, 500, error("Internal error."));
+            }
+        }
+    }
+
+    /**
+     * Counts a request as answered. Runs before the response goes out, so a client that has its
+     * answer always sees the request counted.
+     */
+    private void complete(HttpExchange exchange, int status) {
+        requestsByPath.computeIfAbsent(exchange.getRequestURI().getPath(), ignored -> new LongAdder()).increment();
+        responsesByStatus.computeIfAbsent(status, ignored -> new LongAdder()).increment();
+        synchronized (completions) {
+            completions.notifyAll();
+        }
+    }
+
+    private int respond(HttpExchange exchange, String path) throws IOException {
+        Faults applied = pathFaults.getOrDefault(path, faults);
+        Queue<Duration> pathStalls = stalls.get(path);
+        Duration stall = pathStalls == null ? null : pathStalls.poll();
+        if (!applied.delay(ThreadLocalRandom.current()) || (stall != null && !sleep(stall.toNanos()))) {
+            return send(exchange, 503, error("Interrupted."));
+        }
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < applied.throttleRate()) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            return send(exchange, 429, error("Too many requests."));
+        }
+        if (roll < applied.throttleRate() + applied.errorRate()) {
+            return send(exchange, 500, error("Injected failure."));
+        }
+        if (disabledPaths.contains(path)) {
+            return send(exchange, 404, error("Not found."));
+        }
+
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        return switch (path) {
+            case SCAN -> "POST".equals(method) ? handleScan(exchange) : methodNotAllowed(exchange);
+            case SCAN_WAYSTONE -> "POST".equals(method) ? handleWaystoneScan(exchange) : methodNotAllowed(exchange);
+            case CHUNKS -> "GET".equals(method) ? send(exchange, 200, knownChunks()) : methodNotAllowed(exchange);
+            case ITEM -> "GET".equals(method)
+                    ? sendCacheable(exchange, itemBody(query.getOrDefault("item", "")))
+                    : methodNotAllowed(exchange);
+            case ITEMS -> "GET".equals(method) ? send(exchange, 200, catalog()) : methodNotAllowed(exchange);
+            case ITEMS_LOOKUP -> "POST".equals(method) ? handleBatchLookup(exchange) : methodNotAllowed(exchange);
+            case ITEM_LISTINGS -> "GET".equals(method) ? send(exchange, 200, listingPage(query)) : methodNotAllowed(exchange);
+            case ITEM_HISTORY -> "GET".equals(method) ? send(exchange, 200, historyBody(query)) : methodNotAllowed(exchange);
+            case MOD_VERSION -> "GET".equals(method) ? send(exchange, 200, versionBody()) : methodNotAllowed(exchange);
+            case STREAM -> "GET".equals(method) ? handleStream(exchange, query) : methodNotAllowed(exchange);
+            default -> send(exchange, 404, error("Not found."));
+        };
+    }
+
+    private int handleScan(HttpExchange exchange) throws IOException {
+        JsonObject body = readObject(exchange);
+        if (body == null || !body.has("dimension") || !body.has("chunkX") || !body.has("chunkZ")) {
+            return send(exchange, 400, error("Malformed scan."));
+        }
+
+        ChunkKey chunk;
+        List<Shop> shops = new ArrayList<>();
+        List<Point> waystones = new ArrayList<>();
+        Instant now = clock.instant();
+        try {
+            String dimension = body.get("dimension").getAsString().toLowerCase(Locale.ROOT);
+            chunk = new ChunkKey(dimension, body.get("chunkX").getAsInt(), body.get("chunkZ").getAsInt());
+            for (JsonElement element : arrayOrEmpty(body, "shops")) {
+                JsonObject shop = element.getAsJsonObject();
+                shops.add(new Shop(shop.get("owner").getAsString(), shop.get("item").getAsString(),
+                        shop.get("price").getAsDouble(), shop.get("amount").getAsInt(), dimension,
+                        shop.get("action").getAsString(), readPoint(shop.get("position")), now));
+            }
+            for (JsonElement element : arrayOrEmpty(body, "waystones")) {
+                waystones.add(readPoint(element.getAsJsonObject().get("position")));
+            }
+        } catch (RuntimeException ex) {
+            return send(exchange, 400, error("Malformed scan."));
+        }
+
+        int stored = recordScan(chunk, shops, waystones, now);
+        JsonObject response = ok();
+        response.addProperty("stored", stored);
+        return send(exchange, 200, response);
+    }
+
+    private synchronized int recordScan(ChunkKey chunk, List<Shop> shops, List<Point> waystones, Instant now) {
+        ChunkState previous = chunks.remove(chunk);
+        Set<String> touched = new HashSet<>();
+        if (previous != null) {
+            for (Shop shop : previous.shops()) {
+                touched.add(key(shop.item()));
+            }
+        }
+        for (Shop shop : shops) {
+            touched.add(key(shop.item()));
+        }
+        if (!shops.isEmpty() || !waystones.isEmpty()) {
+            chunks.put(chunk, new ChunkState(List.copyOf(shops), List.copyOf(waystones)));
+        }
+
+        for (String item : touched) {
+            Set<ChunkKey> holding = chunksByItem.computeIfAbsent(item, ignored -> new HashSet<>());
+            boolean holds = shops.stream().anyMatch(shop -> key(shop.item()).equals(item));
+            if (holds) {
+                holding.add(chunk);
+            } else {
+                holding.remove(chunk);
+            }
+            recordToday(item, now);
+            streamEvents.add(new StreamEvent(nextEventId++, item, itemBody(item).toString()));
+        }
+        if (streamEvents.size() > MAX_STREAM_EVENTS) {
+            streamEvents.subList(0, streamEvents.size() - MAX_STREAM_EVENTS).clear();
+        }
+        if (!touched.isEmpty()) {
+            notifyAll();
+        }
+        return shops.size();
+    }
+
+    /**
+     * Rewrites today's history row for an item from the shops currently selling it.
+     */
+    private void recordToday(String item, Instant now) {
+        List<Shop> sellers = shopsFor(item, "sell");
+        if (sellers.isEmpty()) {
+            return;
+        }
+        double lowest = sellers.get(0).price();
+        int stock = sellers.stream().mapToInt(Shop::amount).sum();
+        history.computeIfAbsent(item, ignored -> new TreeMap<>())
+                .put(LocalDate.ofInstant(now, ZoneOffset.UTC),
+                        new HistoryDay(sellers.get(0).item(), lowest, stock, sellers.size()));
+    }
+
+    /**
+     * Holds the exchange open as a {@code text/event-stream}, replaying the events after the
+     * request's {@code Last-Event-ID} (or none, without one) and then writing each new event for
+     * the requested items until the stream is dropped or the client goes away.
+     */
+    private int handleStream(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Set<String> items = new HashSet<>();
+        for (String item : query.getOrDefault("items", "").split(",")) {
+            if (!item.isBlank()) {
+                items.add(key(item));
+            }
+        }
+        String resumeFrom = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        streamResumeIds.add(resumeFrom == null ? "" : resumeFrom);
+
+        PriceStream stream = new PriceStream();
+        long cursor;
+        synchronized (this) {
+            cursor = resumeFrom == null ? nextEventId - 1 : parseLong(resumeFrom, nextEventId - 1);
+            openStreams.add(stream);
+        }
+        try {
+            complete(exchange, 200);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream out = exchange.getResponseBody();
+            Duration retry = streamRetry;
+            writeEvent(out, retry == null ? ": connected\n\n" : "retry: " + retry.toMillis() + "\n\n");
+            while (true) {
+                List<StreamEvent> pending;
+                synchronized (this) {
+                    pending = eventsAfter(cursor, items);
+                    while (!stream.closed && pending.isEmpty()) {
+                        wait();
+                        pending = eventsAfter(cursor, items);
+                    }
+                    if (stream.closed) {
+                        break;
+                    }
+                }
+                for (StreamEvent event : pending) {
+                    writeEvent(out, "id: " + event.id() + "\nevent: price\ndata: " + event.data() + "\n\n");
+                    cursor = event.id();
+                }
+            }
+            out.close();
+        } catch (IOException ex) {
+            // The client went away; nothing left to answer.
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                openStreams.remove(stream);
+            }
+        }
+        return 200;
+    }
+
+    private List<StreamEvent> eventsAfter(long cursor, Set<String> items) {
+        List<StreamEvent> result = new ArrayList<>();
+        for (StreamEvent event : streamEvents) {
+            if (event.id() > cursor && items.contains(event.item())) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static void writeEvent(OutputStream out, String event) throws IOException {
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private int handleWaystoneScan(HttpExchange exchange) throws IOException {
+        JsonObject body = readObject(exchange);
+        try {
+            String dimension = body.get("dimension").getAsString().toLowerCase(Locale.ROOT);
+            Point position = readPoint(body.get("position"));
+            String name = body.get("name").getAsString();
+            synchronized (this) {
+                waystoneNames.put(new WaystoneKey(dimension, position), name);
+            }
+        } catch (RuntimeException ex) {
+            return send(exchange, 400, error("Malformed waystone scan."));
+        }
+        return send(exchange, 200, ok());
+    }
+
+    private int handleBatchLookup(HttpExchange exchange) throws IOException {
+        JsonObject body = readObject(exchange);
+        if (body == null || !body.has("items") || !body.get("items").isJsonArray()) {
+            return send(exchange, 400, error("Malformed lookup."));
+        }
+        JsonArray results = new JsonArray();
+        for (JsonElement item : body.getAsJsonArray("items")) {
+            results.add(itemBody(item.getAsString()));
+        }
+        JsonObject response = new JsonObject();
+        response.add("results", results);
+        return sendCacheable(exchange, response);
+    }
+
+    private synchronized JsonObject knownChunks() {
+        JsonArray list = new JsonArray();
+        for (Map.Entry<ChunkKey, ChunkState> entry : chunks.entrySet()) {
+            JsonObject chunk = new JsonObject();
+            chunk.addProperty("dimension", entry.getKey().dimension());
+            chunk.addProperty("chunkX", entry.getKey().x());
+            chunk.addProperty("chunkZ", entry.getKey().z());
+            list.add(chunk);
+        }
+        JsonObject response = ok();
+        response.add("chunks", list);
+        return response;
+    }
+
+    private synchronized JsonObject itemBody(String item) {
+        String key = key(item);
+        List<Shop> sellers = shopsFor(key, "sell");
+        List<Shop> buyers = shopsFor(key, "buy");
+        if (sellers.isEmpty() && buyers.isEmpty()) {
+            return error("Item not found.");
+        }
+
+        JsonObject response = ok();
+        response.addProperty("item", canonicalName(sellers, buyers));
+        response.addProperty("refreshedAt", refreshedAt(sellers, buyers).toString());
+        response.add("topSellers", listings(sellers, 0, TOP_LISTINGS));
+        response.add("topBuyers", listings(buyers, 0, TOP_LISTINGS));
+        return response;
+    }
+
+    private synchronized JsonObject listingPage(Map<String, String> query) {
+        String key = key(query.getOrDefault("item", ""));
+        int offset = Math.max(0, parseInt(query.get("offset"), 0));
+        int limit = Math.max(1, parseInt(query.get("limit"), DEFAULT_PAGE_LIMIT));
+        List<Shop> sellers = shopsFor(key, "sell");
+        List<Shop> buyers = shopsFor(key, "buy");
+        if (sellers.isEmpty() && buyers.isEmpty()) {
+            return error("Item not found.");
+        }
+
+        JsonObject response = ok();
+        response.addProperty("item", canonicalName(sellers, buyers));
+        response.addProperty("refreshedAt", refreshedAt(sellers, buyers).toString());
+        response.addProperty("totalSellers", sellers.size());
+        response.addProperty("totalBuyers", buyers.size());
+        response.add("sellers", listings(sellers, offset, limit));
+        response.add("buyers", listings(buyers, offset, limit));
+        return response;
+    }
+
+    private synchronized JsonObject catalog() {
+        JsonArray items = new JsonArray();
+        chunksByItem.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(entry -> canonicalName(shopsFor(entry.getKey(), null), List.of()))
+                .sorted(String.CASE_INSENSITIVE_ORDER)
+                .forEach(name -> {
+                    JsonObject item = new JsonObject();
+                    item.addProperty("name", name);
+                    items.add(item);
+                });
+        JsonObject response = ok();
+        response.add("items", items);
+        return response;
+    }
+
+    private synchronized JsonObject historyBody(Map<String, String> query) {
+        String item = query.getOrDefault("item", "");
+        NavigableMap<LocalDate, HistoryDay> days = history.get(key(item));
+        if (days == null || days.isEmpty()) {
+            return error("No history.");
+        }
+        LocalDate since = parseDate(query.get("since"));
+        // The latest day the client holds is sent again, since its row changes until the day ends.
+        NavigableMap<LocalDate, HistoryDay> selected = since == null ? days : days.tailMap(since, true);
+
+        JsonArray rows = new JsonArray();
+        String name = item;
+        for (Map.Entry<LocalDate, HistoryDay> entry : selected.entrySet()) {
+            HistoryDay day = entry.getValue();
+            name = day.item();
+            JsonObject row = new JsonObject();
+            row.addProperty("date", entry.getKey().toString());
+            row.addProperty("lowestPrice", day.lowestPrice());
+            row.addProperty("stock", day.stock());
+            row.addProperty("shops", day.shops());
+            rows.add(row);
+        }
+        JsonObject response = ok();
+        response.addProperty("item", name);
+        response.add("history", rows);
+        return response;
+    }
+
+    private JsonObject versionBody() {
+        JsonObject response = new JsonObject();
+        response.addProperty("min_version", minVersion);
+        return response;
+    }
+
+    /**
+     * Shops for an item with the given action, cheapest sellers or highest buyers first. A
+     * {@code null} action returns every shop.
+     */
+    private List<Shop> shopsFor(String itemKey, String action) {
+        Set<ChunkKey> holding = chunksByItem.get(itemKey);
+        if (holding == null) {
+            return List.of();
+        }
+        List<Shop> result = new ArrayList<>();
+        for (ChunkKey chunk : holding) {
+            for (Shop shop : chunks.get(chunk).shops()) {
+                if (key(shop.item()).equals(itemKey) && (action == null || action.equals(shop.action()))) {
+                    result.add(shop);
+                }
+            }
+        }
+        Comparator<Shop> byPrice = Comparator.comparingDouble(Shop::price);
+        result.sort(("buy".equals(action) ? byPrice.reversed() : byPrice)
+                .thenComparing(Shop::owner, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(Shop::position));
+        return result;
+    }
+
+    private JsonArray listings(List<Shop> shops, int offset, int limit) {
+        JsonArray array = new JsonArray();
+        for (int i = offset; i < Math.min(shops.size(), offset + limit); i++) {
+            Shop shop = shops.get(i);
+            JsonObject listing = new JsonObject();
+            listing.addProperty("owner", shop.owner());
+            listing.addProperty("price", shop.price());
+            listing.addProperty("amount", shop.amount());
+            listing.addProperty("dimension", shop.dimension());
+            listing.addProperty("lastSeenAt", shop.seenAt().toString());
+            listing.add("coords", shop.position().toJson());
+            JsonObject waystone = nearestWaystone(shop);
+            if (waystone != null) {
+                listing.add("nearestWaystone", waystone);
+            }
+            array.add(listing);
+        }
+        return array;
+    }
+
+    private JsonObject nearestWaystone(Shop shop) {
+        Point best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (Map.Entry<ChunkKey, ChunkState> entry : chunks.entrySet()) {
+            if (!entry.getKey().dimension().equals(shop.dimension())) {
+                continue;
+            }
+            for (Point waystone : entry.getValue().waystones()) {
+                long distance = waystone.distanceSq(shop.position());
+                if (distance < bestDistance) {
+                    best = waystone;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        JsonObject waystone = new JsonObject();
+        waystone.addProperty("name", waystoneNames.getOrDefault(new WaystoneKey(shop.dimension(), best), ""));
+        waystone.add("position", best.toJson());
+        waystone.addProperty("distanceSq", (int) Math.min(Integer.MAX_VALUE, bestDistance));
+        return waystone;
+    }
+
+    private static String canonicalName(List<Shop> sellers, List<Shop> buyers) {
+        return Stream.concat(sellers.stream(), buyers.stream())
+                .max(Comparator.comparing(Shop::seenAt))
+                .map(Shop::item)
+                .orElse("");
+    }
+
+    private static Instant refreshedAt(List<Shop> sellers, List<Shop> buyers) {
+        return Stream.concat(sellers.stream(), buyers.stream())
+                .map(Shop::seenAt)
+                .max(Comparator.naturalOrder())
+                .orElse(Instant.EPOCH);
+    }
+
+    /**
+     * Sends {@code body} with an ETag, or a bodiless 304 when the client already holds it.
+     */
+    private int sendCacheable(HttpExchange exchange, JsonObject body) throws IOException {
+        String json = body.toString();
+        String etag = "\"" + Integer.toHexString(json.hashCode()) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            complete(exchange, 304);
+            exchange.sendResponseHeaders(304, -1);
+            return 304;
+        }
+        return send(exchange, 200, json);
+    }
+
+    private int methodNotAllowed(HttpExchange exchange) throws IOException {
+        return send(exchange, 405, error("Method not allowed."));
+    }
+
+    private int send(HttpExchange exchange, int status, JsonObject body) throws IOException {
+        return send(exchange, status, body.toString());
+    }
+
+    private int send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        complete(exchange, status);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(status, bytes.length);
+            Duration pause = slowBodies.get(exchange.getRequestURI().getPath());
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (pause == null) {
+                    out.write(bytes);
+                } else {
+                    int half = bytes.length / 2;
+                    out.write(bytes, 0, half);
+                    out.flush();
+                    sleep(pause.toNanos());
+                    out.write(bytes, half, bytes.length - half);
+                }
+            }
+        } catch (IOException ex) {
+            abandonedResponses.increment();
+            throw ex;
+        }
+        return status;
+    }
+
+    /**
+     * Returns {@code false} when interrupted while waiting.
+     */
+    private static boolean sleep(long nanos) {
+        if (nanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static JsonObject readObject(HttpExchange exchange) throws IOException {
+        try (Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            JsonElement parsed = JsonParser.parseReader(body);
+            return parsed.isJsonObject() ? parsed.getAsJsonObject() : null;
+        } catch (JsonParseException ex) {
+            return null;
+        }
+    }
+
+    private static JsonArray arrayOrEmpty(JsonObject object, String name) {
+        JsonElement element = object.get(name);
+        return element != null && element.isJsonArray() ? element.getAsJsonArray() : new JsonArray();
+    }
+
+    private static Point readPoint(JsonElement element) {
+        JsonArray coords = element.getAsJsonArray();
+        if (coords.size() != 3) {
+            throw new IllegalArgumentException("Expected three coordinates");
+        }
+        return new Point(coords.get(0).getAsInt(), coords.get(1).getAsInt(), coords.get(2).getAsInt());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int split = pair.indexOf('=');
+            String name = split < 0 ? pair : pair.substring(0, split);
+            String value = split < 0 ? "" : pair.substring(split + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
+
+    private static long parseLong(String value, long fallback) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return fallback;
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return value == null || value.isBlank() ? null : LocalDate.parse(value);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private static String key(String item) {
+        return item == null ? "" : item.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static JsonObject ok() {
+        JsonObject response = new JsonObject();
+        response.addProperty("ok", true);
+        return response;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject response = new JsonObject();
+        response.addProperty("ok", false);
+        response.addProperty("error", message);
+        return response;
+    }
+
+    /**
+     * How the server misbehaves. Each request waits {@code latency} plus up to {@code jitter},
+     * then is throttled with {@code throttleRate} probability and otherwise fails with
+     * {@code errorRate} probability.
+     */
+    public record Faults(Duration latency, Duration jitter, double errorRate, double throttleRate) {
+        public static final Faults NONE = new Faults(Duration.ZERO, Duration.ZERO, 0, 0);
+
+        public Faults {
+            Objects.requireNonNull(latency, "latency");
+            Objects.requireNonNull(jitter, "jitter");
+            if (errorRate < 0 || throttleRate < 0 || errorRate + throttleRate > 1) {
+                throw new IllegalArgumentException("Rates must be non-negative and sum to at most 1");
+            }
+        }
+
+        public Faults withLatency(Duration latency, Duration jitter) {
+            return new Faults(latency, jitter, errorRate, throttleRate);
+        }
+
+        public Faults withErrorRate(double errorRate) {
+            return new Faults(latency, jitter, errorRate, throttleRate);
+        }
+
+        public Faults withThrottleRate(double throttleRate) {
+            return new Faults(latency, jitter, errorRate, throttleRate);
+        }
+
+        /**
+         * Returns {@code false} when interrupted while waiting.
+         */
+        private boolean delay(ThreadLocalRandom random) {
+            long nanos = latency.toNanos();
+            if (!jitter.isZero()) {
+                nanos += random.nextLong(jitter.toNanos() + 1);
+            }
+            return sleep(nanos);
+        }
+    }
+
+    private record StreamEvent(long id, String item, String data) {
+    }
+
+    /**
+     * One open stream; {@code closed} is guarded by the server.
+     */
+    private static final class PriceStream {
+        private boolean closed;
+    }
+
+    private record ChunkKey(String dimension, int x, int z) {
+    }
+
+    private record ChunkState(List<Shop> shops, List<Point> waystones) {
+    }
+
+    private record WaystoneKey(String dimension, Point position) {
+    }
+
+    private record Shop(String owner, String item, double price, int amount, String dimension, String action,
+                        Point position, Instant seenAt) {
+    }
+
+    private record HistoryDay(String item, double lowestPrice, int stock, int shops) {
+    }
+
+    private record Point(int x, int y, int z) implements Comparable<Point> {
+        private static final Comparator<Point> ORDER = Comparator.comparingInt(Point::x)
+                .thenComparingInt(Point::y)
+                .thenComparingInt(Point::z);
+
+        long distanceSq(Point other) {
+            long dx = x - other.x;
+            long dy = y - other.y;
+            long dz = z - other.z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        JsonArray toJson() {
+            JsonArray coords = new JsonArray();
+            coords.add(x);
+            coords.add(y);
+            coords.add(z);
+            return coords;
+        }
+
+        @Override
+        public int compareTo(Point other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
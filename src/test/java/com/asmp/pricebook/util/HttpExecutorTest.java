@@ -0,0 +1,153 @@
+package com.asmp.pricebook.util;
+
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpExecutorTest {
+    @Test
+    void runsAtMostMaxThreadsAndQueuesTheRest() throws Exception {
+        HttpExecutor executor = new HttpExecutor("test-http", 4, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 20; i++) {
+            executor.execute(() -> {
+                awaitQuietly(release);
+                ran.incrementAndGet();
+            });
+        }
+
+        assertTrue(eventually(() -> executor.activeThreads() == 4 && executor.queueDepth() == 16));
+        release.countDown();
+
+        assertTrue(executor.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(20, ran.get());
+        assertEquals(20, executor.completedTasks());
+        assertEquals(0, executor.queueDepth());
+        assertEquals(0, executor.activeThreads());
+    }
+
+    @Test
+    void rejectsWorkPastTheQueue() throws Exception {
+        HttpExecutor executor = new HttpExecutor("test-http", 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        assertTrue(eventually(() -> executor.activeThreads() == 1 && executor.queueDepth() == 0));
+
+        executor.execute(() -> { });
+        executor.execute(() -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(1, executor.rejectedTasks());
+        assertEquals(2, executor.peakQueueDepth());
+
+        release.countDown();
+        assertTrue(executor.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(3, executor.completedTasks());
+    }
+
+    @Test
+    void closeFinishesQueuedWorkAndRejectsNewWork() throws Exception {
+        HttpExecutor executor = new HttpExecutor("test-http", 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(ran::incrementAndGet);
+
+        executor.close();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(ran::incrementAndGet));
+
+        release.countDown();
+        assertTrue(executor.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(1, ran.get());
+    }
+
+    @Test
+    void orCallerRunsTakesRejectedWorkOnTheSubmittingThread() throws Exception {
+        HttpExecutor executor = new HttpExecutor("test-http", 1, 1);
+        Executor callbacks = executor.orCallerRuns();
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        assertTrue(eventually(() -> executor.activeThreads() == 1 && executor.queueDepth() == 0));
+        executor.execute(() -> { });
+
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        callbacks.execute(() -> ranOn.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), ranOn.get());
+
+        release.countDown();
+        assertTrue(executor.awaitIdle(5, TimeUnit.SECONDS));
+        callbacks.execute(() -> ranOn.set(Thread.currentThread()));
+        assertTrue(eventually(() -> ranOn.get() != Thread.currentThread()));
+
+        executor.close();
+        callbacks.execute(() -> ranOn.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(2, executor.rejectedTasks());
+    }
+
+    @Test
+    void parsingRunsOnTheModExecutorAndTheClientDoesNot() throws Exception {
+        try (StandInPricebookServer server = StandInPricebookServer.start()) {
+            server.setFaults(Faults.NONE.withLatency(Duration.ofMillis(50), Duration.ZERO));
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(server.baseUrl() + StandInPricebookServer.MOD_VERSION)).GET().build();
+
+            HttpClient first = HttpClients.shared();
+            assertTrue(first.executor().isEmpty());
+            String thread = first.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApplyAsync(response -> Thread.currentThread().getName(), HttpClients.callbacks())
+                    .get(5, TimeUnit.SECONDS);
+            assertTrue(thread.startsWith("pricebook-http-"), thread);
+            assertTrue(HttpClients.executor().completedTasks() > 0);
+
+            HttpExecutor executor = HttpClients.executor();
+            HttpClients.shutdown();
+            assertTrue(executor.isClosed());
+            assertNull(HttpClients.currentExecutor());
+
+            assertNotSame(first, HttpClients.shared());
+            assertEquals(200, HttpClients.shared().send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        } finally {
+            HttpClients.shutdown();
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.asmp.pricebook.util;
+
+import com.asmp.pricebook.standin.StandInPricebookServer;
+import com.asmp.pricebook.standin.StandInPricebookServer.Faults;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModVersionCheckerTest {
+    private StandInPricebookServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = StandInPricebookServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void olderVersionIsOutdated() throws Exception {
+        server.setMinVersion("1.3.0");
+
+        ModVersionChecker.Result result = check("1.2.4");
+
+        assertFalse(result.compatible());
+        assertEquals("1.3.0", result.requiredVersion());
+    }
+
+    @Test
+    void sameOrNewerVersionIsCompatible() throws Exception {
+        server.setMinVersion("1.2.4");
+
+        assertTrue(check("1.2.4").compatible());
+        assertTrue(check("1.10.0").compatible());
+    }
+
+    @Test
+    void unreachableServiceNeverBlocksThePlayer() throws Exception {
+        server.setMinVersion("9.0.0");
+        server.setFaults(Faults.NONE.withErrorRate(1));
+
+        assertTrue(check("1.2.4").compatible());
+    }
+
+    private ModVersionChecker.Result check(String version) throws Exception {
+        return ModVersionChecker.checkAsync(server.baseUrl(), version).get(5, TimeUnit.SECONDS);
+    }
+}
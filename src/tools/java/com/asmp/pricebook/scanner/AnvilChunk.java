@@ -0,0 +1,239 @@
+package com.asmp.pricebook.scanner;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A chunk decoded from region NBT (the 1.18+ layout, with {@code sections} and
+ * {@code block_entities} at the root). Block states stay packed as stored and are looked up on
+ * demand; the scanner only reads the blocks under signs and waystone candidates, so unpacking
+ * whole sections would be wasted work. Signs are the only block entities kept.
+ */
+final class AnvilChunk implements ChunkView {
+    private static final int SECTION_VOLUME = 16 * 16 * 16;
+
+    private final BlockState air = Blocks.AIR.getDefaultState();
+    private final ChunkPos pos;
+    private final int bottomSection;
+    private final Section[] sections;
+    private final Map<BlockPos, String[]> signs;
+
+    private AnvilChunk(ChunkPos pos, int bottomSection, Section[] sections, Map<BlockPos, String[]> signs) {
+        this.pos = pos;
+        this.bottomSection = bottomSection;
+        this.sections = sections;
+        this.signs = signs;
+    }
+
+    /**
+     * Decodes a chunk, or returns {@code null} when it is in a layout older than 1.18 or was
+     * never generated past the early world-gen stages. {@code states} caches palette entries
+     * and may be shared by every chunk decoded on the same thread.
+     */
+    static AnvilChunk decode(NbtCompound root, Map<NbtCompound, BlockState> states) {
+        if (!root.contains("sections") || !root.contains("xPos") || !root.contains("zPos")) {
+            return null;
+        }
+        ChunkPos pos = new ChunkPos(root.getIntOr("xPos", 0), root.getIntOr("zPos", 0));
+
+        NbtList sectionList = root.getListOrEmpty("sections");
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (int i = 0; i < sectionList.size(); i++) {
+            NbtCompound section = sectionList.getCompoundOrEmpty(i);
+            if (section.contains("block_states")) {
+                int y = section.getByteOr("Y", (byte) 0);
+                lowest = Math.min(lowest, y);
+                highest = Math.max(highest, y);
+            }
+        }
+        if (lowest > highest) {
+            return null;
+        }
+        int bottomSection = root.getIntOr("yPos", lowest);
+        Section[] sections = new Section[Math.max(highest, bottomSection) - bottomSection + 1];
+        for (int i = 0; i < sectionList.size(); i++) {
+            NbtCompound section = sectionList.getCompoundOrEmpty(i);
+            int index = section.getByteOr("Y", (byte) 0) - bottomSection;
+            if (index >= 0 && index < sections.length && section.contains("block_states")) {
+                sections[index] = Section.decode(section.getCompoundOrEmpty("block_states"), states);
+            }
+        }
+
+        Map<BlockPos, String[]> signs = new HashMap<>();
+        NbtList blockEntities = root.getListOrEmpty("block_entities");
+        for (int i = 0; i < blockEntities.size(); i++) {
+            NbtCompound blockEntity = blockEntities.getCompoundOrEmpty(i);
+            String id = blockEntity.getStringOr("id", "");
+            if (!id.equals("minecraft:sign") && !id.equals("minecraft:hanging_sign")) {
+                continue;
+            }
+            String[] lines = signLines(blockEntity);
+            if (lines != null) {
+                signs.put(new BlockPos(blockEntity.getIntOr("x", 0), blockEntity.getIntOr("y", 0),
+                        blockEntity.getIntOr("z", 0)), lines);
+            }
+        }
+        return new AnvilChunk(pos, bottomSection, sections, signs);
+    }
+
+    @Override
+    public ChunkPos pos() {
+        return pos;
+    }
+
+    @Override
+    public int bottomY() {
+        return bottomSection << 4;
+    }
+
+    @Override
+    public int height() {
+        return sections.length << 4;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        int index = (pos.getY() >> 4) - bottomSection;
+        if (index < 0 || index >= sections.length || sections[index] == null) {
+            return air;
+        }
+        return sections[index].get(((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15), air);
+    }
+
+    @Override
+    public Iterable<BlockPos> blockEntityPositions() {
+        return signs.keySet();
+    }
+
+    @Override
+    public String[] signLines(BlockPos pos) {
+        return signs.get(pos);
+    }
+
+    /**
+     * Front text of a sign block entity as plain strings. Handles both the current
+     * {@code front_text} compound and the {@code Text1}..{@code Text4} keys of pre-1.20 worlds.
+     */
+    private static String[] signLines(NbtCompound sign) {
+        String[] lines = new String[4];
+        if (sign.contains("front_text")) {
+            NbtList messages = sign.getCompoundOrEmpty("front_text").getListOrEmpty("messages");
+            if (messages.size() != lines.length) {
+                return null;
+            }
+            for (int i = 0; i < lines.length; i++) {
+                lines[i] = plainText(messages.get(i));
+            }
+            return lines;
+        }
+        for (int i = 0; i < lines.length; i++) {
+            NbtElement line = sign.get("Text" + (i + 1));
+            if (line == null) {
+                return null;
+            }
+            lines[i] = plainText(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Flattens a stored text component the way {@code Text.getString()} would for the literal
+     * parts. Since 1.21.5 components are stored as NBT; before that as JSON strings.
+     */
+    private static String plainText(NbtElement element) {
+        if (element instanceof NbtString string) {
+            String value = string.value();
+            if (value.isEmpty() || "{[\"".indexOf(value.charAt(0)) < 0) {
+                return value;
+            }
+            try {
+                return plainText(JsonParser.parseString(value));
+            } catch (JsonParseException ex) {
+                return value;
+            }
+        }
+        StringBuilder text = new StringBuilder();
+        if (element instanceof NbtCompound compound) {
+            text.append(compound.getStringOr("text", ""));
+            NbtList extra = compound.getListOrEmpty("extra");
+            for (int i = 0; i < extra.size(); i++) {
+                text.append(plainText(extra.get(i)));
+            }
+        } else if (element instanceof NbtList list) {
+            for (int i = 0; i < list.size(); i++) {
+                text.append(plainText(list.get(i)));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String plainText(JsonElement element) {
+        if (element.isJsonPrimitive()) {
+            return element.getAsString();
+        }
+        StringBuilder text = new StringBuilder();
+        if (element instanceof JsonObject object) {
+            if (object.get("text") instanceof JsonElement literal && literal.isJsonPrimitive()) {
+                text.append(literal.getAsString());
+            }
+            if (object.get("extra") instanceof JsonArray extra) {
+                extra.forEach(part -> text.append(plainText(part)));
+            }
+        } else if (element instanceof JsonArray array) {
+            array.forEach(part -> text.append(plainText(part)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * One 16x16x16 section as stored: a palette and indices packed into longs, with no index
+     * spanning two longs. A single-entry palette has no data.
+     */
+    private record Section(BlockState[] palette, long[] data, int bits) {
+        static Section decode(NbtCompound blockStates, Map<NbtCompound, BlockState> states) {
+            NbtList paletteList = blockStates.getListOrEmpty("palette");
+            BlockState[] palette = new BlockState[paletteList.size()];
+            for (int i = 0; i < palette.length; i++) {
+                palette[i] = states.computeIfAbsent(paletteList.getCompoundOrEmpty(i),
+                        entry -> NbtHelper.toBlockState(Registries.BLOCK, entry));
+            }
+            if (palette.length <= 1) {
+                return new Section(palette, null, 0);
+            }
+            int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(palette.length - 1));
+            long[] data = blockStates.getLongArray("data").orElse(null);
+            int perLong = 64 / bits;
+            if (data == null || data.length < (SECTION_VOLUME + perLong - 1) / perLong) {
+                return null;
+            }
+            return new Section(palette, data, bits);
+        }
+
+        BlockState get(int index, BlockState air) {
+            if (data == null) {
+                return palette.length == 0 ? air : palette[0];
+            }
+            int perLong = 64 / bits;
+            int shift = (index % perLong) * bits;
+            int id = (int) ((data[index / perLong] >>> shift) & ((1L << bits) - 1));
+            return id < palette.length ? palette[id] : air;
+        }
+    }
+}
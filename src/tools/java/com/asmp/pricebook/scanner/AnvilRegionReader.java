@@ -0,0 +1,165 @@
+package com.asmp.pricebook.scanner;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads chunk NBT out of an Anvil region file ({@code r.<x>.<z>.mca}). The file is
+ * memory-mapped and each chunk is inflated straight from the mapping, so a region never sits on
+ * the heap as a whole. Chunks too big for the region live in {@code c.<x>.<z>.mcc} beside it and
+ * are read from there.
+ */
+final class AnvilRegionReader {
+    private static final Pattern REGION_NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+    private static final int SECTOR_BYTES = 4096;
+    private static final int CHUNKS_PER_REGION = 1024;
+    private static final int HEADER_BYTES = 2 * SECTOR_BYTES;
+    private static final int EXTERNAL_FLAG = 0x80;
+    private static final int GZIP = 1;
+    private static final int ZLIB = 2;
+    private static final int UNCOMPRESSED = 3;
+    private static final int LZ4 = 4;
+    private static final int BUFFER_BYTES = 1 << 14;
+
+    private AnvilRegionReader() {
+    }
+
+    static boolean isRegionFile(Path path) {
+        return REGION_NAME.matcher(path.getFileName().toString()).matches();
+    }
+
+    /**
+     * Hands every readable chunk in the region to {@code chunks}, in file order. Returns how many
+     * chunks could not be read.
+     */
+    static int read(Path file, Consumer<NbtCompound> chunks) throws IOException {
+        Matcher name = REGION_NAME.matcher(file.getFileName().toString());
+        if (!name.matches()) {
+            throw new IOException(file + " is not named like a region file");
+        }
+        int regionX = Integer.parseInt(name.group(1));
+        int regionZ = Integer.parseInt(name.group(2));
+
+        int unreadable = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return 0;
+            }
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+                int location = region.getInt(index * 4);
+                if (location == 0) {
+                    continue;
+                }
+                long offset = (long) (location >>> 8) * SECTOR_BYTES;
+                int chunkX = (regionX << 5) + (index & 31);
+                int chunkZ = (regionZ << 5) + (index >> 5);
+                NbtCompound chunk;
+                try {
+                    chunk = readChunk(file, region, offset, chunkX, chunkZ);
+                } catch (IOException | RuntimeException ex) {
+                    chunk = null;
+                }
+                if (chunk == null) {
+                    unreadable++;
+                } else {
+                    chunks.accept(chunk);
+                }
+            }
+        }
+        return unreadable;
+    }
+
+    private static NbtCompound readChunk(Path file, ByteBuffer region, long offset, int chunkX, int chunkZ)
+            throws IOException {
+        if (offset + 5 > region.capacity()) {
+            return null;
+        }
+        int length = region.getInt((int) offset);
+        int type = region.get((int) offset + 4) & 0xFF;
+        if (length < 1 || offset + 4 + length > region.capacity()) {
+            return null;
+        }
+
+        InputStream raw;
+        if ((type & EXTERNAL_FLAG) != 0) {
+            Path external = file.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+            if (!Files.exists(external)) {
+                return null;
+            }
+            raw = Files.newInputStream(external);
+            type &= ~EXTERNAL_FLAG;
+        } else {
+            raw = new ByteBufferInputStream(region.slice((int) offset + 5, length - 1));
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(decompress(raw, type), BUFFER_BYTES))) {
+            return NbtIo.readCompound(in);
+        }
+    }
+
+    private static InputStream decompress(InputStream raw, int type) throws IOException {
+        return switch (type) {
+            case GZIP -> new GZIPInputStream(raw, BUFFER_BYTES);
+            case ZLIB -> new InflaterInputStream(raw);
+            case UNCOMPRESSED -> raw;
+            case LZ4 -> new LZ4BlockInputStream(raw);
+            default -> {
+                raw.close();
+                throw new IOException("Unsupported chunk compression " + type);
+            }
+        };
+    }
+
+    /**
+     * Streams a slice of the mapping without copying it first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One chunk read back from a capture file, as the scanner saw it in game.
+ */
+final class CapturedChunk implements ChunkView {
+    private final BlockState air = Blocks.AIR.getDefaultState();
+    private final long elapsedNanos;
+    private final String dimension;
+    private final ChunkPos pos;
+    private final int bottomY;
+    private final int height;
+    private final BlockState[][] sections;
+    private final List<BlockPos> blockEntities;
+    private final Map<BlockPos, String[]> signs;
+
+    CapturedChunk(long elapsedNanos, String dimension, ChunkPos pos, int bottomY, int height,
+                  BlockState[][] sections, List<BlockPos> blockEntities, Map<BlockPos, String[]> signs) {
+        this.elapsedNanos = elapsedNanos;
+        this.dimension = dimension;
+        this.pos = pos;
+        this.bottomY = bottomY;
+        this.height = height;
+        this.sections = sections;
+        this.blockEntities = blockEntities;
+        this.signs = signs;
+    }
+
+    long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    String dimension() {
+        return dimension;
+    }
+
+    @Override
+    public ChunkPos pos() {
+        return pos;
+    }
+
+    @Override
+    public int bottomY() {
+        return bottomY;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        int section = (pos.getY() - bottomY) >> 4;
+        if (section < 0 || section >= sections.length || sections[section] == null) {
+            return air;
+        }
+        return sections[section][((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15)];
+    }
+
+    @Override
+    public Iterable<BlockPos> blockEntityPositions() {
+        return blockEntities;
+    }
+
+    @Override
+    public String[] signLines(BlockPos pos) {
+        return signs.get(pos);
+    }
+}
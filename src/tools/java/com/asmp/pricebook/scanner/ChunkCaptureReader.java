@@ -0,0 +1,120 @@
+package com.asmp.pricebook.scanner;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.command.argument.BlockArgumentParser;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files {@link ChunkCaptureWriter} produces. Needs the vanilla registries
+ * bootstrapped to turn block state strings back into states. States this game version does not
+ * know read as air and are counted in {@link #unknownStates()}.
+ */
+final class ChunkCaptureReader {
+    private final List<BlockState> states = new ArrayList<>();
+    private int unknownStates;
+
+    List<CapturedChunk> readAll(Path path) throws IOException {
+        List<CapturedChunk> chunks = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path), 1 << 16)))) {
+            if (in.readInt() != ChunkCaptureWriter.MAGIC) {
+                throw new IOException(path + " is not a chunk capture");
+            }
+            int version = in.readInt();
+            if (version != ChunkCaptureWriter.VERSION) {
+                throw new IOException("Unsupported capture version " + version);
+            }
+            while (true) {
+                int type = in.readByte();
+                if (type == ChunkCaptureWriter.END) {
+                    break;
+                }
+                if (type != ChunkCaptureWriter.CHUNK) {
+                    throw new IOException("Unknown record type " + type);
+                }
+                chunks.add(readChunk(in));
+            }
+        }
+        return chunks;
+    }
+
+    int unknownStates() {
+        return unknownStates;
+    }
+
+    private CapturedChunk readChunk(DataInputStream in) throws IOException {
+        long elapsed = in.readLong();
+        String dimension = in.readUTF();
+        ChunkPos pos = new ChunkPos(in.readInt(), in.readInt());
+        int bottomY = in.readInt();
+        int height = in.readInt();
+
+        int newStates = in.readInt();
+        for (int i = 0; i < newStates; i++) {
+            states.add(parseState(in.readUTF()));
+        }
+
+        BlockState[][] sections = new BlockState[Math.max(0, height >> 4)][];
+        int sectionCount = in.readUnsignedShort();
+        for (int i = 0; i < sectionCount; i++) {
+            int index = in.readUnsignedShort();
+            BlockState[] section = readSection(in);
+            if (index < sections.length) {
+                sections[index] = section;
+            }
+        }
+
+        int blockEntityCount = in.readInt();
+        List<BlockPos> blockEntities = new ArrayList<>(blockEntityCount);
+        Map<BlockPos, String[]> signs = new HashMap<>();
+        for (int i = 0; i < blockEntityCount; i++) {
+            BlockPos blockPos = BlockPos.fromLong(in.readLong());
+            blockEntities.add(blockPos);
+            if (in.readBoolean()) {
+                String[] lines = new String[in.readUnsignedByte()];
+                for (int line = 0; line < lines.length; line++) {
+                    lines[line] = in.readUTF();
+                }
+                signs.put(blockPos, lines);
+            }
+        }
+        return new CapturedChunk(elapsed, dimension, pos, bottomY, height, sections, blockEntities, signs);
+    }
+
+    private BlockState[] readSection(DataInputStream in) throws IOException {
+        BlockState[] palette = new BlockState[in.readUnsignedShort()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = states.get(in.readInt());
+        }
+        boolean wide = palette.length > 256;
+        BlockState[] section = new BlockState[ChunkCaptureWriter.SECTION_VOLUME];
+        for (int i = 0; i < section.length; i++) {
+            section[i] = palette[wide ? in.readUnsignedShort() : in.readUnsignedByte()];
+        }
+        return section;
+    }
+
+    private BlockState parseState(String text) {
+        try {
+            return BlockArgumentParser.block(Registries.BLOCK, text, false).blockState();
+        } catch (CommandSyntaxException ex) {
+            unknownStates++;
+            return Blocks.AIR.getDefaultState();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.asmp.pricebook.scanner;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Feeds a chunk capture through {@link ShopScanner} as fast as it will go, with a transport that
+ * encodes each scan body and then drops it. Every pass uses a fresh scanner, so each one sees
+ * the capture as a new join burst. Usage:
+ *
+ * <pre>./gradlew replayCapture -Pcapture=pricebook-captures/chunks-....pbcap [-Ppasses=10] [-PwarmupPasses=3]</pre>
+ */
+public final class ChunkReplay {
+    private ChunkReplay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].isBlank()) {
+            System.err.println("Usage: ChunkReplay <capture file> [passes] [warmup passes]");
+            System.exit(2);
+        }
+        Path path = Path.of(args[0]);
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int warmupPasses = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        ChunkCaptureReader reader = new ChunkCaptureReader();
+        List<CapturedChunk> chunks = reader.readAll(path);
+        if (chunks.isEmpty()) {
+            System.out.println("Capture holds no chunks.");
+            return;
+        }
+        double capturedSeconds = chunks.get(chunks.size() - 1).elapsedNanos() / 1e9;
+        System.out.printf(Locale.ROOT, "%s: %d chunks captured over %.1fs, %.1f MiB on disk, %d unknown block states%n",
+                path.getFileName(), chunks.size(), capturedSeconds, Files.size(path) / (1024.0 * 1024.0),
+                reader.unknownStates());
+
+        for (int pass = 0; pass < warmupPasses; pass++) {
+            replay(chunks, new long[chunks.size()]);
+        }
+
+        long[] chunkNanos = new long[chunks.size()];
+        long[] passNanos = new long[passes];
+        EncodingTransport totals = null;
+        for (int pass = 0; pass < passes; pass++) {
+            long started = System.nanoTime();
+            totals = replay(chunks, chunkNanos);
+            passNanos[pass] = System.nanoTime() - started;
+        }
+        if (totals == null) {
+            return;
+        }
+
+        Arrays.sort(passNanos);
+        Arrays.sort(chunkNanos);
+        double medianPassMillis = passNanos[passNanos.length / 2] / 1e6;
+        System.out.printf(Locale.ROOT, "Median pass: %.2f ms (%.0f chunks/s) over %d passes%n",
+                medianPassMillis, chunks.size() / (medianPassMillis / 1e3), passes);
+        System.out.printf(Locale.ROOT, "Per chunk (last pass): p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                percentile(chunkNanos, 0.50) / 1e3, percentile(chunkNanos, 0.99) / 1e3,
+                chunkNanos[chunkNanos.length - 1] / 1e3);
+        System.out.printf(Locale.ROOT, "Per pass: %d scans sent, %d shops, %d waystones, %d payload chars%n",
+                totals.scans, totals.shops, totals.waystones, totals.payloadChars);
+    }
+
+    private static EncodingTransport replay(List<CapturedChunk> chunks, long[] chunkNanos) {
+        EncodingTransport transport = new EncodingTransport();
+        ShopScanner scanner = new ShopScanner(() -> "replay", transport, LocalPriceIndex.load(null));
+        for (int i = 0; i < chunks.size(); i++) {
+            CapturedChunk chunk = chunks.get(i);
+            long started = System.nanoTime();
+            scanner.scanChunk(chunk.dimension(), chunk);
+            chunkNanos[i] = System.nanoTime() - started;
+        }
+        return transport;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.floor(fraction * sorted.length))];
+    }
+
+    /**
+     * Encodes each scan exactly as {@link HttpScanTransport} would, then drops it. Knows no
+     * chunks, like a client that has not finished bootstrapping.
+     */
+    private static final class EncodingTransport implements ScanTransport {
+        private int scans;
+        private long shops;
+        private long waystones;
+        private long payloadChars;
+
+        @Override
+        public boolean shouldTransmitEmpty(String dimension, ChunkPos pos) {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                                   List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+            scans++;
+            this.shops += shops.size();
+            this.waystones += waystones.size();
+            payloadChars += HttpScanTransport.encodePayload(senderId, dimension, pos, shops, waystones).length();
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+}
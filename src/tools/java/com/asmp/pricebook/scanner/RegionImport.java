@@ -0,0 +1,265 @@
+package com.asmp.pricebook.scanner;
+
+import com.asmp.pricebook.util.Dimensions;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Imports the shops of a whole world save without walking it in game. Region files are read
+ * in parallel, one task per region, and every chunk goes through a {@link ShopScanner}, so the
+ * sign rules, waystone patterns and clearing of emptied chunks are exactly the ones players
+ * run. Usage:
+ *
+ * <pre>./gradlew importRegions -Pworld=&lt;world dir, region dir or .mca&gt; [-PimportTarget=&lt;base url&gt;]
+ *     [-Pdimension=overworld] [-Pthreads=&lt;cores&gt;] [-PinFlight=32] [-Psender=region-import]</pre>
+ *
+ * <p>A world directory is searched for the overworld, nether and end region folders; anything
+ * else is read as the given dimension. Without a target nothing is sent: scans are encoded and
+ * counted, which is a cheap way to check what an import would upload.
+ */
+public final class RegionImport {
+    private static final String DRY_RUN = "dry";
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    private RegionImport() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1 || args[0].isBlank()) {
+            System.err.println("Usage: RegionImport <world dir | region dir | .mca file> [target url | dry] "
+                    + "[dimension] [threads] [in-flight scans] [sender id]");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        String target = args.length > 1 && !args[1].isBlank() ? args[1] : DRY_RUN;
+        String dimension = Dimensions.canonical(args.length > 2 && !args[2].isBlank() ? args[2] : Dimensions.OVERWORLD);
+        int threads = args.length > 3 && !args[3].isBlank()
+                ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int inFlight = args.length > 4 && !args[4].isBlank() ? Integer.parseInt(args[4]) : 32;
+        String senderId = args.length > 5 && !args[5].isBlank() ? args[5] : "region-import";
+
+        List<RegionJob> jobs = findRegions(source, dimension);
+        if (jobs.isEmpty()) {
+            System.out.println("No region files found under " + source);
+            return;
+        }
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        ScanTransport delegate;
+        if (DRY_RUN.equals(target)) {
+            delegate = new EncodingTransport();
+        } else {
+            HttpScanTransport http = new HttpScanTransport(target);
+            http.bootstrap().join();
+            delegate = http;
+        }
+        PipelinedTransport transport = new PipelinedTransport(delegate, inFlight);
+
+        long started = System.nanoTime();
+        Totals totals = new Totals();
+        List<Callable<Void>> tasks = new ArrayList<>(jobs.size());
+        for (RegionJob job : jobs) {
+            tasks.add(() -> {
+                importRegion(job, senderId, transport, totals);
+                return null;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                try {
+                    task.get();
+                } catch (ExecutionException ex) {
+                    totals.failedRegions.increment();
+                    System.err.println("Region failed: " + ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long readNanos = System.nanoTime() - started;
+        transport.drain();
+        long totalNanos = System.nanoTime() - started;
+
+        System.out.printf(Locale.ROOT, "%d regions (%d failed) read in %.1fs: %d chunks scanned, %d unreadable, "
+                        + "%d in an unsupported layout%n",
+                jobs.size(), totals.failedRegions.sum(), readNanos / 1e9, totals.chunks.sum(),
+                totals.unreadable.sum(), totals.unsupported.sum());
+        System.out.printf(Locale.ROOT, "%d scans (%d shops, %d waystones) %s in %.1fs: %d accepted, %d rejected, "
+                        + "%d retried%n",
+                transport.scans.sum(), transport.shops.sum(), transport.waystones.sum(),
+                delegate instanceof EncodingTransport ? "encoded" : "sent to " + target, totalNanos / 1e9,
+                transport.accepted.sum(), transport.rejected.sum(), transport.retries.sum());
+        if (delegate instanceof EncodingTransport encoding) {
+            System.out.printf(Locale.ROOT, "Dry run: %d payload chars, nothing was uploaded%n",
+                    encoding.payloadChars.sum());
+        }
+    }
+
+    private static void importRegion(RegionJob job, String senderId, ScanTransport transport, Totals totals)
+            throws IOException {
+        ShopScanner scanner = new ShopScanner(() -> senderId, transport, LocalPriceIndex.load(null));
+        Map<NbtCompound, BlockState> states = new HashMap<>();
+        int unreadable = AnvilRegionReader.read(job.file(), root -> {
+            AnvilChunk chunk = AnvilChunk.decode(root, states);
+            if (chunk == null) {
+                totals.unsupported.increment();
+                return;
+            }
+            scanner.scanChunk(job.dimension(), chunk);
+            totals.chunks.increment();
+        });
+        totals.unreadable.add(unreadable);
+    }
+
+    private static List<RegionJob> findRegions(Path source, String dimension) {
+        if (Files.isRegularFile(source)) {
+            return AnvilRegionReader.isRegionFile(source) ? List.of(new RegionJob(source, dimension)) : List.of();
+        }
+        if (!Files.isDirectory(source.resolve("region"))) {
+            return listRegions(source, dimension);
+        }
+        List<RegionJob> jobs = new ArrayList<>();
+        jobs.addAll(listRegions(source.resolve("region"), Dimensions.OVERWORLD));
+        jobs.addAll(listRegions(source.resolve("DIM-1").resolve("region"), Dimensions.NETHER));
+        jobs.addAll(listRegions(source.resolve("DIM1").resolve("region"), Dimensions.END));
+        return jobs;
+    }
+
+    private static List<RegionJob> listRegions(Path directory, String dimension) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AnvilRegionReader::isRegionFile)
+                    .sorted()
+                    .map(file -> new RegionJob(file, dimension))
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private record RegionJob(Path file, String dimension) {
+    }
+
+    private static final class Totals {
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder unreadable = new LongAdder();
+        private final LongAdder unsupported = new LongAdder();
+        private final LongAdder failedRegions = new LongAdder();
+    }
+
+    /**
+     * Keeps at most a fixed number of scans in flight, blocking region tasks once the limit is
+     * reached so the import goes at the pace the service answers. Rejected scans, usually
+     * throttling, are retried with backoff before they count as rejected.
+     */
+    private static final class PipelinedTransport implements ScanTransport {
+        private final ScanTransport delegate;
+        private final int inFlight;
+        private final Semaphore permits;
+        private final LongAdder scans = new LongAdder();
+        private final LongAdder shops = new LongAdder();
+        private final LongAdder waystones = new LongAdder();
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+
+        private PipelinedTransport(ScanTransport delegate, int inFlight) {
+            this.delegate = delegate;
+            this.inFlight = Math.max(1, inFlight);
+            this.permits = new Semaphore(this.inFlight);
+        }
+
+        @Override
+        public boolean shouldTransmitEmpty(String dimension, ChunkPos pos) {
+            return delegate.shouldTransmitEmpty(dimension, pos);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                                   List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+            permits.acquireUninterruptibly();
+            scans.increment();
+            this.shops.add(shops.size());
+            this.waystones.add(waystones.size());
+            return attempt(senderId, dimension, pos, shops, waystones, 1)
+                    .whenComplete((ok, throwable) -> {
+                        permits.release();
+                        (Boolean.TRUE.equals(ok) ? accepted : rejected).increment();
+                    });
+        }
+
+        private CompletableFuture<Boolean> attempt(String senderId, String dimension, ChunkPos pos,
+                                                   List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones,
+                                                   int attempt) {
+            return delegate.sendScan(senderId, dimension, pos, shops, waystones)
+                    .exceptionally(throwable -> false)
+                    .thenCompose(ok -> {
+                        if (ok || attempt >= MAX_ATTEMPTS) {
+                            return CompletableFuture.completedFuture(ok);
+                        }
+                        retries.increment();
+                        long backoff = RETRY_BACKOFF_MILLIS << (attempt - 1);
+                        return CompletableFuture.supplyAsync(() -> null,
+                                        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                                .thenCompose(ignored -> attempt(senderId, dimension, pos, shops, waystones,
+                                        attempt + 1));
+                    });
+        }
+
+        /**
+         * Waits for every scan handed over so far to be answered.
+         */
+        private void drain() {
+            permits.acquireUninterruptibly(inFlight);
+            permits.release(inFlight);
+        }
+    }
+
+    /**
+     * Encodes each scan exactly as {@link HttpScanTransport} would, then drops it.
+     */
+    private static final class EncodingTransport implements ScanTransport {
+        private final LongAdder payloadChars = new LongAdder();
+
+        @Override
+        public boolean shouldTransmitEmpty(String dimension, ChunkPos pos) {
+            return false;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sendScan(String senderId, String dimension, ChunkPos pos,
+                                                   List<ShopSignParser.ShopEntry> shops, List<BlockPos> waystones) {
+            payloadChars.add(HttpScanTransport.encodePayload(senderId, dimension, pos, shops, waystones).length());
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+}